@@ -3,36 +3,72 @@ package com.example.reminderapp.activities;
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.view.View;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.DatePicker;
 import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.Spinner;
+import android.widget.TextView;
 import android.widget.TimePicker;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.reminderapp.R;
+import com.example.reminderapp.database.AttachmentStore;
 import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.database.DraftAutosaver;
 import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderAttachment;
+import com.example.reminderapp.models.ReminderDraft;
+import com.example.reminderapp.models.ReminderTag;
+import com.example.reminderapp.utils.DateTimeUtils;
+import com.example.reminderapp.utils.ReminderScheduler;
 import com.example.reminderapp.utils.SessionManager;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 
 /**
  * AddEditReminderActivity allows users to add a new reminder or edit an existing one.
+ * Files picked to attach are copied into app storage right away and attached when the
+ * reminder is saved; if the form is closed without saving, the copies are deleted. They
+ * survive configuration changes through the saved instance state.
  */
 public class AddEditReminderActivity extends AppCompatActivity {
 
+    private static final int REQUEST_ATTACH = 1;
+    // Picked files not attached yet, kept across configuration changes
+    private static final String STATE_PENDING_FILES = "pending_files";
+    private static final String STATE_PENDING_TYPES = "pending_types";
+    private static final String STATE_PENDING_NAMES = "pending_names";
+
     private EditText editTitle, editDescription, editDate, editTime;
     private Button btnSave;
+    private Spinner spinnerPriority;
+    private TextView textAttachments;
+    // Attachments already saved with the reminder, then those picked since the form opened
+    private final List<ReminderAttachment> savedAttachments = new ArrayList<>();
+    private final List<ReminderAttachment> pendingAttachments = new ArrayList<>();
+    private boolean saved;
+    // Indexed by ReminderTag ordinal
+    private final CheckBox[] tagCheckBoxes = new CheckBox[ReminderTag.values().length];
     private DatabaseHelper dbHelper;
     private SessionManager sessionManager;
+    private DraftAutosaver draftAutosaver;
 
     private boolean isEditMode = false;
     private int reminderId;
+    private Reminder editingReminder;
     private int userId;
 
     @Override
@@ -41,11 +77,11 @@ public class AddEditReminderActivity extends AppCompatActivity {
         setContentView(R.layout.activity_add_edit_reminder);
 
         // Initialize DatabaseHelper and SessionManager
-        dbHelper = new DatabaseHelper(this);
         sessionManager = new SessionManager(this);
 
         // Get current user ID
         userId = sessionManager.getUserId();
+        dbHelper = DatabaseHelper.forUser(this, userId);
 
         // Initialize views
         editTitle = findViewById(R.id.editTextTitle);
@@ -53,6 +89,9 @@ public class AddEditReminderActivity extends AppCompatActivity {
         editDate = findViewById(R.id.editTextDate);
         editTime = findViewById(R.id.editTextTime);
         btnSave = findViewById(R.id.buttonSaveReminder);
+        spinnerPriority = findViewById(R.id.spinnerPriority);
+        textAttachments = findViewById(R.id.textAttachments);
+        setUpTagsAndPriority();
 
         // Check if activity is in edit mode
         Intent intent = getIntent();
@@ -61,6 +100,10 @@ public class AddEditReminderActivity extends AppCompatActivity {
             reminderId = intent.getIntExtra("REMINDER_ID", -1);
             loadReminderData(reminderId);
         }
+        if (savedInstanceState != null) {
+            restorePendingAttachments(savedInstanceState);
+        }
+        setUpDraftAutosave();
 
         // Set listeners for date and time fields
         editDate.setOnClickListener(new View.OnClickListener() {
@@ -77,6 +120,16 @@ public class AddEditReminderActivity extends AppCompatActivity {
             }
         });
 
+        findViewById(R.id.buttonAttach).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                Intent pick = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+                pick.addCategory(Intent.CATEGORY_OPENABLE);
+                pick.setType("*/*");
+                startActivityForResult(pick, REQUEST_ATTACH);
+            }
+        });
+
         // Set listener for Save button
         btnSave.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -94,16 +147,197 @@ public class AddEditReminderActivity extends AppCompatActivity {
     private void loadReminderData(int id) {
         Reminder reminder = dbHelper.getReminder(id);
         if (reminder != null) {
+            editingReminder = reminder;
             editTitle.setText(reminder.getTitle());
             editDescription.setText(reminder.getDescription());
             editDate.setText(reminder.getDate());
             editTime.setText(reminder.getTime());
+            spinnerPriority.setSelection(reminder.getPriority());
+            for (ReminderTag tag : ReminderTag.values()) {
+                tagCheckBoxes[tag.ordinal()].setChecked(reminder.hasTag(tag));
+            }
+            savedAttachments.addAll(dbHelper.getAttachments(id));
+            showAttachments();
         } else {
             Toast.makeText(this, "Reminder not found!", Toast.LENGTH_SHORT).show();
             finish();
         }
     }
 
+    /**
+     * Fills the priority spinner, indexed by priority level, and adds a CheckBox per tag.
+     */
+    private void setUpTagsAndPriority() {
+        ArrayAdapter<String> priorityAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item,
+                new String[]{"No priority", "Low priority", "Medium priority", "Urgent"});
+        priorityAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerPriority.setAdapter(priorityAdapter);
+
+        LinearLayout layoutTags = findViewById(R.id.layoutTags);
+        for (ReminderTag tag : ReminderTag.values()) {
+            CheckBox checkBox = new CheckBox(this);
+            checkBox.setText(tag.getLabel());
+            layoutTags.addView(checkBox);
+            tagCheckBoxes[tag.ordinal()] = checkBox;
+        }
+    }
+
+    private int getSelectedTags() {
+        int tags = 0;
+        for (ReminderTag tag : ReminderTag.values()) {
+            if (tagCheckBoxes[tag.ordinal()].isChecked()) {
+                tags |= tag.getBit();
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Restores the draft left by an earlier visit, then autosaves further edits.
+     * Watchers are attached after the restore so restoring does not count as an edit.
+     */
+    private void setUpDraftAutosave() {
+        draftAutosaver = new DraftAutosaver(this, userId, isEditMode ? reminderId : 0, new DraftAutosaver.Source() {
+            @Override
+            public ReminderDraft getDraft() {
+                return new ReminderDraft(editTitle.getText().toString(), editDescription.getText().toString(),
+                        editDate.getText().toString(), editTime.getText().toString());
+            }
+        });
+
+        ReminderDraft draft = draftAutosaver.restore();
+        if (draft != null) {
+            editTitle.setText(draft.getTitle());
+            editDescription.setText(draft.getDescription());
+            editDate.setText(draft.getDate());
+            editTime.setText(draft.getTime());
+            Toast.makeText(this, "Unsaved changes restored", Toast.LENGTH_SHORT).show();
+        }
+
+        TextWatcher watcher = new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                draftAutosaver.onEdited();
+            }
+        };
+        editTitle.addTextChangedListener(watcher);
+        editDescription.addTextChangedListener(watcher);
+        editDate.addTextChangedListener(watcher);
+        editTime.addTextChangedListener(watcher);
+    }
+
+    /**
+     * Copies a picked file into app storage off the main thread.
+     */
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode != REQUEST_ATTACH || resultCode != RESULT_OK || data == null || data.getData() == null) {
+            return;
+        }
+        Uri uri = data.getData();
+        AttachmentStore.importAsync(this, userId, uri, new AttachmentStore.Callback() {
+            @Override
+            public void onImported(ReminderAttachment attachment) {
+                if (isDestroyed()) {
+                    AttachmentStore.delete(AddEditReminderActivity.this, userId, attachment.getFileName());
+                    return;
+                }
+                pendingAttachments.add(attachment);
+                showAttachments();
+            }
+
+            @Override
+            public void onFailed(String message) {
+                Toast.makeText(AddEditReminderActivity.this, message, Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void showAttachments() {
+        List<ReminderAttachment> all = new ArrayList<>(savedAttachments);
+        all.addAll(pendingAttachments);
+        StringBuilder names = new StringBuilder();
+        for (ReminderAttachment attachment : all) {
+            if (names.length() > 0) {
+                names.append('\n');
+            }
+            names.append("Attached: ").append(attachment.getDisplayName());
+        }
+        textAttachments.setText(names);
+        textAttachments.setVisibility(names.length() > 0 ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Attaches the files picked since the form opened.
+     */
+    private void savePendingAttachments(int reminderId) {
+        for (ReminderAttachment attachment : pendingAttachments) {
+            dbHelper.addAttachment(reminderId, attachment);
+        }
+        pendingAttachments.clear();
+        saved = true;
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        ArrayList<String> files = new ArrayList<>();
+        ArrayList<String> types = new ArrayList<>();
+        ArrayList<String> names = new ArrayList<>();
+        for (ReminderAttachment attachment : pendingAttachments) {
+            files.add(attachment.getFileName());
+            types.add(attachment.getMimeType());
+            names.add(attachment.getDisplayName());
+        }
+        outState.putStringArrayList(STATE_PENDING_FILES, files);
+        outState.putStringArrayList(STATE_PENDING_TYPES, types);
+        outState.putStringArrayList(STATE_PENDING_NAMES, names);
+    }
+
+    /**
+     * Takes over the files picked before the activity was recreated, e.g. on rotation.
+     */
+    private void restorePendingAttachments(Bundle savedInstanceState) {
+        ArrayList<String> files = savedInstanceState.getStringArrayList(STATE_PENDING_FILES);
+        ArrayList<String> types = savedInstanceState.getStringArrayList(STATE_PENDING_TYPES);
+        ArrayList<String> names = savedInstanceState.getStringArrayList(STATE_PENDING_NAMES);
+        if (files == null || types == null || names == null) {
+            return;
+        }
+        for (int i = 0; i < files.size(); i++) {
+            pendingAttachments.add(new ReminderAttachment(0, 0, files.get(i), types.get(i), names.get(i)));
+        }
+        showAttachments();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // A recreated activity takes the picked files over from the saved state
+        if (!saved && isFinishing()) {
+            // Picked files that were never attached
+            for (ReminderAttachment attachment : pendingAttachments) {
+                AttachmentStore.delete(this, userId, attachment.getFileName());
+            }
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // The process may be killed once in the background, so write pending edits now
+        draftAutosaver.flush();
+    }
+
     /**
      * Displays a DatePicker dialog to select a date.
      */
@@ -163,11 +397,26 @@ public class AddEditReminderActivity extends AppCompatActivity {
             return;
         }
 
+        long dueAt = DateTimeUtils.parseDueAt(date, time);
+        if (dueAt == -1) {
+            editDate.setError("Invalid date or time");
+            return;
+        }
+
         if (isEditMode) {
             // Update existing reminder
-            Reminder reminder = new Reminder(reminderId, title, description, date, time, userId);
+            Reminder reminder = editingReminder.toBuilder()
+                    .setTitle(title)
+                    .setDescription(description)
+                    .setDueAt(dueAt)
+                    .setTags(getSelectedTags())
+                    .setPriority(spinnerPriority.getSelectedItemPosition())
+                    .build();
             int result = dbHelper.updateReminder(reminder);
             if (result > 0) {
+                savePendingAttachments(reminder.getId());
+                draftAutosaver.clear();
+                ReminderScheduler.schedule(this, reminder);
                 Toast.makeText(this, "Reminder updated successfully!", Toast.LENGTH_SHORT).show();
                 finish();
             } else {
@@ -175,9 +424,19 @@ public class AddEditReminderActivity extends AppCompatActivity {
             }
         } else {
             // Add new reminder
-            Reminder reminder = new Reminder(title, description, date, time, userId);
+            Reminder reminder = Reminder.builder()
+                    .setTitle(title)
+                    .setDescription(description)
+                    .setDueAt(dueAt)
+                    .setTags(getSelectedTags())
+                    .setPriority(spinnerPriority.getSelectedItemPosition())
+                    .setUserId(userId)
+                    .build();
             long id = dbHelper.addReminder(reminder);
             if (id != -1) {
+                savePendingAttachments((int) id);
+                draftAutosaver.clear();
+                ReminderScheduler.schedule(this, reminder.toBuilder().setId((int) id).build());
                 Toast.makeText(this, "Reminder added successfully!", Toast.LENGTH_SHORT).show();
                 finish();
             } else {
@@ -0,0 +1,202 @@
+package com.example.reminderapp.database;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.provider.OpenableColumns;
+
+import com.example.reminderapp.models.ReminderAttachment;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.ThumbnailLoader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AttachmentStore keeps the content of reminder attachments as files in app storage, one
+ * directory per user, so the databases only hold a row per attachment and stay small and
+ * fast to back up. Files get random names and are never rewritten, so a name also
+ * identifies its content, e.g. as a thumbnail cache key.
+ */
+public final class AttachmentStore {
+
+    private static final String DIRECTORY = "attachments";
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // Imports run one at a time
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Receives the outcome of an import on the main thread.
+     */
+    public interface Callback {
+        /**
+         * @param attachment Imported file, not yet attached to a reminder; its IDs are 0.
+         */
+        void onImported(ReminderAttachment attachment);
+
+        void onFailed(String message);
+    }
+
+    private AttachmentStore() {
+    }
+
+    /**
+     * Copies a document into the user's attachment directory on the background thread.
+     * The copy is attached with {@link DatabaseHelper#addAttachment}, or removed with
+     * {@link #delete} if it is discarded.
+     *
+     * @param context  Context.
+     * @param userId   ID of the user.
+     * @param uri      Document to copy, e.g. from ACTION_OPEN_DOCUMENT.
+     * @param callback Called on the main thread when done.
+     */
+    public static void importAsync(Context context, final int userId, final Uri uri, final Callback callback) {
+        final Context appContext = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                long start = PerfMetrics.begin("attachments.import");
+                final String fileName = UUID.randomUUID().toString();
+                File file = getFile(appContext, userId, fileName);
+                try {
+                    ContentResolver resolver = appContext.getContentResolver();
+                    copy(resolver, uri, file);
+                    final ReminderAttachment attachment = new ReminderAttachment(0, 0, fileName,
+                            resolver.getType(uri), queryDisplayName(resolver, uri));
+                    PerfMetrics.record("attachments.import.bytes", file.length());
+                    new Handler(Looper.getMainLooper()).post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onImported(attachment);
+                        }
+                    });
+                } catch (IOException | RuntimeException e) {
+                    file.delete();
+                    final String message = "Attaching failed: " + e.getMessage();
+                    new Handler(Looper.getMainLooper()).post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onFailed(message);
+                        }
+                    });
+                } finally {
+                    PerfMetrics.end("attachments.import", start);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the file holding an attachment's content.
+     *
+     * @param context  Context.
+     * @param userId   ID of the user.
+     * @param fileName Stored file name.
+     * @return File, which may not exist if it was deleted.
+     */
+    public static File getFile(Context context, int userId, String fileName) {
+        return new File(getUserDirectory(context, userId), fileName);
+    }
+
+    /**
+     * Deletes an attachment's content and its cached thumbnails.
+     *
+     * @param context  Context.
+     * @param userId   ID of the user.
+     * @param fileName Stored file name.
+     */
+    public static void delete(Context context, int userId, String fileName) {
+        getFile(context, userId, fileName).delete();
+        ThumbnailLoader.evict(context, userId, fileName);
+    }
+
+    /**
+     * Deletes the content of all of a user's attachments and their cached thumbnails.
+     *
+     * @param context Context.
+     * @param userId  ID of the user.
+     */
+    static void deleteAll(Context context, int userId) {
+        ThumbnailLoader.evictAll(context, userId);
+        File directory = getUserDirectory(context, userId);
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Lists the names of the attachment files a user has.
+     *
+     * @param context Context.
+     * @param userId  ID of the user.
+     * @return Stored file names, empty if the user has none.
+     */
+    static Set<String> listFileNames(Context context, int userId) {
+        Set<String> fileNames = new HashSet<>();
+        String[] names = getUserDirectory(context, userId).list();
+        if (names != null) {
+            Collections.addAll(fileNames, names);
+        }
+        return fileNames;
+    }
+
+    private static File getUserDirectory(Context context, int userId) {
+        return new File(context.getFilesDir(), DIRECTORY + File.separator + "user_" + userId);
+    }
+
+    private static void copy(ContentResolver resolver, Uri uri, File file) throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        InputStream input = resolver.openInputStream(uri);
+        if (input == null) {
+            throw new IOException("Cannot open the file");
+        }
+        try {
+            OutputStream output = new FileOutputStream(file);
+            try {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+            } finally {
+                output.close();
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    private static String queryDisplayName(ContentResolver resolver, Uri uri) {
+        String displayName = null;
+        Cursor cursor = resolver.query(uri, new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null);
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                displayName = cursor.getString(0);
+            }
+            cursor.close();
+        }
+        return displayName != null ? displayName : uri.getLastPathSegment();
+    }
+}
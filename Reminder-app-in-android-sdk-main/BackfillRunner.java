@@ -0,0 +1,151 @@
+package com.example.reminderapp.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.ReminderScheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * BackfillRunner completes the per-row work of schema upgrades after the database is open.
+ * Chunks run one transaction at a time on a low-priority thread, so the app keeps reading
+ * and writing while a large backfill is in progress, and progress is reported after each.
+ */
+public final class BackfillRunner {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Receives backfill progress on the main thread. Not called at all when nothing is pending;
+     * onFinished() follows once the alarms have been rebuilt.
+     */
+    public interface Listener {
+        void onProgress(long done, long total);
+
+        void onFinished();
+    }
+
+    private BackfillRunner() {
+    }
+
+    /**
+     * Queues the pending backfills on the background thread.
+     *
+     * @param context  Context.
+     * @param listener Progress listener, or null.
+     */
+    public static void runAsync(Context context, final Listener listener) {
+        final Context appContext = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                if (runAll(appContext, new DatabaseHelper(appContext), listener)) {
+                    rescheduleAlarms(appContext);
+                    postFinished(listener);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the pending backfills of a directory and its user databases on the calling thread.
+     *
+     * @param context   Context.
+     * @param directory Directory database to complete.
+     */
+    static void runBlocking(Context context, DatabaseHelper directory) {
+        runAll(context, directory, null);
+    }
+
+    /**
+     * Completes the directory first, as its backfills may create user databases, then each
+     * user database. Progress is reported per database.
+     *
+     * @return Whether any rows were pending.
+     */
+    private static boolean runAll(Context context, DatabaseHelper directory, Listener listener) {
+        boolean ran = runPending(context, directory, listener);
+        for (int userId : directory.getUserIds()) {
+            if (directory.hasUserDatabase(userId)) {
+                ran |= runPending(context, directory.getUserDatabase(userId), listener);
+            }
+        }
+        return ran;
+    }
+
+    /**
+     * @return Whether any rows were pending.
+     */
+    private static boolean runPending(Context context, DatabaseHelper dbHelper, Listener listener) {
+        long start = PerfMetrics.begin("backfill.run");
+        try {
+            long total = dbHelper.countPendingBackfillRows();
+            long done = 0;
+            int rows;
+            // Also drains backfills of empty tables, which report zero rows
+            while ((rows = dbHelper.runBackfillChunk()) >= 0) {
+                done += rows;
+                if (total > 0) {
+                    postProgress(listener, done, total);
+                }
+            }
+            if (total == 0) {
+                return false;
+            }
+            PerfMetrics.record("backfill.rows", done);
+            ReminderChangeNotifier.notifyChanged(context, ReminderChangeNotifier.UNKNOWN, ReminderChangeNotifier.UNKNOWN);
+            return true;
+        } finally {
+            PerfMetrics.end("backfill.run", start);
+        }
+    }
+
+    /**
+     * Backfills can change due times and move reminders into user databases, which changes
+     * their alarm intents, so every alarm is set again and any set before the move is cancelled.
+     */
+    private static void rescheduleAlarms(Context context) {
+        long now = System.currentTimeMillis();
+        DatabaseHelper directory = new DatabaseHelper(context);
+        for (int userId : directory.getUserIds()) {
+            if (!directory.hasUserDatabase(userId)) {
+                continue;
+            }
+            for (Reminder reminder : directory.getUserDatabase(userId).getSchedulableReminders(now)) {
+                ReminderScheduler.cancelUnowned(context, reminder.getId());
+                ReminderScheduler.schedule(context, reminder);
+            }
+        }
+    }
+
+    private static void postProgress(final Listener listener, final long done, final long total) {
+        if (listener == null) {
+            return;
+        }
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onProgress(done, total);
+            }
+        });
+    }
+
+    private static void postFinished(final Listener listener) {
+        if (listener == null) {
+            return;
+        }
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onFinished();
+            }
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.reminderapp.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * CacheRegistry gives memory back from the app's in-memory caches when the system asks for it.
+ * Caches register once; on onTrimMemory() each is shrunk or emptied depending on how close the
+ * process is to being killed. Trimmed entries are loaded again on demand, so callers see the
+ * same results, only slower until the cache has warmed up.
+ */
+public final class CacheRegistry {
+
+    /**
+     * A cache whose entries can be dropped at any time and reloaded from their source.
+     */
+    public interface TrimmableCache {
+        /**
+         * @return Name shown in the footprint report.
+         */
+        String getName();
+
+        /**
+         * Drops least recently used entries until at most the given fraction of the capacity is
+         * used. The capacity itself is kept, so the cache grows back as entries are requested.
+         *
+         * @param fraction Fraction to keep, from 0 (empty the cache) to 1.
+         */
+        void trimTo(float fraction);
+
+        /**
+         * @return Estimated heap held by the entries, in bytes.
+         */
+        long getFootprintBytes();
+    }
+
+    private static final CopyOnWriteArrayList<TrimmableCache> caches = new CopyOnWriteArrayList<>();
+    private static boolean callbacksRegistered;
+
+    private static final ComponentCallbacks2 callbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trim(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        }
+    };
+
+    private CacheRegistry() {
+    }
+
+    /**
+     * Adds a cache to those trimmed under memory pressure.
+     *
+     * @param context Context; the callbacks are registered with its application.
+     * @param cache   Cache.
+     */
+    public static void register(Context context, TrimmableCache cache) {
+        synchronized (CacheRegistry.class) {
+            if (!callbacksRegistered) {
+                context.getApplicationContext().registerComponentCallbacks(callbacks);
+                callbacksRegistered = true;
+            }
+        }
+        caches.addIfAbsent(cache);
+    }
+
+    /**
+     * Trims every registered cache for a trim level. Called by the system through
+     * onTrimMemory(), and can be called directly to simulate a level.
+     *
+     * @param level ComponentCallbacks2.TRIM_MEMORY_* level.
+     */
+    public static void trim(int level) {
+        float fraction = retainedFraction(level);
+        if (fraction >= 1f) {
+            return;
+        }
+        long start = PerfMetrics.begin("cache.trim");
+        try {
+            long freed = 0;
+            for (TrimmableCache cache : caches) {
+                long before = cache.getFootprintBytes();
+                cache.trimTo(fraction);
+                freed += Math.max(0, before - cache.getFootprintBytes());
+            }
+            PerfMetrics.record("cache.trim.freedBytes", freed);
+        } finally {
+            PerfMetrics.end("cache.trim", start);
+        }
+    }
+
+    /**
+     * Maps a trim level to the share of each cache that survives it. While the app is visible
+     * the caches are halved or quartered; once it is in the background, where the cached
+     * entries are of no use until the user returns, and whenever the system is critically low,
+     * they are emptied.
+     *
+     * @param level ComponentCallbacks2.TRIM_MEMORY_* level.
+     * @return Fraction to keep, from 0 to 1.
+     */
+    static float retainedFraction(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return 0f;
+        }
+        switch (level) {
+            case ComponentCallbacks2.TRIM_MEMORY_BACKGROUND:
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL:
+                return 0f;
+            case ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN:
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW:
+                return 0.25f;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE:
+                return 0.5f;
+            default:
+                return 1f;
+        }
+    }
+
+    /**
+     * Exports each cache's footprint as text, one cache per line.
+     *
+     * @return Footprint report.
+     */
+    public static String dump() {
+        StringBuilder builder = new StringBuilder();
+        long total = 0;
+        for (TrimmableCache cache : caches) {
+            long bytes = cache.getFootprintBytes();
+            total += bytes;
+            builder.append("cache.").append(cache.getName()).append(".bytes ").append(bytes).append('\n');
+        }
+        builder.append("cache.total.bytes ").append(total).append('\n');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.reminderapp.activities;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.SparseIntArray;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.GridView;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.reminderapp.R;
+import com.example.reminderapp.adapters.CalendarDayAdapter;
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.utils.DateTimeUtils;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.SessionManager;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CalendarActivity shows a month or week grid with per-day reminder counts.
+ * Each render runs one grouped count query for the visible days; tapping a day loads
+ * only that day's reminders.
+ */
+public class CalendarActivity extends AppCompatActivity {
+
+    private TextView textPeriod;
+    private Button btnToggleMode;
+    private CalendarDayAdapter dayAdapter;
+    private ArrayAdapter<String> dayRemindersAdapter;
+    private DatabaseHelper dbHelper;
+    private SessionManager sessionManager;
+
+    private boolean weekMode = false;
+    // First day of the visible month or week
+    private final Calendar period = Calendar.getInstance();
+    private long selectedDay;
+    private final List<Reminder> dayReminders = new ArrayList<>();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_calendar);
+
+        // Initialize DatabaseHelper and SessionManager
+        sessionManager = new SessionManager(this);
+        dbHelper = DatabaseHelper.forUser(this, sessionManager.getUserId());
+
+        // Initialize views
+        textPeriod = findViewById(R.id.textPeriod);
+        btnToggleMode = findViewById(R.id.buttonToggleMode);
+        Button btnPrevious = findViewById(R.id.buttonPrevious);
+        Button btnNext = findViewById(R.id.buttonNext);
+        GridView gridDays = findViewById(R.id.gridDays);
+        ListView listDayReminders = findViewById(R.id.listViewDayReminders);
+
+        dayAdapter = new CalendarDayAdapter(this);
+        gridDays.setAdapter(dayAdapter);
+        dayRemindersAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<String>());
+        listDayReminders.setAdapter(dayRemindersAdapter);
+
+        selectedDay = DateTimeUtils.startOfDay(System.currentTimeMillis(), 0);
+        resetPeriodToSelectedDay();
+
+        btnPrevious.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                period.add(weekMode ? Calendar.WEEK_OF_YEAR : Calendar.MONTH, -1);
+                renderPeriod();
+            }
+        });
+
+        btnNext.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                period.add(weekMode ? Calendar.WEEK_OF_YEAR : Calendar.MONTH, 1);
+                renderPeriod();
+            }
+        });
+
+        btnToggleMode.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                weekMode = !weekMode;
+                btnToggleMode.setText(weekMode ? "Month view" : "Week view");
+                resetPeriodToSelectedDay();
+                renderPeriod();
+            }
+        });
+
+        gridDays.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                selectedDay = dayAdapter.getDayStart(position);
+                dayAdapter.setSelectedDay(selectedDay);
+                loadDay();
+            }
+        });
+
+        listDayReminders.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                Intent intent = new Intent(CalendarActivity.this, AddEditReminderActivity.class);
+                intent.putExtra("REMINDER_ID", dayReminders.get(position).getId());
+                startActivity(intent);
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        renderPeriod();
+    }
+
+    /**
+     * Moves the visible period to the month or week containing the selected day.
+     */
+    private void resetPeriodToSelectedDay() {
+        period.setTimeInMillis(selectedDay);
+        if (weekMode) {
+            int offset = (period.get(Calendar.DAY_OF_WEEK) - period.getFirstDayOfWeek() + 7) % 7;
+            period.add(Calendar.DAY_OF_MONTH, -offset);
+        } else {
+            period.set(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    /**
+     * Renders the visible month or week with a single count query.
+     */
+    private void renderPeriod() {
+        long start = PerfMetrics.begin("calendar.renderPeriod");
+        try {
+            long periodStart = period.getTimeInMillis();
+            List<Long> cells = weekMode ? CalendarDayAdapter.weekCells(periodStart) : CalendarDayAdapter.monthCells(periodStart);
+            long from = cells.get(0);
+            long to = DateTimeUtils.startOfDay(cells.get(cells.size() - 1), 1);
+
+            SparseIntArray counts = dbHelper.getDayCounts(sessionManager.getUserId(), from, to);
+            dayAdapter.setDays(cells, weekMode ? -1 : period.get(Calendar.MONTH), counts);
+            dayAdapter.setSelectedDay(selectedDay);
+
+            if (weekMode) {
+                textPeriod.setText("Week of " + DateTimeUtils.formatDate(periodStart));
+            } else {
+                textPeriod.setText(period.getDisplayName(Calendar.MONTH, Calendar.LONG, Locale.getDefault())
+                        + " " + period.get(Calendar.YEAR));
+            }
+            loadDay();
+        } finally {
+            PerfMetrics.end("calendar.renderPeriod", start);
+        }
+    }
+
+    /**
+     * Loads the reminders of the selected day only.
+     */
+    private void loadDay() {
+        dayReminders.clear();
+        dayReminders.addAll(dbHelper.getRemindersBetween(sessionManager.getUserId(), selectedDay,
+                DateTimeUtils.startOfDay(selectedDay, 1)));
+
+        List<String> rows = new ArrayList<>(dayReminders.size());
+        for (Reminder reminder : dayReminders) {
+            rows.add(reminder.getTime() + "  " + reminder.getTitle());
+        }
+        dayRemindersAdapter.clear();
+        dayRemindersAdapter.addAll(rows);
+    }
+}
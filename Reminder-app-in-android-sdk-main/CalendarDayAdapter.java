@@ -0,0 +1,157 @@
+package com.example.reminderapp.adapters;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.reminderapp.R;
+import com.example.reminderapp.utils.DateTimeUtils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * CalendarDayAdapter binds the day cells of a month or week grid, marking days that have
+ * reminders with their count.
+ */
+public class CalendarDayAdapter extends BaseAdapter {
+
+    private Context context;
+    private List<Long> dayStarts = new ArrayList<>();
+    private int[] dayKeys = new int[0];
+    private SparseIntArray counts = new SparseIntArray();
+    private int focusMonth = -1;
+    private int selectedDayKey = -1;
+
+    /**
+     * Holds the views of a day cell.
+     */
+    private static final class ViewHolder {
+        TextView textDay;
+        TextView textCount;
+    }
+
+    public CalendarDayAdapter(@NonNull Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Sets the days shown in the grid.
+     *
+     * @param dayStarts  Local midnight of each cell, in display order.
+     * @param focusMonth Calendar month shown at full emphasis, or -1 to emphasize every cell.
+     * @param counts     Reminder counts keyed by {@link DateTimeUtils#dayKey(long)}.
+     */
+    public void setDays(List<Long> dayStarts, int focusMonth, SparseIntArray counts) {
+        this.dayStarts = dayStarts;
+        this.focusMonth = focusMonth;
+        this.counts = counts;
+        dayKeys = new int[dayStarts.size()];
+        for (int i = 0; i < dayKeys.length; i++) {
+            dayKeys[i] = DateTimeUtils.dayKey(dayStarts.get(i));
+        }
+        notifyDataSetChanged();
+    }
+
+    public void setSelectedDay(long dayStart) {
+        selectedDayKey = DateTimeUtils.dayKey(dayStart);
+        notifyDataSetChanged();
+    }
+
+    public long getDayStart(int position) {
+        return dayStarts.get(position);
+    }
+
+    @Override
+    public int getCount() {
+        return dayStarts.size();
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return dayStarts.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return dayKeys[position];
+    }
+
+    @NonNull
+    @Override
+    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        View cell = convertView;
+        ViewHolder holder;
+        if (cell == null) {
+            cell = LayoutInflater.from(context).inflate(R.layout.item_calendar_day, parent, false);
+            holder = new ViewHolder();
+            holder.textDay = cell.findViewById(R.id.calendarDayNumber);
+            holder.textCount = cell.findViewById(R.id.calendarDayCount);
+            cell.setTag(holder);
+        } else {
+            holder = (ViewHolder) cell.getTag();
+        }
+
+        int dayKey = dayKeys[position];
+        int day = dayKey % 100;
+        int month = (dayKey / 100) % 100 - 1;
+        int count = counts.get(dayKey);
+
+        holder.textDay.setText(String.valueOf(day));
+        holder.textDay.setTypeface(null, dayKey == selectedDayKey ? Typeface.BOLD : Typeface.NORMAL);
+        holder.textDay.setAlpha(focusMonth == -1 || month == focusMonth ? 1f : 0.4f);
+        if (count > 0) {
+            holder.textCount.setText(String.valueOf(count));
+            holder.textCount.setVisibility(View.VISIBLE);
+        } else {
+            holder.textCount.setVisibility(View.INVISIBLE);
+        }
+        cell.setActivated(dayKey == selectedDayKey);
+        return cell;
+    }
+
+    /**
+     * Builds the cells of a month grid: six full weeks starting on the first day of the
+     * week that contains the 1st.
+     *
+     * @param monthStart Local midnight of the 1st of the month.
+     * @return Local midnight of each of the 42 cells.
+     */
+    public static List<Long> monthCells(long monthStart) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(monthStart);
+        int offset = (calendar.get(Calendar.DAY_OF_WEEK) - calendar.getFirstDayOfWeek() + 7) % 7;
+        calendar.add(Calendar.DAY_OF_MONTH, -offset);
+        return cells(calendar, 42);
+    }
+
+    /**
+     * Builds the cells of a week row.
+     *
+     * @param weekStart Local midnight of the first day of the week.
+     * @return Local midnight of each of the 7 cells.
+     */
+    public static List<Long> weekCells(long weekStart) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(weekStart);
+        return cells(calendar, 7);
+    }
+
+    private static List<Long> cells(Calendar calendar, int count) {
+        List<Long> days = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            days.add(calendar.getTimeInMillis());
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return days;
+    }
+}
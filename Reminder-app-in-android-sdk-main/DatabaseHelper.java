@@ -3,21 +3,53 @@ package com.example.reminderapp.database;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.util.SparseIntArray;
 
 import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderAttachment;
+import com.example.reminderapp.models.ReminderDraft;
+import com.example.reminderapp.models.ReminderFilter;
+import com.example.reminderapp.models.ReminderSection;
+import com.example.reminderapp.models.ReminderStats;
+import com.example.reminderapp.providers.ReminderContract;
+import com.example.reminderapp.sync.SyncConflictResolver;
+import com.example.reminderapp.sync.SyncRecord;
+import com.example.reminderapp.utils.DateTimeUtils;
+import com.example.reminderapp.utils.PerfMetrics;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
- * DatabaseHelper manages the SQLite database, including user and reminder tables.
+ * DatabaseHelper manages the SQLite databases. The directory database holds the users table;
+ * each user's reminders, change log, sync state, drafts and deferred notifications live in a
+ * database file of their own, opened through {@link #forUser(Context, int)}. Reminder IDs are
+ * unique within a user's database only. Attachment content is kept in files by AttachmentStore;
+ * the user database only references them. Usage statistics are rollups kept current by triggers,
+ * so reading them never scans the reminders.
  */
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "reminder_app.db";
-    private static final int DATABASE_VERSION = 1;
+    // Package-private so backups can record the schema they were taken at
+    static final int DATABASE_VERSION = 12;
+
+    // Owner of a user database; the directory has none
+    private static final int NO_OWNER = -1;
+
+    // Set once the default directory has been opened in this process; see getUserDatabase()
+    private static volatile boolean directoryOpened;
 
     // User table
     private static final String TABLE_USER = "users";
@@ -30,44 +62,820 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String REMINDER_ID = "id";
     private static final String REMINDER_TITLE = "title";
     private static final String REMINDER_DESCRIPTION = "description";
+    private static final String REMINDER_DUE_AT = "due_at";
+    private static final String REMINDER_FLAGS = "flags";
+    private static final String REMINDER_USER_ID = "user_id";
+    private static final String REMINDER_UID = "uid";
+    private static final String REMINDER_VERSION = "version";
+    private static final String REMINDER_UPDATED_AT = "updated_at";
+    private static final String REMINDER_DELETED_AT = "deleted_at";
+    private static final String REMINDER_TAGS = "tags";
+    private static final String REMINDER_PRIORITY = "priority";
+    private static final String REMINDER_CREATED_AT = "created_at";
+    // Set by a trigger when the completed flag is set, cleared when it is cleared
+    private static final String REMINDER_COMPLETED_AT = "completed_at";
+
+    // Selection matching reminders that are not soft-deleted
+    private static final String NOT_DELETED = REMINDER_DELETED_AT + " IS NULL";
+
+    // Change log table: one row per local reminder write, deletes included as tombstones
+    private static final String TABLE_CHANGES = "reminder_changes";
+    private static final String CHANGE_SEQ = "seq";
+    private static final String CHANGE_USER_ID = "user_id";
+    private static final String CHANGE_REMINDER_UID = "reminder_uid";
+    private static final String CHANGE_OP = "op";
+    private static final String CHANGE_VERSION = "version";
+    private static final String CHANGE_CHANGED_AT = "changed_at";
+
+    // Change log operations
+    public static final String OP_UPSERT = "UPSERT";
+    public static final String OP_DELETE = "DELETE";
+
+    // Sync state table: per-user position in the change log and server pull token
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    private static final String SYNC_USER_ID = "user_id";
+    private static final String SYNC_PUSH_SEQ = "push_seq";
+    private static final String SYNC_PULL_TOKEN = "pull_token";
+
+    // Deferred notification queue: reminders held back by quiet hours or the rate limit
+    private static final String TABLE_DEFERRED = "deferred_notifications";
+    private static final String DEFERRED_REMINDER_ID = "reminder_id";
+    private static final String DEFERRED_QUEUED_AT = "queued_at";
+
+    // Drafts table: unsaved add/edit form contents, one per user and reminder (0 for a new one)
+    private static final String TABLE_DRAFTS = "reminder_drafts";
+    private static final String DRAFT_USER_ID = "user_id";
+    private static final String DRAFT_REMINDER_ID = "reminder_id";
+    private static final String DRAFT_TITLE = "title";
+    private static final String DRAFT_DESCRIPTION = "description";
+    private static final String DRAFT_DATE = "date";
+    private static final String DRAFT_TIME = "time";
+    private static final String DRAFT_UPDATED_AT = "updated_at";
+
+    // Attachments table: one row per file attached to a reminder; the content is in AttachmentStore
+    private static final String TABLE_ATTACHMENTS = "reminder_attachments";
+    private static final String ATTACHMENT_ID = "id";
+    private static final String ATTACHMENT_REMINDER_ID = "reminder_id";
+    private static final String ATTACHMENT_FILE_NAME = "file_name";
+    private static final String ATTACHMENT_MIME_TYPE = "mime_type";
+    private static final String ATTACHMENT_DISPLAY_NAME = "display_name";
+    private static final String ATTACHMENT_CREATED_AT = "created_at";
+
+    // Weekly rollup, keyed by the local date of the week's Monday: reminders created, and
+    // reminders completed, in total and by their due time
+    private static final String TABLE_STATS_WEEKLY = "stats_weekly";
+    private static final String STATS_WEEK = "week";
+    private static final String STATS_CREATED = "created";
+    private static final String STATS_COMPLETED = "completed";
+    private static final String STATS_COMPLETED_ON_TIME = "completed_on_time";
+
+    // Hourly rollup: reminders due in each local hour of the day
+    private static final String TABLE_STATS_HOURLY = "stats_hourly";
+    private static final String STATS_HOUR = "hour";
+    private static final String STATS_DUE = "due";
+
+    // Current time in epoch millis, as SQL
+    private static final String SQL_NOW_MILLIS = "(CAST(strftime('%s', 'now') AS INTEGER) * 1000)";
+
+    // Backfills queued by upgrades, walked from last_id up to the end_id captured at upgrade time
+    private static final String TABLE_BACKFILLS = "schema_backfills";
+    private static final String BACKFILL_VERSION = "version";
+    private static final String BACKFILL_LAST_ID = "last_id";
+    private static final String BACKFILL_END_ID = "end_id";
+
+    // Rows migrated per backfill transaction; bounds how long a backfill holds the write lock
+    private static final int BACKFILL_CHUNK_ROWS = 2000;
+    // End ID of a backfill whose first chunk has not run yet
+    private static final long BACKFILL_NOT_STARTED = -1;
+
+    // Number of description characters loaded for list rows
+    private static final int DESCRIPTION_PREVIEW_LENGTH = 120;
+
+    // List column naming the first image attachment, found through idx_attachments_reminder
+    private static final String LIST_THUMBNAIL_FILE = "thumbnail_file";
+
+    // List projection: description truncated in SQL
+    private static final String[] LIST_COLUMNS = {REMINDER_ID, REMINDER_TITLE,
+            "substr(" + REMINDER_DESCRIPTION + ", 1, " + DESCRIPTION_PREVIEW_LENGTH + ") AS " + REMINDER_DESCRIPTION,
+            REMINDER_DUE_AT, REMINDER_FLAGS, REMINDER_TAGS, REMINDER_PRIORITY,
+            "(SELECT " + ATTACHMENT_FILE_NAME + " FROM " + TABLE_ATTACHMENTS
+                    + " WHERE " + ATTACHMENT_REMINDER_ID + " = " + TABLE_REMINDER + "." + REMINDER_ID
+                    + " AND " + ATTACHMENT_MIME_TYPE + " LIKE 'image/%' ORDER BY " + ATTACHMENT_ID + " LIMIT 1) AS "
+                    + LIST_THUMBNAIL_FILE};
+
+    // Columns exposed through ReminderProvider, keyed by contract name
+    private static final Map<String, String> PROVIDER_PROJECTION = new HashMap<>();
+
+    static {
+        PROVIDER_PROJECTION.put(ReminderContract.Reminders._ID, REMINDER_ID + " AS " + ReminderContract.Reminders._ID);
+        PROVIDER_PROJECTION.put(ReminderContract.Reminders.TITLE, REMINDER_TITLE);
+        PROVIDER_PROJECTION.put(ReminderContract.Reminders.DESCRIPTION, REMINDER_DESCRIPTION);
+        PROVIDER_PROJECTION.put(ReminderContract.Reminders.DUE_AT, REMINDER_DUE_AT);
+        PROVIDER_PROJECTION.put(ReminderContract.Reminders.FLAGS, REMINDER_FLAGS);
+    }
+
+    // Tables carried over by a restore; the deferred notification queue is device state and is cleared instead
+    private static final String[] RESTORED_DIRECTORY_TABLES = {TABLE_USER};
+    private static final String[] RESTORED_USER_TABLES = {TABLE_REMINDER, TABLE_CHANGES, TABLE_SYNC_STATE, TABLE_DRAFTS,
+            TABLE_ATTACHMENTS};
+
+    // Legacy text columns from version 1, only read when upgrading
     private static final String REMINDER_DATE = "date";
     private static final String REMINDER_TIME = "time";
-    private static final String REMINDER_USER_ID = "user_id";
 
+    private final Context context;
+    private final int ownerId;
+
+    // Schema steps in version order; each one is applied once, when upgrading past its version
+    private final Migration[] migrations = {
+            new Migration(2) {
+                // Version 2 stores the due time as epoch millis instead of date/time text
+                @Override
+                void apply(SQLiteDatabase db) {
+                    db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_DUE_AT + " INTEGER");
+                    db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_FLAGS + " INTEGER NOT NULL DEFAULT 0");
+                    createReminderIndexes(db);
+                }
+
+                @Override
+                String getBackfillTable() {
+                    return TABLE_REMINDER;
+                }
+
+                @Override
+                void backfill(SQLiteDatabase db, long afterId, long upToId) {
+                    backfillDueAt(db, afterId, upToId);
+                }
+            },
+            new Migration(3) {
+                // Version 3 adds global IDs, row versions and the change log used by sync
+                @Override
+                void apply(SQLiteDatabase db) {
+                    db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_UID + " TEXT");
+                    db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_VERSION + " INTEGER NOT NULL DEFAULT 0");
+                    db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_UPDATED_AT + " INTEGER");
+                    createSyncTables(db);
+                }
+
+                @Override
+                String getBackfillTable() {
+                    return TABLE_REMINDER;
+                }
+
+                @Override
+                void backfill(SQLiteDatabase db, long afterId, long upToId) {
+                    backfillSyncIds(db, afterId, upToId);
+                }
+            },
+            new Migration(4) {
+                // Version 4 soft-deletes reminders so a delete can be undone before it is purged
+                @Override
+                void apply(SQLiteDatabase db) {
+                    db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_DELETED_AT + " INTEGER");
+                    createPurgeIndex(db);
+                }
+            },
+            new Migration(5) {
+                // Version 5 persists notifications deferred by quiet hours and the rate limit
+                @Override
+                void apply(SQLiteDatabase db) {
+                    createDeferredTable(db);
+                }
+            },
+            new Migration(6) {
+                // Version 6 autosaves the add/edit form as drafts
+                @Override
+                void apply(SQLiteDatabase db) {
+                    createDraftsTable(db);
+                }
+            },
+            new Migration(7) {
+                // Version 7 adds tags as a bit set, and a priority level
+                @Override
+                void apply(SQLiteDatabase db) {
+                    db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_TAGS + " INTEGER NOT NULL DEFAULT 0");
+                    db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_PRIORITY + " INTEGER NOT NULL DEFAULT 0");
+                    createFilterIndex(db);
+                }
+            },
+            new Migration(8) {
+                // Version 8 tracks backfills; onUpgrade creates the table before any step runs
+                @Override
+                void apply(SQLiteDatabase db) {
+                    createBackfillTable(db);
+                }
+            },
+            new Migration(9) {
+                // Version 9 moves each user's reminders out of the directory into a database of their own
+                @Override
+                void apply(SQLiteDatabase db) {
+                    createUserDatabases(db);
+                }
+
+                @Override
+                String getBackfillTable() {
+                    return TABLE_REMINDER;
+                }
+
+                @Override
+                void backfill(SQLiteDatabase db, long afterId, long upToId) {
+                    moveToUserDatabases(db, TABLE_REMINDER, REMINDER_ID, REMINDER_USER_ID, afterId, upToId);
+                }
+            },
+            new Migration(10) {
+                // Version 10 moves the change log, after version 3 may have added to it
+                @Override
+                void apply(SQLiteDatabase db) {
+                }
+
+                @Override
+                String getBackfillTable() {
+                    return TABLE_CHANGES;
+                }
+
+                @Override
+                void backfill(SQLiteDatabase db, long afterId, long upToId) {
+                    moveToUserDatabases(db, TABLE_CHANGES, CHANGE_SEQ, CHANGE_USER_ID, afterId, upToId);
+                }
+            },
+            new Migration(11) {
+                // Version 11 adds attachments to user databases
+                @Override
+                void apply(SQLiteDatabase db) {
+                    if (ownerId != NO_OWNER) {
+                        createAttachmentsTable(db);
+                    }
+                }
+            },
+            new Migration(12) {
+                // Version 12 adds usage statistics; the backfill fills in the times they are
+                // bucketed by, and the triggers add each row to the rollups as it does
+                @Override
+                void apply(SQLiteDatabase db) {
+                    if (ownerId != NO_OWNER) {
+                        db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_CREATED_AT + " INTEGER");
+                        db.execSQL("ALTER TABLE " + TABLE_REMINDER + " ADD COLUMN " + REMINDER_COMPLETED_AT + " INTEGER");
+                        createStatsTables(db);
+                    }
+                }
+
+                @Override
+                String getBackfillTable() {
+                    return ownerId != NO_OWNER ? TABLE_REMINDER : null;
+                }
+
+                @Override
+                void backfill(SQLiteDatabase db, long afterId, long upToId) {
+                    backfillStatsTimes(db, afterId, upToId);
+                }
+            }
+    };
+
+    /**
+     * Creates a helper for the directory database.
+     *
+     * @param context Context.
+     */
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * Creates a helper for a directory database backed by a specific file. Used by restores
+     * and by load-test harnesses (e.g. Robolectric) that need a throwaway database with the
+     * real schema; the user databases of such a directory are named after it.
+     *
+     * @param context      Context.
+     * @param databaseName Database file name, or null for an in-memory database.
+     */
+    public DatabaseHelper(Context context, String databaseName) {
+        this(context, databaseName, NO_OWNER);
+    }
+
+    private DatabaseHelper(Context context, String databaseName, int ownerId) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        this.context = context.getApplicationContext();
+        this.ownerId = ownerId;
+        // Readers, including backups, never block writers
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Creates a helper for a user's reminder database. The file is created on first use.
+     *
+     * @param context Context.
+     * @param userId  ID of the user.
+     * @return Helper for the user's database.
+     */
+    public static DatabaseHelper forUser(Context context, int userId) {
+        return new DatabaseHelper(context).getUserDatabase(userId);
+    }
+
+    /**
+     * Creates a helper for the reminder database of one of this directory's users.
+     *
+     * @param userId ID of the user.
+     * @return Helper for the user's database.
+     */
+    public DatabaseHelper getUserDatabase(int userId) {
+        if (!directoryOpened && DATABASE_NAME.equals(getDatabaseName())) {
+            // The directory upgrade that splits out existing users must run before their databases are created
+            getReadableDatabase().close();
+            directoryOpened = true;
+        }
+        return openUserDatabase(userId);
+    }
+
+    /**
+     * Checks whether a user's database file exists, so loops over all users can skip those
+     * who never stored anything instead of creating empty databases for them.
+     *
+     * @param userId ID of the user.
+     * @return true if the file exists.
+     */
+    public boolean hasUserDatabase(int userId) {
+        String name = getUserDatabaseName(getDatabaseName(), userId);
+        return name != null && context.getDatabasePath(name).exists();
     }
 
     /**
-     * Creates the database tables for users and reminders.
+     * Creates a user database helper without opening the directory, for use while it is upgraded.
+     */
+    private DatabaseHelper openUserDatabase(int userId) {
+        if (ownerId != NO_OWNER) {
+            throw new IllegalStateException("Not a directory database");
+        }
+        return new DatabaseHelper(context, getUserDatabaseName(getDatabaseName(), userId), userId);
+    }
+
+    /**
+     * Names the database file of a user of a directory.
+     *
+     * @param directoryName Directory database file name, or null for an in-memory directory.
+     * @param userId        ID of the user.
+     * @return File name, or null, as the user databases of an in-memory directory are in memory too.
+     */
+    static String getUserDatabaseName(String directoryName, int userId) {
+        return directoryName == null ? null : directoryName.replaceFirst("\\.db$", "") + "_user_" + userId + ".db";
+    }
+
+    /**
+     * Creates the tables of a new database: the users table for the directory, everything
+     * else for a user database.
      */
     @Override
     public void onCreate(SQLiteDatabase db) {
-        String CREATE_USER_TABLE = "CREATE TABLE " + TABLE_USER + "("
-                + USER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + USER_EMAIL + " TEXT UNIQUE,"
-                + USER_PASSWORD + " TEXT" + ")";
-        db.execSQL(CREATE_USER_TABLE);
+        createBackfillTable(db);
+        if (ownerId == NO_OWNER) {
+            String CREATE_USER_TABLE = "CREATE TABLE " + TABLE_USER + "("
+                    + USER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + USER_EMAIL + " TEXT UNIQUE,"
+                    + USER_PASSWORD + " TEXT" + ")";
+            db.execSQL(CREATE_USER_TABLE);
+            return;
+        }
 
         String CREATE_REMINDER_TABLE = "CREATE TABLE " + TABLE_REMINDER + "("
                 + REMINDER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
                 + REMINDER_TITLE + " TEXT,"
                 + REMINDER_DESCRIPTION + " TEXT,"
-                + REMINDER_DATE + " TEXT,"
-                + REMINDER_TIME + " TEXT,"
+                + REMINDER_DUE_AT + " INTEGER,"
+                + REMINDER_FLAGS + " INTEGER NOT NULL DEFAULT 0,"
                 + REMINDER_USER_ID + " INTEGER,"
-                + "FOREIGN KEY(" + REMINDER_USER_ID + ") REFERENCES " + TABLE_USER + "(" + USER_ID + "))";
+                + REMINDER_UID + " TEXT,"
+                + REMINDER_VERSION + " INTEGER NOT NULL DEFAULT 0,"
+                + REMINDER_UPDATED_AT + " INTEGER,"
+                + REMINDER_DELETED_AT + " INTEGER,"
+                + REMINDER_TAGS + " INTEGER NOT NULL DEFAULT 0,"
+                + REMINDER_PRIORITY + " INTEGER NOT NULL DEFAULT 0,"
+                + REMINDER_CREATED_AT + " INTEGER,"
+                + REMINDER_COMPLETED_AT + " INTEGER)";
         db.execSQL(CREATE_REMINDER_TABLE);
+        createReminderIndexes(db);
+        createSyncTables(db);
+        createPurgeIndex(db);
+        createDeferredTable(db);
+        createDraftsTable(db);
+        createFilterIndex(db);
+        createAttachmentsTable(db);
+        createStatsTables(db);
     }
 
     /**
-     * Handles database upgrades by dropping existing tables and recreating them.
+     * Upgrades the schema step by step, preserving existing data. Only schema changes run
+     * here; per-row work is queued and done in chunks by {@link #runBackfillChunk()}.
+     * User databases are created at version 9 or later, so steps up to 10 only ever run
+     * on the directory.
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_REMINDER);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USER);
-        onCreate(db);
+        createBackfillTable(db);
+        for (Migration migration : migrations) {
+            if (migration.version <= oldVersion || migration.version > newVersion) {
+                continue;
+            }
+            migration.apply(db);
+            if (migration.getBackfillTable() != null) {
+                // The end is captured when the backfill starts, as earlier backfills may add rows
+                db.execSQL("INSERT INTO " + TABLE_BACKFILLS + "(" + BACKFILL_VERSION + ", " + BACKFILL_LAST_ID + ", "
+                        + BACKFILL_END_ID + ") VALUES (?, 0, " + BACKFILL_NOT_STARTED + ")", new Object[]{migration.version});
+            }
+        }
+    }
+
+    /**
+     * Creates indexes used by the per-user reminder queries.
+     */
+    private void createReminderIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_reminders_user_due ON " + TABLE_REMINDER
+                + "(" + REMINDER_USER_ID + ", " + REMINDER_DUE_AT + ")");
+    }
+
+    /**
+     * Creates the index used by tag and priority filters without a due time range. The tag
+     * bitmask and priority are checked on index entries, so only matching rows are read.
+     */
+    private void createFilterIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_reminders_user_filter ON " + TABLE_REMINDER
+                + "(" + REMINDER_USER_ID + ", " + REMINDER_PRIORITY + ", " + REMINDER_TAGS + ", " + REMINDER_DUE_AT + ")");
+    }
+
+    /**
+     * Creates a partial index over soft-deleted reminders, so purging does not scan live rows.
+     */
+    private void createPurgeIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_reminders_deleted ON " + TABLE_REMINDER
+                + "(" + REMINDER_DELETED_AT + ") WHERE " + REMINDER_DELETED_AT + " IS NOT NULL");
+    }
+
+    /**
+     * Creates the change log and sync state tables.
+     */
+    private void createSyncTables(SQLiteDatabase db) {
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_reminders_uid ON " + TABLE_REMINDER + "(" + REMINDER_UID + ")");
+        db.execSQL("CREATE TABLE " + TABLE_CHANGES + "("
+                + CHANGE_SEQ + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + CHANGE_USER_ID + " INTEGER,"
+                + CHANGE_REMINDER_UID + " TEXT,"
+                + CHANGE_OP + " TEXT,"
+                + CHANGE_VERSION + " INTEGER,"
+                + CHANGE_CHANGED_AT + " INTEGER)");
+        db.execSQL("CREATE INDEX idx_changes_user_seq ON " + TABLE_CHANGES + "(" + CHANGE_USER_ID + ", " + CHANGE_SEQ + ")");
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + "("
+                + SYNC_USER_ID + " INTEGER PRIMARY KEY,"
+                + SYNC_PUSH_SEQ + " INTEGER NOT NULL DEFAULT 0,"
+                + SYNC_PULL_TOKEN + " TEXT)");
+    }
+
+    /**
+     * Creates the deferred notification queue. It is keyed by reminder, so re-queuing a
+     * reminder replaces its entry instead of adding a second delivery.
+     */
+    private void createDeferredTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_DEFERRED + "("
+                + DEFERRED_REMINDER_ID + " INTEGER PRIMARY KEY,"
+                + DEFERRED_QUEUED_AT + " INTEGER NOT NULL)");
+    }
+
+    /**
+     * Creates the backfill bookkeeping table, if it does not exist yet.
+     */
+    private void createBackfillTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BACKFILLS + "("
+                + BACKFILL_VERSION + " INTEGER PRIMARY KEY,"
+                + BACKFILL_LAST_ID + " INTEGER NOT NULL,"
+                + BACKFILL_END_ID + " INTEGER NOT NULL)");
+    }
+
+    /**
+     * Creates the drafts table.
+     */
+    private void createDraftsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_DRAFTS + "("
+                + DRAFT_USER_ID + " INTEGER NOT NULL,"
+                + DRAFT_REMINDER_ID + " INTEGER NOT NULL,"
+                + DRAFT_TITLE + " TEXT,"
+                + DRAFT_DESCRIPTION + " TEXT,"
+                + DRAFT_DATE + " TEXT,"
+                + DRAFT_TIME + " TEXT,"
+                + DRAFT_UPDATED_AT + " INTEGER,"
+                + "PRIMARY KEY(" + DRAFT_USER_ID + ", " + DRAFT_REMINDER_ID + "))");
+    }
+
+    /**
+     * Creates the attachments table, indexed so a reminder's attachments are found without a scan.
+     */
+    private void createAttachmentsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ATTACHMENTS + "("
+                + ATTACHMENT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + ATTACHMENT_REMINDER_ID + " INTEGER NOT NULL,"
+                + ATTACHMENT_FILE_NAME + " TEXT NOT NULL,"
+                + ATTACHMENT_MIME_TYPE + " TEXT,"
+                + ATTACHMENT_DISPLAY_NAME + " TEXT,"
+                + ATTACHMENT_CREATED_AT + " INTEGER)");
+        db.execSQL("CREATE INDEX idx_attachments_reminder ON " + TABLE_ATTACHMENTS
+                + "(" + ATTACHMENT_REMINDER_ID + ", " + ATTACHMENT_ID + ")");
+    }
+
+    /**
+     * Creates the statistics rollups and the triggers that maintain them. Every write path,
+     * including sync, restores and upgrades, goes through the triggers, so the rollups always
+     * match the reminders without the write paths knowing about them.
+     *
+     * <p>Each reminder that is not deleted contributes to three buckets: the week it was
+     * created, the week it was completed, and the hour it is due. A write removes the old
+     * row's contribution and adds the new row's. Buckets are created before either, so the
+     * result does not depend on the order SQLite fires the triggers in.
+     */
+    private void createStatsTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_STATS_WEEKLY + "("
+                + STATS_WEEK + " TEXT PRIMARY KEY,"
+                + STATS_CREATED + " INTEGER NOT NULL DEFAULT 0,"
+                + STATS_COMPLETED + " INTEGER NOT NULL DEFAULT 0,"
+                + STATS_COMPLETED_ON_TIME + " INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE TABLE " + TABLE_STATS_HOURLY + "("
+                + STATS_HOUR + " INTEGER PRIMARY KEY,"
+                + STATS_DUE + " INTEGER NOT NULL DEFAULT 0)");
+
+        String completed = "(NEW." + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ")";
+        // Rows inserted without the times get the best estimate available: their last update
+        db.execSQL("CREATE TRIGGER stats_set_created AFTER INSERT ON " + TABLE_REMINDER
+                + " WHEN NEW." + REMINDER_CREATED_AT + " IS NULL BEGIN UPDATE " + TABLE_REMINDER
+                + " SET " + REMINDER_CREATED_AT + " = COALESCE(NEW." + REMINDER_UPDATED_AT + ", " + SQL_NOW_MILLIS + ")"
+                + " WHERE " + REMINDER_ID + " = NEW." + REMINDER_ID + "; END");
+        db.execSQL("CREATE TRIGGER stats_set_completed_on_insert AFTER INSERT ON " + TABLE_REMINDER
+                + " WHEN " + completed + " != 0 AND NEW." + REMINDER_COMPLETED_AT + " IS NULL BEGIN UPDATE " + TABLE_REMINDER
+                + " SET " + REMINDER_COMPLETED_AT + " = COALESCE(NEW." + REMINDER_UPDATED_AT + ", " + SQL_NOW_MILLIS + ")"
+                + " WHERE " + REMINDER_ID + " = NEW." + REMINDER_ID + "; END");
+        db.execSQL("CREATE TRIGGER stats_set_completed AFTER UPDATE OF " + REMINDER_FLAGS + " ON " + TABLE_REMINDER
+                + " WHEN " + completed + " != (OLD." + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ") BEGIN UPDATE "
+                + TABLE_REMINDER + " SET " + REMINDER_COMPLETED_AT + " = CASE WHEN " + completed + " != 0 THEN "
+                + SQL_NOW_MILLIS + " END WHERE " + REMINDER_ID + " = NEW." + REMINDER_ID + "; END");
+
+        db.execSQL("CREATE TRIGGER stats_insert AFTER INSERT ON " + TABLE_REMINDER + " BEGIN "
+                + statsContribution("NEW", "+") + " END");
+        db.execSQL("CREATE TRIGGER stats_delete AFTER DELETE ON " + TABLE_REMINDER + " BEGIN "
+                + statsContribution("OLD", "-") + " END");
+        db.execSQL("CREATE TRIGGER stats_update AFTER UPDATE OF " + REMINDER_CREATED_AT + ", " + REMINDER_COMPLETED_AT
+                + ", " + REMINDER_DUE_AT + ", " + REMINDER_DELETED_AT + " ON " + TABLE_REMINDER + " BEGIN "
+                + statsContribution("OLD", "-") + " " + statsContribution("NEW", "+") + " END");
+    }
+
+    /**
+     * Trigger statements adding or removing a row's contribution to the rollups.
+     *
+     * @param row      "NEW" or "OLD".
+     * @param operator "+" to add, "-" to remove.
+     */
+    private static String statsContribution(String row, String operator) {
+        String live = row + "." + REMINDER_DELETED_AT + " IS NULL";
+        String createdWeek = statsWeek(row + "." + REMINDER_CREATED_AT);
+        String completedWeek = statsWeek(row + "." + REMINDER_COMPLETED_AT);
+        String dueHour = statsHour(row + "." + REMINDER_DUE_AT);
+        String onTime = "COALESCE(" + row + "." + REMINDER_COMPLETED_AT + " <= " + row + "." + REMINDER_DUE_AT + ", 0)";
+        return "INSERT OR IGNORE INTO " + TABLE_STATS_WEEKLY + "(" + STATS_WEEK + ") SELECT " + createdWeek
+                + " WHERE " + live + " AND " + createdWeek + " IS NOT NULL;"
+                + " INSERT OR IGNORE INTO " + TABLE_STATS_WEEKLY + "(" + STATS_WEEK + ") SELECT " + completedWeek
+                + " WHERE " + live + " AND " + completedWeek + " IS NOT NULL;"
+                + " INSERT OR IGNORE INTO " + TABLE_STATS_HOURLY + "(" + STATS_HOUR + ") SELECT " + dueHour
+                + " WHERE " + live + " AND " + dueHour + " IS NOT NULL;"
+                + " UPDATE " + TABLE_STATS_WEEKLY + " SET " + STATS_CREATED + " = " + STATS_CREATED + " " + operator + " 1"
+                + " WHERE " + STATS_WEEK + " = " + createdWeek + " AND " + live + ";"
+                + " UPDATE " + TABLE_STATS_WEEKLY + " SET " + STATS_COMPLETED + " = " + STATS_COMPLETED + " " + operator + " 1, "
+                + STATS_COMPLETED_ON_TIME + " = " + STATS_COMPLETED_ON_TIME + " " + operator + " " + onTime
+                + " WHERE " + STATS_WEEK + " = " + completedWeek + " AND " + live + ";"
+                + " UPDATE " + TABLE_STATS_HOURLY + " SET " + STATS_DUE + " = " + STATS_DUE + " " + operator + " 1"
+                + " WHERE " + STATS_HOUR + " = " + dueHour + " AND " + live + ";";
+    }
+
+    /**
+     * @return SQL for the local date of the Monday starting the week of an epoch millis value.
+     */
+    private static String statsWeek(String millis) {
+        return "date(" + millis + " / 1000, 'unixepoch', 'localtime', '-6 days', 'weekday 1')";
+    }
+
+    /**
+     * @return SQL for the local hour of the day of an epoch millis value.
+     */
+    private static String statsHour(String millis) {
+        return "CAST(strftime('%H', " + millis + " / 1000, 'unixepoch', 'localtime') AS INTEGER)";
+    }
+
+    /**
+     * Fills in the creation and completion times of a range of reminders from before version
+     * 12, with their last update as the best estimate. The triggers add them to the rollups.
+     */
+    private void backfillStatsTimes(SQLiteDatabase db, long afterId, long upToId) {
+        Object[] range = {afterId, upToId};
+        String inRange = REMINDER_ID + " > ? AND " + REMINDER_ID + " <= ?";
+        db.execSQL("UPDATE " + TABLE_REMINDER + " SET " + REMINDER_CREATED_AT + " = COALESCE(" + REMINDER_UPDATED_AT
+                + ", " + SQL_NOW_MILLIS + ") WHERE " + inRange + " AND " + REMINDER_CREATED_AT + " IS NULL", range);
+        db.execSQL("UPDATE " + TABLE_REMINDER + " SET " + REMINDER_COMPLETED_AT + " = COALESCE(" + REMINDER_UPDATED_AT
+                + ", " + SQL_NOW_MILLIS + ") WHERE " + inRange + " AND " + REMINDER_COMPLETED_AT + " IS NULL AND ("
+                + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ") != 0", range);
+    }
+
+    /**
+     * Converts the legacy date/time text of a range of reminders into due_at. Rows edited
+     * since the upgrade already have a due_at and are left alone.
+     */
+    private void backfillDueAt(SQLiteDatabase db, long afterId, long upToId) {
+        Cursor cursor = db.query(TABLE_REMINDER, new String[]{REMINDER_ID, REMINDER_DATE, REMINDER_TIME},
+                REMINDER_ID + " > ? AND " + REMINDER_ID + " <= ? AND " + REMINDER_DUE_AT + " IS NULL",
+                new String[]{String.valueOf(afterId), String.valueOf(upToId)}, null, null, null);
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_REMINDER + " SET " + REMINDER_DUE_AT
+                + " = ? WHERE " + REMINDER_ID + " = ?");
+        while (cursor.moveToNext()) {
+            long dueAt = DateTimeUtils.parseDueAt(cursor.getString(1), cursor.getString(2));
+            update.bindLong(1, dueAt == -1 ? 0 : dueAt);
+            update.bindLong(2, cursor.getLong(0));
+            update.executeUpdateDelete();
+        }
+        update.close();
+        cursor.close();
+    }
+
+    /**
+     * Gives a range of reminders global IDs and versions, and logs them as pending changes
+     * so the first sync uploads them.
+     */
+    private void backfillSyncIds(SQLiteDatabase db, long afterId, long upToId) {
+        Object[] range = {afterId, upToId};
+        String inRange = REMINDER_ID + " > ? AND " + REMINDER_ID + " <= ?";
+        db.execSQL("UPDATE " + TABLE_REMINDER + " SET " + REMINDER_UID + " = lower(hex(randomblob(16))), "
+                + REMINDER_VERSION + " = max(" + REMINDER_VERSION + ", 1), " + REMINDER_UPDATED_AT + " = "
+                + System.currentTimeMillis() + " WHERE " + inRange + " AND " + REMINDER_UID + " IS NULL", range);
+        db.execSQL("INSERT INTO " + TABLE_CHANGES + "(" + CHANGE_USER_ID + ", " + CHANGE_REMINDER_UID + ", "
+                + CHANGE_OP + ", " + CHANGE_VERSION + ", " + CHANGE_CHANGED_AT + ") SELECT "
+                + REMINDER_USER_ID + ", " + REMINDER_UID + ", '" + OP_UPSERT + "', " + REMINDER_VERSION + ", "
+                + REMINDER_UPDATED_AT + " FROM " + TABLE_REMINDER + " WHERE " + inRange + " ORDER BY " + REMINDER_ID, range);
+    }
+
+    /**
+     * Creates the databases of the directory's existing users. Their ID sequences start
+     * after the highest IDs in the directory, so rows added before the backfill has moved
+     * the old ones never collide with them. The small per-user tables move right away.
+     */
+    private void createUserDatabases(SQLiteDatabase db) {
+        long lastReminderId = DatabaseUtils.longForQuery(db, "SELECT ifnull(max(" + REMINDER_ID + "), 0) FROM "
+                + TABLE_REMINDER, null);
+        long lastChangeSeq = DatabaseUtils.longForQuery(db, "SELECT ifnull(max(" + CHANGE_SEQ + "), 0) FROM "
+                + TABLE_CHANGES, null);
+        Cursor users = db.query(TABLE_USER, new String[]{USER_ID}, null, null, null, null, null);
+        while (users.moveToNext()) {
+            String[] userArgs = {users.getString(0)};
+            SQLiteDatabase userDb = openUserDatabase(users.getInt(0)).getWritableDatabase();
+            userDb.beginTransaction();
+            try {
+                seedSequence(userDb, TABLE_REMINDER, lastReminderId);
+                seedSequence(userDb, TABLE_CHANGES, lastChangeSeq);
+                copyRows(db, userDb, TABLE_SYNC_STATE, SYNC_USER_ID + " = ?", userArgs, SQLiteDatabase.CONFLICT_REPLACE);
+                copyRows(db, userDb, TABLE_DRAFTS, DRAFT_USER_ID + " = ?", userArgs, SQLiteDatabase.CONFLICT_REPLACE);
+                copyRows(db, userDb, TABLE_DEFERRED, DEFERRED_REMINDER_ID + " IN (SELECT " + REMINDER_ID + " FROM "
+                        + TABLE_REMINDER + " WHERE " + REMINDER_USER_ID + " = ?)", userArgs, SQLiteDatabase.CONFLICT_REPLACE);
+                userDb.setTransactionSuccessful();
+            } finally {
+                userDb.endTransaction();
+            }
+            userDb.close();
+        }
+        users.close();
+        db.delete(TABLE_SYNC_STATE, null, null);
+        db.delete(TABLE_DRAFTS, null, null);
+        db.delete(TABLE_DEFERRED, null, null);
+    }
+
+    private void seedSequence(SQLiteDatabase db, String table, long lastId) {
+        SQLiteStatement update = db.compileStatement("UPDATE sqlite_sequence SET seq = max(seq, ?) WHERE name = ?");
+        update.bindLong(1, lastId);
+        update.bindString(2, table);
+        if (update.executeUpdateDelete() == 0) {
+            db.execSQL("INSERT INTO sqlite_sequence(name, seq) VALUES (?, ?)", new Object[]{table, lastId});
+        }
+        update.close();
+    }
+
+    /**
+     * Moves a range of directory rows into the databases of their owners. Rows already
+     * present in a user database, from an earlier interrupted attempt, are kept. Rows
+     * without an owner cannot be reached by any user and are dropped.
+     */
+    private void moveToUserDatabases(SQLiteDatabase db, String table, String idColumn, String userColumn,
+                                     long afterId, long upToId) {
+        String range = idColumn + " > ? AND " + idColumn + " <= ?";
+        String[] rangeArgs = {String.valueOf(afterId), String.valueOf(upToId)};
+        Cursor owners = db.query(true, table, new String[]{userColumn}, range + " AND " + userColumn + " IS NOT NULL",
+                rangeArgs, null, null, null, null);
+        while (owners.moveToNext()) {
+            String[] ownerArgs = {rangeArgs[0], rangeArgs[1], owners.getString(0)};
+            SQLiteDatabase userDb = openUserDatabase(owners.getInt(0)).getWritableDatabase();
+            userDb.beginTransaction();
+            try {
+                copyRows(db, userDb, table, range + " AND " + userColumn + " = ?", ownerArgs, SQLiteDatabase.CONFLICT_IGNORE);
+                userDb.setTransactionSuccessful();
+            } finally {
+                userDb.endTransaction();
+            }
+            userDb.close();
+        }
+        owners.close();
+        db.delete(table, range, rangeArgs);
+    }
+
+    // --------------------- Migration Operations ---------------------
+
+    /**
+     * Counts the rows that queued backfills still have to migrate.
+     *
+     * @return Number of rows, 0 when no backfill is pending.
+     */
+    public long countPendingBackfillRows() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_BACKFILLS, new String[]{BACKFILL_VERSION, BACKFILL_LAST_ID, BACKFILL_END_ID},
+                null, null, null, null, null);
+        long rows = 0;
+        while (cursor.moveToNext()) {
+            Migration migration = findMigration(cursor.getInt(0));
+            long endId = cursor.getLong(2) == BACKFILL_NOT_STARTED ? Long.MAX_VALUE : cursor.getLong(2);
+            rows += DatabaseUtils.longForQuery(db, "SELECT count(*) FROM " + migration.getBackfillTable()
+                    + " WHERE rowid > ? AND rowid <= ?", new String[]{cursor.getString(1), String.valueOf(endId)});
+        }
+        cursor.close();
+        db.close();
+        return rows;
+    }
+
+    /**
+     * Migrates the next chunk of rows of the earliest queued backfill in one transaction,
+     * together with its progress, so the write lock is released between chunks and an
+     * interrupted backfill resumes where it stopped.
+     *
+     * @return Number of rows migrated, or -1 when no backfill is pending.
+     */
+    public int runBackfillChunk() {
+        long start = PerfMetrics.begin("db.runBackfillChunk");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            int rows = -1;
+            db.beginTransaction();
+            try {
+                Cursor cursor = db.query(TABLE_BACKFILLS, new String[]{BACKFILL_VERSION, BACKFILL_LAST_ID, BACKFILL_END_ID},
+                        null, null, null, null, BACKFILL_VERSION, "1");
+                if (cursor.moveToFirst()) {
+                    int version = cursor.getInt(0);
+                    long lastId = cursor.getLong(1);
+                    long endId = cursor.getLong(2);
+                    Migration migration = findMigration(version);
+                    String[] versionArgs = {String.valueOf(version)};
+                    if (endId == BACKFILL_NOT_STARTED) {
+                        // Rows added from here on are written complete and need no backfill
+                        endId = DatabaseUtils.longForQuery(db, "SELECT ifnull(max(rowid), 0) FROM "
+                                + migration.getBackfillTable(), null);
+                        ContentValues values = new ContentValues();
+                        values.put(BACKFILL_END_ID, endId);
+                        db.update(TABLE_BACKFILLS, values, BACKFILL_VERSION + " = ?", versionArgs);
+                    }
+
+                    // Bounds of the next chunk, found on the rowid b-tree without reading the rows
+                    Cursor chunk = db.rawQuery("SELECT count(*), max(rowid) FROM (SELECT rowid FROM "
+                            + migration.getBackfillTable() + " WHERE rowid > ? AND rowid <= ? ORDER BY rowid LIMIT "
+                            + BACKFILL_CHUNK_ROWS + ")", new String[]{String.valueOf(lastId), String.valueOf(endId)});
+                    chunk.moveToFirst();
+                    rows = chunk.getInt(0);
+                    long upToId = rows > 0 ? chunk.getLong(1) : endId;
+                    chunk.close();
+
+                    if (rows > 0) {
+                        migration.backfill(db, lastId, upToId);
+                    }
+                    if (upToId >= endId) {
+                        db.delete(TABLE_BACKFILLS, BACKFILL_VERSION + " = ?", versionArgs);
+                    } else {
+                        ContentValues values = new ContentValues();
+                        values.put(BACKFILL_LAST_ID, upToId);
+                        db.update(TABLE_BACKFILLS, values, BACKFILL_VERSION + " = ?", versionArgs);
+                    }
+                }
+                cursor.close();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            return rows;
+        } finally {
+            PerfMetrics.end("db.runBackfillChunk", start);
+        }
+    }
+
+    private Migration findMigration(int version) {
+        for (Migration migration : migrations) {
+            if (migration.version == version) {
+                return migration;
+            }
+        }
+        throw new IllegalStateException("No migration to version " + version);
     }
 
     // ----------------------- User Operations -----------------------
@@ -80,14 +888,19 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * @return User ID if registration is successful, -1 otherwise.
      */
     public long registerUser(String email, String password) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(USER_EMAIL, email);
-        values.put(USER_PASSWORD, password);
+        long start = PerfMetrics.begin("db.registerUser");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            ContentValues values = new ContentValues();
+            values.put(USER_EMAIL, email);
+            values.put(USER_PASSWORD, password);
 
-        long id = db.insert(TABLE_USER, null, values);
-        db.close();
-        return id;
+            long id = db.insert(TABLE_USER, null, values);
+            db.close();
+            return id;
+        } finally {
+            PerfMetrics.end("db.registerUser", start);
+        }
     }
 
     /**
@@ -98,17 +911,22 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * @return true if user exists, false otherwise.
      */
     public boolean checkUser(String email, String password) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        String[] columns = {USER_ID};
-        String selection = USER_EMAIL + " = ? AND " + USER_PASSWORD + " = ?";
-        String[] selectionArgs = {email, password};
+        long start = PerfMetrics.begin("db.checkUser");
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            String[] columns = {USER_ID};
+            String selection = USER_EMAIL + " = ? AND " + USER_PASSWORD + " = ?";
+            String[] selectionArgs = {email, password};
 
-        Cursor cursor = db.query(TABLE_USER, columns, selection, selectionArgs, null, null, null);
-        int count = cursor.getCount();
-        cursor.close();
-        db.close();
+            Cursor cursor = db.query(TABLE_USER, columns, selection, selectionArgs, null, null, null);
+            int count = cursor.getCount();
+            cursor.close();
+            db.close();
 
-        return count > 0;
+            return count > 0;
+        } finally {
+            PerfMetrics.end("db.checkUser", start);
+        }
     }
 
     /**
@@ -118,19 +936,79 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * @return User ID if found, -1 otherwise.
      */
     public int getUserId(String email) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        String[] columns = {USER_ID};
-        String selection = USER_EMAIL + " = ?";
-        String[] selectionArgs = {email};
+        long start = PerfMetrics.begin("db.getUserId");
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            String[] columns = {USER_ID};
+            String selection = USER_EMAIL + " = ?";
+            String[] selectionArgs = {email};
 
-        Cursor cursor = db.query(TABLE_USER, columns, selection, selectionArgs, null, null, null);
-        int userId = -1;
-        if (cursor.moveToFirst()) {
-            userId = cursor.getInt(cursor.getColumnIndexOrThrow(USER_ID));
+            Cursor cursor = db.query(TABLE_USER, columns, selection, selectionArgs, null, null, null);
+            int userId = -1;
+            if (cursor.moveToFirst()) {
+                userId = cursor.getInt(cursor.getColumnIndexOrThrow(USER_ID));
+            }
+            cursor.close();
+            db.close();
+            return userId;
+        } finally {
+            PerfMetrics.end("db.getUserId", start);
+        }
+    }
+
+    /**
+     * Retrieves the IDs of all users in the directory.
+     *
+     * @return User IDs.
+     */
+    public List<Integer> getUserIds() {
+        List<Integer> ids = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_USER, new String[]{USER_ID}, null, null, null, null, null);
+        while (cursor.moveToNext()) {
+            ids.add(cursor.getInt(0));
         }
         cursor.close();
         db.close();
-        return userId;
+        return ids;
+    }
+
+    /**
+     * Deletes a user and, with a single file delete, all of their reminders, then their
+     * attachment files. The caller cancels the user's alarms first.
+     *
+     * @param userId ID of the user.
+     * @return true if the user existed.
+     */
+    public boolean deleteUser(int userId) {
+        long start = PerfMetrics.begin("db.deleteUser");
+        try {
+            deleteUserDatabase(userId);
+            SQLiteDatabase db = this.getWritableDatabase();
+            int rowsDeleted = db.delete(TABLE_USER, USER_ID + " = ?", new String[]{String.valueOf(userId)});
+            db.close();
+            ReminderChangeNotifier.notifyChanged(context, userId, ReminderChangeNotifier.UNKNOWN);
+            return rowsDeleted > 0;
+        } finally {
+            PerfMetrics.end("db.deleteUser", start);
+        }
+    }
+
+    /**
+     * Deletes a user's reminder database and attachment files, but keeps the user.
+     *
+     * @param userId ID of the user.
+     */
+    void deleteUserDatabase(int userId) {
+        DatabaseHelper userHelper = getUserDatabase(userId);
+        userHelper.close();
+        if (userHelper.getDatabaseName() != null) {
+            SQLiteDatabase.deleteDatabase(context.getDatabasePath(userHelper.getDatabaseName()));
+        }
+        if (DATABASE_NAME.equals(getDatabaseName())) {
+            // Attachment files belong to the live databases only
+            AttachmentStore.deleteAll(context, userId);
+        }
     }
 
     // --------------------- Reminder Operations ---------------------
@@ -142,117 +1020,1484 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * @return Row ID of the newly inserted reminder, -1 otherwise.
      */
     public long addReminder(Reminder reminder) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(REMINDER_TITLE, reminder.getTitle());
-        values.put(REMINDER_DESCRIPTION, reminder.getDescription());
-        values.put(REMINDER_DATE, reminder.getDate());
-        values.put(REMINDER_TIME, reminder.getTime());
-        values.put(REMINDER_USER_ID, reminder.getUserId());
+        long start = PerfMetrics.begin("db.addReminder");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            long id;
+            db.beginTransaction();
+            try {
+                id = insertLocalReminder(db, new ContentValues(), reminder);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            if (id != -1) {
+                ReminderChangeNotifier.notifyChanged(context, reminder.getUserId(), (int) id);
+            }
+            return id;
+        } finally {
+            PerfMetrics.end("db.addReminder", start);
+        }
+    }
 
-        long id = db.insert(TABLE_REMINDER, null, values);
-        db.close();
-        return id;
+    /**
+     * Adds a batch of reminders in a single transaction.
+     *
+     * @param reminders Reminders to insert.
+     * @return Number of reminders inserted.
+     */
+    public int addReminders(List<Reminder> reminders) {
+        long start = PerfMetrics.begin("db.addReminders");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            int inserted = 0;
+            db.beginTransaction();
+            try {
+                ContentValues values = new ContentValues();
+                for (Reminder reminder : reminders) {
+                    if (insertLocalReminder(db, values, reminder) != -1) {
+                        inserted++;
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            if (inserted > 0) {
+                ReminderChangeNotifier.notifyChanged(context, ReminderChangeNotifier.UNKNOWN, ReminderChangeNotifier.UNKNOWN);
+            }
+            PerfMetrics.record("db.addReminders.rows", inserted);
+            return inserted;
+        } finally {
+            PerfMetrics.end("db.addReminders", start);
+        }
     }
 
     /**
-     * Retrieves all reminders for a specific user.
+     * Retrieves all reminders for a specific user, for the list screen.
+     * Descriptions are truncated in SQL to a short preview so long notes never enter
+     * the cursor window; use {@link #getReminder(int)} to load the full text.
      *
      * @param userId ID of the user.
-     * @return List of reminders.
+     * @return List of reminders with description previews.
      */
     public List<Reminder> getAllReminders(int userId) {
-        List<Reminder> reminderList = new ArrayList<>();
-        SQLiteDatabase db = this.getReadableDatabase();
-
-        String[] columns = {REMINDER_ID, REMINDER_TITLE, REMINDER_DESCRIPTION, REMINDER_DATE, REMINDER_TIME};
-        String selection = REMINDER_USER_ID + " = ?";
-        String[] selectionArgs = {String.valueOf(userId)};
+        long start = PerfMetrics.begin("db.getAllReminders");
+        try {
+            List<Reminder> reminderList = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
 
-        Cursor cursor = db.query(TABLE_REMINDER, columns, selection, selectionArgs, null, null, REMINDER_DATE + " ASC, " + REMINDER_TIME + " ASC");
+            String selection = REMINDER_USER_ID + " = ? AND " + NOT_DELETED;
+            String[] selectionArgs = {String.valueOf(userId)};
 
-        if (cursor.moveToFirst()) {
-            do {
-                int id = cursor.getInt(cursor.getColumnIndexOrThrow(REMINDER_ID));
-                String title = cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_TITLE));
-                String description = cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_DESCRIPTION));
-                String date = cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_DATE));
-                String time = cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_TIME));
+            Cursor cursor = db.query(TABLE_REMINDER, LIST_COLUMNS, selection, selectionArgs, null, null, REMINDER_DUE_AT + " ASC");
+            readReminders(cursor, userId, reminderList);
 
-                Reminder reminder = new Reminder(id, title, description, date, time, userId);
-                reminderList.add(reminder);
-            } while (cursor.moveToNext());
+            cursor.close();
+            db.close();
+            PerfMetrics.record("db.getAllReminders.rows", reminderList.size());
+            return reminderList;
+        } finally {
+            PerfMetrics.end("db.getAllReminders", start);
         }
-
-        cursor.close();
-        db.close();
-        return reminderList;
     }
 
     /**
-     * Retrieves a single reminder by ID.
+     * Counts the reminders in every section with a single aggregate query.
      *
-     * @param id Reminder ID.
-     * @return Reminder object if found, null otherwise.
+     * @param userId          ID of the user.
+     * @param now             Current time in epoch millis.
+     * @param startOfTomorrow Local midnight at the end of today.
+     * @return Counts indexed by {@link ReminderSection#ordinal()}.
      */
-    public Reminder getReminder(int id) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        String[] columns = {REMINDER_ID, REMINDER_TITLE, REMINDER_DESCRIPTION, REMINDER_DATE, REMINDER_TIME, REMINDER_USER_ID};
-        String selection = REMINDER_ID + " = ?";
-        String[] selectionArgs = {String.valueOf(id)};
-
-        Cursor cursor = db.query(TABLE_REMINDER, columns, selection, selectionArgs, null, null, null);
-        Reminder reminder = null;
-        if (cursor.moveToFirst()) {
-            String title = cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_TITLE));
-            String description = cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_DESCRIPTION));
-            String date = cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_DATE));
-            String time = cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_TIME));
-            int userId = cursor.getInt(cursor.getColumnIndexOrThrow(REMINDER_USER_ID));
+    public int[] getSectionCounts(int userId, long now, long startOfTomorrow) {
+        long start = PerfMetrics.begin("db.getSectionCounts");
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            String open = "(" + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ") = 0";
+            String query = "SELECT "
+                    + "SUM(CASE WHEN " + open + " AND " + REMINDER_DUE_AT + " < ?1 THEN 1 ELSE 0 END), "
+                    + "SUM(CASE WHEN " + open + " AND " + REMINDER_DUE_AT + " >= ?1 AND " + REMINDER_DUE_AT + " < ?2 THEN 1 ELSE 0 END), "
+                    + "SUM(CASE WHEN " + open + " AND " + REMINDER_DUE_AT + " >= ?2 THEN 1 ELSE 0 END), "
+                    + "SUM(CASE WHEN " + open + " THEN 0 ELSE 1 END) "
+                    + "FROM " + TABLE_REMINDER + " WHERE " + REMINDER_USER_ID + " = ?3 AND " + NOT_DELETED;
+            String[] args = {String.valueOf(now), String.valueOf(startOfTomorrow), String.valueOf(userId)};
 
-            reminder = new Reminder(id, title, description, date, time, userId);
+            int[] counts = new int[ReminderSection.values().length];
+            Cursor cursor = db.rawQuery(query, args);
+            if (cursor.moveToFirst()) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = cursor.getInt(i);
+                }
+            }
+            cursor.close();
+            db.close();
+            return counts;
+        } finally {
+            PerfMetrics.end("db.getSectionCounts", start);
         }
-
-        cursor.close();
-        db.close();
-        return reminder;
     }
 
     /**
-     * Updates an existing reminder.
+     * Retrieves one page of a section, served by the (user_id, due_at) index.
      *
-     * @param reminder Reminder object with updated details.
-     * @return Number of rows affected.
+     * @param userId          ID of the user.
+     * @param section         Section to load.
+     * @param now             Current time in epoch millis.
+     * @param startOfTomorrow Local midnight at the end of today.
+     * @param offset          Number of rows to skip.
+     * @param limit           Maximum number of rows.
+     * @return Reminders with description previews.
      */
-    public int updateReminder(Reminder reminder) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(REMINDER_TITLE, reminder.getTitle());
-        values.put(REMINDER_DESCRIPTION, reminder.getDescription());
-        values.put(REMINDER_DATE, reminder.getDate());
-        values.put(REMINDER_TIME, reminder.getTime());
+    public List<Reminder> getSectionReminders(int userId, ReminderSection section, long now, long startOfTomorrow,
+                                              int offset, int limit) {
+        long start = PerfMetrics.begin("db.getSectionReminders");
+        try {
+            List<Reminder> reminderList = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
 
-        String whereClause = REMINDER_ID + " = ?";
-        String[] whereArgs = {String.valueOf(reminder.getId())};
+            String open = REMINDER_USER_ID + " = ? AND " + NOT_DELETED + " AND (" + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ") = 0";
+            String selection;
+            String[] selectionArgs;
+            String orderBy;
+            switch (section) {
+                case OVERDUE:
+                    selection = open + " AND " + REMINDER_DUE_AT + " < ?";
+                    selectionArgs = new String[]{String.valueOf(userId), String.valueOf(now)};
+                    orderBy = REMINDER_DUE_AT + " DESC";
+                    break;
+                case TODAY:
+                    selection = open + " AND " + REMINDER_DUE_AT + " >= ? AND " + REMINDER_DUE_AT + " < ?";
+                    selectionArgs = new String[]{String.valueOf(userId), String.valueOf(now), String.valueOf(startOfTomorrow)};
+                    orderBy = REMINDER_DUE_AT + " ASC";
+                    break;
+                case UPCOMING:
+                    selection = open + " AND " + REMINDER_DUE_AT + " >= ?";
+                    selectionArgs = new String[]{String.valueOf(userId), String.valueOf(startOfTomorrow)};
+                    orderBy = REMINDER_DUE_AT + " ASC";
+                    break;
+                default:
+                    selection = REMINDER_USER_ID + " = ? AND " + NOT_DELETED + " AND (" + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ") != 0";
+                    selectionArgs = new String[]{String.valueOf(userId)};
+                    orderBy = REMINDER_DUE_AT + " DESC";
+                    break;
+            }
 
-        int rowsAffected = db.update(TABLE_REMINDER, values, whereClause, whereArgs);
-        db.close();
-        return rowsAffected;
+            Cursor cursor = db.query(TABLE_REMINDER, LIST_COLUMNS, selection, selectionArgs, null, null, orderBy,
+                    offset + "," + limit);
+            readReminders(cursor, userId, reminderList);
+
+            cursor.close();
+            db.close();
+            PerfMetrics.record("db.getSectionReminders.rows", reminderList.size());
+            return reminderList;
+        } finally {
+            PerfMetrics.end("db.getSectionReminders", start);
+        }
     }
 
     /**
-     * Deletes a reminder by ID.
+     * Retrieves the next open reminders by due time, for the home-screen widget.
+     * Served entirely by the (user_id, due_at) index; descriptions are not loaded.
      *
-     * @param id Reminder ID.
-     * @return Number of rows deleted.
+     * @param userId ID of the user.
+     * @param now    Current time in epoch millis.
+     * @param limit  Maximum number of reminders.
+     * @return Reminders without descriptions.
      */
-    public int deleteReminder(int id) {
+    public List<Reminder> getUpcomingReminders(int userId, long now, int limit) {
+        long start = PerfMetrics.begin("db.getUpcomingReminders");
+        try {
+            List<Reminder> reminderList = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
+
+            String[] columns = {REMINDER_ID, REMINDER_TITLE, REMINDER_DUE_AT, REMINDER_FLAGS};
+            String selection = REMINDER_USER_ID + " = ? AND " + NOT_DELETED + " AND " + REMINDER_DUE_AT + " >= ? AND ("
+                    + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ") = 0";
+            String[] selectionArgs = {String.valueOf(userId), String.valueOf(now)};
+
+            Cursor cursor = db.query(TABLE_REMINDER, columns, selection, selectionArgs, null, null,
+                    REMINDER_DUE_AT + " ASC", String.valueOf(limit));
+            while (cursor.moveToNext()) {
+                reminderList.add(Reminder.builder()
+                        .setId(cursor.getInt(0))
+                        .setTitle(cursor.getString(1))
+                        .setDueAt(cursor.getLong(2))
+                        .setFlags(cursor.getInt(3))
+                        .setUserId(userId)
+                        .build());
+            }
+
+            cursor.close();
+            db.close();
+            return reminderList;
+        } finally {
+            PerfMetrics.end("db.getUpcomingReminders", start);
+        }
+    }
+
+    /**
+     * Counts reminders per local calendar day in a time range with one grouped range
+     * query over the (user_id, due_at) index. Cost depends on the range, not on history size.
+     *
+     * @param userId ID of the user.
+     * @param from   Range start in epoch millis, inclusive.
+     * @param to     Range end in epoch millis, exclusive.
+     * @return Counts keyed by {@link DateTimeUtils#dayKey(long)}; days without reminders are absent.
+     */
+    public SparseIntArray getDayCounts(int userId, long from, long to) {
+        long start = PerfMetrics.begin("db.getDayCounts");
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            String query = "SELECT CAST(strftime('%Y%m%d', " + REMINDER_DUE_AT + " / 1000, 'unixepoch', 'localtime') AS INTEGER) AS day, "
+                    + "COUNT(*) FROM " + TABLE_REMINDER
+                    + " WHERE " + REMINDER_USER_ID + " = ? AND " + REMINDER_DUE_AT + " >= ? AND " + REMINDER_DUE_AT + " < ? AND " + NOT_DELETED
+                    + " GROUP BY day";
+            Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(userId), String.valueOf(from), String.valueOf(to)});
+            SparseIntArray counts = new SparseIntArray();
+            while (cursor.moveToNext()) {
+                counts.put(cursor.getInt(0), cursor.getInt(1));
+            }
+            cursor.close();
+            db.close();
+            return counts;
+        } finally {
+            PerfMetrics.end("db.getDayCounts", start);
+        }
+    }
+
+    /**
+     * Retrieves the reminders due in a time range, e.g. a single day.
+     *
+     * @param userId ID of the user.
+     * @param from   Range start in epoch millis, inclusive.
+     * @param to     Range end in epoch millis, exclusive.
+     * @return Reminders with description previews, ordered by due time.
+     */
+    public List<Reminder> getRemindersBetween(int userId, long from, long to) {
+        long start = PerfMetrics.begin("db.getRemindersBetween");
+        try {
+            List<Reminder> reminderList = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
+
+            String selection = REMINDER_USER_ID + " = ? AND " + REMINDER_DUE_AT + " >= ? AND " + REMINDER_DUE_AT + " < ? AND " + NOT_DELETED;
+            String[] selectionArgs = {String.valueOf(userId), String.valueOf(from), String.valueOf(to)};
+
+            Cursor cursor = db.query(TABLE_REMINDER, LIST_COLUMNS, selection, selectionArgs, null, null, REMINDER_DUE_AT + " ASC");
+            readReminders(cursor, userId, reminderList);
+
+            cursor.close();
+            db.close();
+            PerfMetrics.record("db.getRemindersBetween.rows", reminderList.size());
+            return reminderList;
+        } finally {
+            PerfMetrics.end("db.getRemindersBetween", start);
+        }
+    }
+
+    /**
+     * Retrieves the reminders matching a filter with one query. Tags are matched as a bitmask
+     * and, together with priority and the due time range, evaluated in SQL on the
+     * (user_id, priority, tags, due_at) or (user_id, due_at) index, so nothing is filtered in Java.
+     *
+     * @param userId ID of the user.
+     * @param filter Filter.
+     * @param limit  Maximum number of reminders.
+     * @return Matching reminders with description previews, ordered by due time.
+     */
+    public List<Reminder> getFilteredReminders(int userId, ReminderFilter filter, int limit) {
+        long start = PerfMetrics.begin("db.getFilteredReminders");
+        try {
+            List<Reminder> reminderList = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
+
+            StringBuilder selection = new StringBuilder(REMINDER_USER_ID + " = ? AND " + NOT_DELETED);
+            List<String> args = new ArrayList<>();
+            args.add(String.valueOf(userId));
+            if (filter.getMinPriority() > Reminder.PRIORITY_NONE) {
+                selection.append(" AND ").append(REMINDER_PRIORITY).append(" >= ?");
+                args.add(String.valueOf(filter.getMinPriority()));
+            }
+            if (filter.getRequiredTags() != 0) {
+                // Integer literal: a bound argument would be compared as text
+                selection.append(" AND (").append(REMINDER_TAGS).append(" & ").append(filter.getRequiredTags())
+                        .append(") = ").append(filter.getRequiredTags());
+            }
+            if (filter.getDueFrom() != ReminderFilter.UNBOUNDED) {
+                selection.append(" AND ").append(REMINDER_DUE_AT).append(" >= ?");
+                args.add(String.valueOf(filter.getDueFrom()));
+            }
+            if (filter.getDueTo() != ReminderFilter.UNBOUNDED) {
+                selection.append(" AND ").append(REMINDER_DUE_AT).append(" < ?");
+                args.add(String.valueOf(filter.getDueTo()));
+            }
+            if (!filter.isIncludeCompleted()) {
+                selection.append(" AND (").append(REMINDER_FLAGS).append(" & ").append(Reminder.FLAG_COMPLETED).append(") = 0");
+            }
+
+            Cursor cursor = db.query(TABLE_REMINDER, LIST_COLUMNS, selection.toString(), args.toArray(new String[0]),
+                    null, null, REMINDER_DUE_AT + " ASC", String.valueOf(limit));
+            readReminders(cursor, userId, reminderList);
+
+            cursor.close();
+            db.close();
+            PerfMetrics.record("db.getFilteredReminders.rows", reminderList.size());
+            return reminderList;
+        } finally {
+            PerfMetrics.end("db.getFilteredReminders", start);
+        }
+    }
+
+    /**
+     * Queries a user's reminders for ReminderProvider. The cursor is returned unread, so SQLite
+     * fills its window only as the caller moves through it, and the database is left open for it.
+     * A strict projection map limits projection and selection to the contract columns.
+     *
+     * @param userId        ID of the user.
+     * @param reminderId    Single reminder to match, or {@link ReminderChangeNotifier#UNKNOWN} for all.
+     * @param projection    Contract columns, or null for all of them.
+     * @param selection     Extra selection over contract columns, or null.
+     * @param selectionArgs Selection arguments, or null.
+     * @param sortOrder     Sort order, or null.
+     * @param limit         Row limit, or null.
+     * @return Cursor that the caller must close.
+     */
+    public Cursor queryReminders(int userId, int reminderId, String[] projection, String selection,
+                                 String[] selectionArgs, String sortOrder, String limit) {
+        long start = PerfMetrics.begin("db.queryReminders");
+        try {
+            SQLiteQueryBuilder builder = new SQLiteQueryBuilder();
+            builder.setTables(TABLE_REMINDER);
+            builder.setProjectionMap(PROVIDER_PROJECTION);
+            builder.setStrict(true);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                builder.setStrictColumns(true);
+                builder.setStrictGrammar(true);
+            }
+            builder.appendWhere(REMINDER_USER_ID + " = " + userId + " AND " + NOT_DELETED);
+            if (reminderId != ReminderChangeNotifier.UNKNOWN) {
+                builder.appendWhere(" AND " + REMINDER_ID + " = " + reminderId);
+            }
+
+            Cursor cursor = builder.query(this.getReadableDatabase(), projection, selection, selectionArgs,
+                    null, null, sortOrder, limit);
+            return cursor;
+        } finally {
+            PerfMetrics.end("db.queryReminders", start);
+        }
+    }
+
+    /**
+     * Retrieves a single reminder by ID.
+     *
+     * @param id Reminder ID.
+     * @return Reminder object if found, null otherwise.
+     */
+    public Reminder getReminder(int id) {
+        long start = PerfMetrics.begin("db.getReminder");
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            String[] columns = {REMINDER_ID, REMINDER_TITLE, REMINDER_DESCRIPTION, REMINDER_DUE_AT, REMINDER_FLAGS,
+                    REMINDER_TAGS, REMINDER_PRIORITY, REMINDER_USER_ID};
+            String selection = REMINDER_ID + " = ? AND " + NOT_DELETED;
+            String[] selectionArgs = {String.valueOf(id)};
+
+            Cursor cursor = db.query(TABLE_REMINDER, columns, selection, selectionArgs, null, null, null);
+            Reminder reminder = null;
+            if (cursor.moveToFirst()) {
+                reminder = Reminder.builder()
+                        .setId(id)
+                        .setTitle(cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_TITLE)))
+                        .setDescription(cursor.getString(cursor.getColumnIndexOrThrow(REMINDER_DESCRIPTION)))
+                        .setDueAt(cursor.getLong(cursor.getColumnIndexOrThrow(REMINDER_DUE_AT)))
+                        .setFlags(cursor.getInt(cursor.getColumnIndexOrThrow(REMINDER_FLAGS)))
+                        .setTags(cursor.getInt(cursor.getColumnIndexOrThrow(REMINDER_TAGS)))
+                        .setPriority(cursor.getInt(cursor.getColumnIndexOrThrow(REMINDER_PRIORITY)))
+                        .setUserId(cursor.getInt(cursor.getColumnIndexOrThrow(REMINDER_USER_ID)))
+                        .build();
+            }
+
+            cursor.close();
+            db.close();
+            return reminder;
+        } finally {
+            PerfMetrics.end("db.getReminder", start);
+        }
+    }
+
+    /**
+     * Updates an existing reminder.
+     *
+     * @param reminder Reminder object with updated details.
+     * @return Number of rows affected.
+     */
+    public int updateReminder(Reminder reminder) {
+        long start = PerfMetrics.begin("db.updateReminder");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            ContentValues values = new ContentValues();
+            putReminderValues(values, reminder);
+
+            String whereClause = REMINDER_ID + " = ?";
+            String[] whereArgs = {String.valueOf(reminder.getId())};
+
+            int rowsAffected;
+            db.beginTransaction();
+            try {
+                rowsAffected = db.update(TABLE_REMINDER, values, whereClause, whereArgs);
+                if (rowsAffected > 0) {
+                    recordLocalUpdate(db, reminder.getId());
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            if (rowsAffected > 0) {
+                ReminderChangeNotifier.notifyChanged(context, reminder.getUserId(), reminder.getId());
+            }
+            return rowsAffected;
+        } finally {
+            PerfMetrics.end("db.updateReminder", start);
+        }
+    }
+
+    /**
+     * Marks a reminder as completed or not, touching only its flags.
+     *
+     * @param id        Reminder ID.
+     * @param completed New completion state.
+     * @return Number of rows affected.
+     */
+    public int setCompleted(int id, boolean completed) {
+        long start = PerfMetrics.begin("db.setCompleted");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            String flagsExpression = completed
+                    ? REMINDER_FLAGS + " | " + Reminder.FLAG_COMPLETED
+                    : REMINDER_FLAGS + " & ~" + Reminder.FLAG_COMPLETED;
+            SQLiteStatement statement = db.compileStatement("UPDATE " + TABLE_REMINDER
+                    + " SET " + REMINDER_FLAGS + " = " + flagsExpression + " WHERE " + REMINDER_ID + " = ?");
+            statement.bindLong(1, id);
+            int rowsAffected;
+            int userId = ReminderChangeNotifier.UNKNOWN;
+            db.beginTransaction();
+            try {
+                rowsAffected = statement.executeUpdateDelete();
+                if (rowsAffected > 0) {
+                    userId = recordLocalUpdate(db, id);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            statement.close();
+            db.close();
+            if (rowsAffected > 0) {
+                ReminderChangeNotifier.notifyChanged(context, userId, id);
+            }
+            return rowsAffected;
+        } finally {
+            PerfMetrics.end("db.setCompleted", start);
+        }
+    }
+
+    /**
+     * Moves a reminder's due time, e.g. for a notification snooze, and clears its completed flag.
+     * Only due_at and flags are written. Reminders deleted since the notification was posted
+     * are left alone, so the caller does not re-arm them.
+     *
+     * @param id    Reminder ID.
+     * @param dueAt New due time in epoch millis.
+     * @return Number of rows affected, 0 if the reminder is gone.
+     */
+    public int snoozeReminder(int id, long dueAt) {
+        long start = PerfMetrics.begin("db.snoozeReminder");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            SQLiteStatement statement = db.compileStatement("UPDATE " + TABLE_REMINDER
+                    + " SET " + REMINDER_DUE_AT + " = ?, " + REMINDER_FLAGS + " = " + REMINDER_FLAGS + " & ~" + Reminder.FLAG_COMPLETED
+                    + " WHERE " + REMINDER_ID + " = ? AND " + NOT_DELETED);
+            statement.bindLong(1, dueAt);
+            statement.bindLong(2, id);
+            int rowsAffected;
+            int userId = ReminderChangeNotifier.UNKNOWN;
+            db.beginTransaction();
+            try {
+                rowsAffected = statement.executeUpdateDelete();
+                if (rowsAffected > 0) {
+                    userId = recordLocalUpdate(db, id);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            statement.close();
+            db.close();
+            if (rowsAffected > 0) {
+                ReminderChangeNotifier.notifyChanged(context, userId, id);
+            }
+            return rowsAffected;
+        } finally {
+            PerfMetrics.end("db.snoozeReminder", start);
+        }
+    }
+
+    /**
+     * Soft-deletes a batch of reminders with a single UPDATE. The rows stay in the table
+     * until purged, so the delete can be undone with {@link #restoreReminders}.
+     *
+     * @param userId ID of the user owning the reminders.
+     * @param ids    Reminder IDs.
+     * @return Number of rows marked as deleted.
+     */
+    public int softDeleteReminders(int userId, List<Integer> ids) {
+        return setDeletedAt(userId, ids, System.currentTimeMillis());
+    }
+
+    /**
+     * Undoes a soft delete.
+     *
+     * @param userId ID of the user owning the reminders.
+     * @param ids    Reminder IDs.
+     * @return Number of rows restored.
+     */
+    public int restoreReminders(int userId, List<Integer> ids) {
+        return setDeletedAt(userId, ids, -1);
+    }
+
+    private int setDeletedAt(int userId, List<Integer> ids, long deletedAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long start = PerfMetrics.begin("db.setDeletedAt");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < ids.size(); i++) {
+                placeholders.append(i == 0 ? "?" : ",?");
+            }
+            SQLiteStatement statement = db.compileStatement("UPDATE " + TABLE_REMINDER
+                    + " SET " + REMINDER_DELETED_AT + " = ? WHERE " + REMINDER_USER_ID + " = ? AND "
+                    + REMINDER_ID + " IN (" + placeholders + ")");
+            if (deletedAt == -1) {
+                statement.bindNull(1);
+            } else {
+                statement.bindLong(1, deletedAt);
+            }
+            statement.bindLong(2, userId);
+            for (int i = 0; i < ids.size(); i++) {
+                statement.bindLong(i + 3, ids.get(i));
+            }
+            int rowsAffected = statement.executeUpdateDelete();
+            statement.close();
+            db.close();
+            if (rowsAffected > 0) {
+                ReminderChangeNotifier.notifyChanged(context, userId, ids.size() == 1 ? ids.get(0) : ReminderChangeNotifier.UNKNOWN);
+            }
+            return rowsAffected;
+        } finally {
+            PerfMetrics.end("db.setDeletedAt", start);
+        }
+    }
+
+    /**
+     * Permanently removes reminders soft-deleted before a cutoff, logging sync tombstones,
+     * in one transaction.
+     *
+     * @param deletedBefore Cutoff in epoch millis.
+     * @return IDs of the purged reminders, so their alarms can be cancelled.
+     */
+    public List<Integer> purgeDeletedReminders(long deletedBefore) {
+        long start = PerfMetrics.begin("db.purgeDeletedReminders");
+        try {
+            List<Integer> purged = new ArrayList<>();
+            List<String> attachmentFiles;
+            SQLiteDatabase db = this.getWritableDatabase();
+            String selection = REMINDER_DELETED_AT + " <= ?";
+            String[] selectionArgs = {String.valueOf(deletedBefore)};
+            db.beginTransaction();
+            try {
+                Cursor cursor = db.query(TABLE_REMINDER, new String[]{REMINDER_ID}, selection, selectionArgs,
+                        null, null, null);
+                while (cursor.moveToNext()) {
+                    purged.add(cursor.getInt(0));
+                }
+                cursor.close();
+                for (int id : purged) {
+                    recordLocalDelete(db, id);
+                }
+                attachmentFiles = deleteAttachments(db, selection, selectionArgs);
+                db.delete(TABLE_REMINDER, selection, selectionArgs);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            deleteAttachmentFiles(attachmentFiles);
+            PerfMetrics.record("db.purgeDeletedReminders.rows", purged.size());
+            return purged;
+        } finally {
+            PerfMetrics.end("db.purgeDeletedReminders", start);
+        }
+    }
+
+    /**
+     * Deletes a reminder by ID.
+     *
+     * @param id Reminder ID.
+     * @return Number of rows deleted.
+     */
+    public int deleteReminder(int id) {
+        long start = PerfMetrics.begin("db.deleteReminder");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            String whereClause = REMINDER_ID + " = ?";
+            String[] whereArgs = {String.valueOf(id)};
+
+            int rowsDeleted;
+            int userId;
+            List<String> attachmentFiles;
+            db.beginTransaction();
+            try {
+                userId = recordLocalDelete(db, id);
+                attachmentFiles = deleteAttachments(db, whereClause, whereArgs);
+                rowsDeleted = db.delete(TABLE_REMINDER, whereClause, whereArgs);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            deleteAttachmentFiles(attachmentFiles);
+            if (rowsDeleted > 0) {
+                ReminderChangeNotifier.notifyChanged(context, userId, id);
+            }
+            return rowsDeleted;
+        } finally {
+            PerfMetrics.end("db.deleteReminder", start);
+        }
+    }
+
+    /**
+     * Retrieves the incomplete reminders that are due after a time, i.e. those that should
+     * have an alarm.
+     *
+     * @param now Current time in epoch millis.
+     * @return Reminders with full descriptions.
+     */
+    public List<Reminder> getSchedulableReminders(long now) {
+        long start = PerfMetrics.begin("db.getSchedulableReminders");
+        try {
+            List<Reminder> reminderList = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
+            String[] columns = {REMINDER_ID, REMINDER_TITLE, REMINDER_DESCRIPTION, REMINDER_DUE_AT, REMINDER_USER_ID};
+            String selection = REMINDER_DUE_AT + " > ? AND " + NOT_DELETED + " AND ("
+                    + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ") = 0";
+            Cursor cursor = db.query(TABLE_REMINDER, columns, selection, new String[]{String.valueOf(now)},
+                    null, null, null);
+            while (cursor.moveToNext()) {
+                reminderList.add(Reminder.builder()
+                        .setId(cursor.getInt(0))
+                        .setTitle(cursor.getString(1))
+                        .setDescription(cursor.getString(2))
+                        .setDueAt(cursor.getLong(3))
+                        .setUserId(cursor.getInt(4))
+                        .build());
+            }
+            cursor.close();
+            db.close();
+            return reminderList;
+        } finally {
+            PerfMetrics.end("db.getSchedulableReminders", start);
+        }
+    }
+
+    /**
+     * Retrieves the IDs of all reminders due after a time, including completed and
+     * soft-deleted ones, whose alarms may still be registered.
+     *
+     * @param now Current time in epoch millis.
+     * @return Reminder IDs.
+     */
+    public List<Integer> getReminderIdsDueAfter(long now) {
+        List<Integer> ids = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_REMINDER, new String[]{REMINDER_ID}, REMINDER_DUE_AT + " > ?",
+                new String[]{String.valueOf(now)}, null, null, null);
+        while (cursor.moveToNext()) {
+            ids.add(cursor.getInt(0));
+        }
+        cursor.close();
+        db.close();
+        return ids;
+    }
+
+    // ----------------------- Backup Operations -----------------------
+
+    /**
+     * Writes a consistent copy of the database to a new file with VACUUM INTO. The copy is
+     * taken inside a read transaction, which under write-ahead logging does not block writers.
+     * Requires Android 11 (SQLite 3.27) or later.
+     *
+     * @param target File to create; must not exist.
+     */
+    public void writeSnapshot(File target) {
+        long start = PerfMetrics.begin("db.writeSnapshot");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            db.execSQL("VACUUM INTO ?", new Object[]{target.getAbsolutePath()});
+            db.close();
+        } finally {
+            PerfMetrics.end("db.writeSnapshot", start);
+        }
+    }
+
+    /**
+     * Replaces the users of a directory, or the reminder, sync and draft rows of a user
+     * database, with those of a restored database in one transaction, so every connection
+     * sees either the old or the new contents, never a mix.
+     * Columns are matched by name, which tolerates column order differences between databases
+     * created fresh and ones upgraded from older versions.
+     *
+     * @param source Restored database, already upgraded to the current schema.
+     */
+    public void replaceContentsFrom(SQLiteDatabase source) {
+        long start = PerfMetrics.begin("db.replaceContentsFrom");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (String table : ownerId == NO_OWNER ? RESTORED_DIRECTORY_TABLES : RESTORED_USER_TABLES) {
+                    db.delete(table, null, null);
+                    copyRows(source, db, table, null, null, SQLiteDatabase.CONFLICT_NONE);
+                }
+                if (ownerId != NO_OWNER) {
+                    db.delete(TABLE_DEFERRED, null, null);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            ReminderChangeNotifier.notifyChanged(context, ownerId == NO_OWNER ? ReminderChangeNotifier.UNKNOWN : ownerId,
+                    ReminderChangeNotifier.UNKNOWN);
+        } finally {
+            PerfMetrics.end("db.replaceContentsFrom", start);
+        }
+    }
+
+    /**
+     * Copies the matching rows of a table between databases, matching columns by name.
+     */
+    private void copyRows(SQLiteDatabase source, SQLiteDatabase target, String table, String selection,
+                          String[] selectionArgs, int conflictAlgorithm) {
+        List<String> columns = getColumnNames(target, table);
+        columns.retainAll(getColumnNames(source, table));
+        Cursor cursor = source.query(table, columns.toArray(new String[0]), selection, selectionArgs, null, null, null);
+        ContentValues values = new ContentValues();
+        int columnCount = cursor.getColumnCount();
+        while (cursor.moveToNext()) {
+            values.clear();
+            for (int i = 0; i < columnCount; i++) {
+                String column = cursor.getColumnName(i);
+                switch (cursor.getType(i)) {
+                    case Cursor.FIELD_TYPE_NULL:
+                        values.putNull(column);
+                        break;
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        values.put(column, cursor.getLong(i));
+                        break;
+                    case Cursor.FIELD_TYPE_FLOAT:
+                        values.put(column, cursor.getDouble(i));
+                        break;
+                    case Cursor.FIELD_TYPE_BLOB:
+                        values.put(column, cursor.getBlob(i));
+                        break;
+                    default:
+                        values.put(column, cursor.getString(i));
+                        break;
+                }
+            }
+            target.insertWithOnConflict(table, null, values, conflictAlgorithm);
+        }
+        cursor.close();
+    }
+
+    private List<String> getColumnNames(SQLiteDatabase db, String table) {
+        List<String> columns = new ArrayList<>();
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        int nameIndex = cursor.getColumnIndexOrThrow("name");
+        while (cursor.moveToNext()) {
+            columns.add(cursor.getString(nameIndex));
+        }
+        cursor.close();
+        return columns;
+    }
+
+    // ---------------- Deferred Notification Operations ----------------
+
+    /**
+     * Queues a reminder's notification for later delivery. Reminders due in quiet hours are
+     * queued when they are scheduled, with their due time, so a flush only picks them up
+     * once they are due.
+     *
+     * @param reminderId Reminder ID.
+     * @param queuedAt   Queue time in epoch millis, at or after which a flush delivers it.
+     */
+    public void enqueueDeferredNotification(int reminderId, long queuedAt) {
+        long start = PerfMetrics.begin("db.enqueueDeferredNotification");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            ContentValues values = new ContentValues();
+            values.put(DEFERRED_REMINDER_ID, reminderId);
+            values.put(DEFERRED_QUEUED_AT, queuedAt);
+            db.insertWithOnConflict(TABLE_DEFERRED, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            db.close();
+        } finally {
+            PerfMetrics.end("db.enqueueDeferredNotification", start);
+        }
+    }
+
+    /**
+     * Reads the queued notifications that are still worth delivering. Reminders completed or
+     * deleted since they were queued are skipped; they are dropped by the next
+     * {@link #removeDeferredNotifications(long)}.
+     *
+     * @param queuedUpTo Latest queue time to include, in epoch millis.
+     * @return Queued reminders, ordered by due time.
+     */
+    public List<Reminder> getDeferredNotifications(long queuedUpTo) {
+        long start = PerfMetrics.begin("db.getDeferredNotifications");
+        try {
+            List<Reminder> reminderList = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
+            String query = "SELECT r." + REMINDER_ID + ", r." + REMINDER_TITLE + ", r." + REMINDER_DUE_AT + ", r." + REMINDER_USER_ID
+                    + ", r." + REMINDER_DESCRIPTION
+                    + " FROM " + TABLE_DEFERRED + " d JOIN " + TABLE_REMINDER + " r ON r." + REMINDER_ID + " = d." + DEFERRED_REMINDER_ID
+                    + " WHERE d." + DEFERRED_QUEUED_AT + " <= ? AND r." + NOT_DELETED
+                    + " AND (r." + REMINDER_FLAGS + " & " + Reminder.FLAG_COMPLETED + ") = 0"
+                    + " ORDER BY r." + REMINDER_DUE_AT;
+            Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(queuedUpTo)});
+            while (cursor.moveToNext()) {
+                reminderList.add(Reminder.builder()
+                        .setId(cursor.getInt(0))
+                        .setTitle(cursor.getString(1))
+                        .setDueAt(cursor.getLong(2))
+                        .setUserId(cursor.getInt(3))
+                        .setDescription(cursor.getString(4))
+                        .build());
+            }
+            cursor.close();
+            db.close();
+            return reminderList;
+        } finally {
+            PerfMetrics.end("db.getDeferredNotifications", start);
+        }
+    }
+
+    /**
+     * Removes a reminder from the queue, once it has an alarm of its own again or no longer
+     * needs a notification, e.g. because it was moved out of quiet hours or deleted after
+     * being queued.
+     *
+     * @param reminderId Reminder ID.
+     */
+    public void removeDeferredNotification(int reminderId) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.delete(TABLE_DEFERRED, DEFERRED_REMINDER_ID + " = ?", new String[]{String.valueOf(reminderId)});
+        db.close();
+    }
+
+    /**
+     * Removes queued notifications once they have been delivered. Entries re-queued after the
+     * given time are kept.
+     *
+     * @param queuedUpTo Latest queue time to remove, in epoch millis.
+     * @return Number of removed entries.
+     */
+    public int removeDeferredNotifications(long queuedUpTo) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int removed = db.delete(TABLE_DEFERRED, DEFERRED_QUEUED_AT + " <= ?", new String[]{String.valueOf(queuedUpTo)});
+        db.close();
+        return removed;
+    }
+
+    // --------------------- Attachment Operations ---------------------
+
+    /**
+     * Attaches an imported file to a reminder.
+     *
+     * @param reminderId Reminder ID.
+     * @param attachment File imported by AttachmentStore.
+     * @return Row ID of the attachment, or -1 on failure.
+     */
+    public long addAttachment(int reminderId, ReminderAttachment attachment) {
+        long start = PerfMetrics.begin("db.addAttachment");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            ContentValues values = new ContentValues();
+            values.put(ATTACHMENT_REMINDER_ID, reminderId);
+            values.put(ATTACHMENT_FILE_NAME, attachment.getFileName());
+            values.put(ATTACHMENT_MIME_TYPE, attachment.getMimeType());
+            values.put(ATTACHMENT_DISPLAY_NAME, attachment.getDisplayName());
+            values.put(ATTACHMENT_CREATED_AT, System.currentTimeMillis());
+            long id = db.insert(TABLE_ATTACHMENTS, null, values);
+            db.close();
+            if (id != -1) {
+                ReminderChangeNotifier.notifyChanged(context, ownerId, reminderId);
+            }
+            return id;
+        } finally {
+            PerfMetrics.end("db.addAttachment", start);
+        }
+    }
+
+    /**
+     * Retrieves the attachments of a reminder.
+     *
+     * @param reminderId Reminder ID.
+     * @return Attachments in the order they were added.
+     */
+    public List<ReminderAttachment> getAttachments(int reminderId) {
+        long start = PerfMetrics.begin("db.getAttachments");
+        try {
+            List<ReminderAttachment> attachments = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
+            Cursor cursor = db.query(TABLE_ATTACHMENTS, new String[]{ATTACHMENT_ID, ATTACHMENT_FILE_NAME,
+                            ATTACHMENT_MIME_TYPE, ATTACHMENT_DISPLAY_NAME},
+                    ATTACHMENT_REMINDER_ID + " = ?", new String[]{String.valueOf(reminderId)}, null, null, ATTACHMENT_ID);
+            while (cursor.moveToNext()) {
+                attachments.add(new ReminderAttachment(cursor.getInt(0), reminderId, cursor.getString(1),
+                        cursor.getString(2), cursor.getString(3)));
+            }
+            cursor.close();
+            db.close();
+            return attachments;
+        } finally {
+            PerfMetrics.end("db.getAttachments", start);
+        }
+    }
+
+    /**
+     * Deletes the attachment rows of the reminders matching a selection. Must run inside the
+     * transaction that deletes the reminders.
+     *
+     * @return Stored file names, to be deleted once the transaction has committed.
+     */
+    private List<String> deleteAttachments(SQLiteDatabase db, String reminderSelection, String[] selectionArgs) {
+        String selection = ATTACHMENT_REMINDER_ID + " IN (SELECT " + REMINDER_ID + " FROM " + TABLE_REMINDER
+                + " WHERE " + reminderSelection + ")";
+        List<String> fileNames = new ArrayList<>();
+        Cursor cursor = db.query(TABLE_ATTACHMENTS, new String[]{ATTACHMENT_FILE_NAME}, selection, selectionArgs,
+                null, null, null);
+        while (cursor.moveToNext()) {
+            fileNames.add(cursor.getString(0));
+        }
+        cursor.close();
+        if (!fileNames.isEmpty()) {
+            db.delete(TABLE_ATTACHMENTS, selection, selectionArgs);
+        }
+        return fileNames;
+    }
+
+    /**
+     * Makes the attachment rows and files agree again after a restore, which brings back the
+     * rows as they were at backup time but leaves the files as they are now. Rows whose file
+     * is gone are dropped and files that no row refers to are deleted. Only for live user
+     * databases, since the files belong to them.
+     *
+     * @return Number of attachment rows dropped.
+     */
+    public int reconcileAttachments() {
+        long start = PerfMetrics.begin("db.reconcileAttachments");
+        try {
+            Set<String> unreferenced = AttachmentStore.listFileNames(context, ownerId);
+            SQLiteDatabase db = this.getWritableDatabase();
+            int dropped = 0;
+            db.beginTransaction();
+            try {
+                Cursor cursor = db.query(TABLE_ATTACHMENTS, new String[]{ATTACHMENT_ID, ATTACHMENT_FILE_NAME},
+                        null, null, null, null, null);
+                while (cursor.moveToNext()) {
+                    if (!unreferenced.remove(cursor.getString(1))) {
+                        dropped += db.delete(TABLE_ATTACHMENTS, ATTACHMENT_ID + " = ?",
+                                new String[]{String.valueOf(cursor.getInt(0))});
+                    }
+                }
+                cursor.close();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            deleteAttachmentFiles(new ArrayList<>(unreferenced));
+            if (dropped > 0) {
+                ReminderChangeNotifier.notifyChanged(context, ownerId, ReminderChangeNotifier.UNKNOWN);
+            }
+            return dropped;
+        } finally {
+            PerfMetrics.end("db.reconcileAttachments", start);
+        }
+    }
+
+    private void deleteAttachmentFiles(List<String> fileNames) {
+        for (String fileName : fileNames) {
+            AttachmentStore.delete(context, ownerId, fileName);
+        }
+    }
+
+    // ----------------------- Stats Operations -----------------------
+
+    /**
+     * Reads the usage statistics from the rollups. The cost depends on the number of weeks
+     * asked for, not on the number of reminders.
+     *
+     * @param weeks Maximum number of most recent weeks to read.
+     * @return Statistics.
+     */
+    public ReminderStats getStats(int weeks) {
+        long start = PerfMetrics.begin("db.getStats");
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            List<ReminderStats.Week> weekly = new ArrayList<>();
+            Cursor cursor = db.query(TABLE_STATS_WEEKLY, new String[]{STATS_WEEK, STATS_CREATED, STATS_COMPLETED,
+                    STATS_COMPLETED_ON_TIME}, null, null, null, null, STATS_WEEK + " DESC", String.valueOf(weeks));
+            while (cursor.moveToNext()) {
+                weekly.add(new ReminderStats.Week(cursor.getString(0), cursor.getInt(1), cursor.getInt(2), cursor.getInt(3)));
+            }
+            cursor.close();
+            int[] dueByHour = new int[24];
+            cursor = db.query(TABLE_STATS_HOURLY, new String[]{STATS_HOUR, STATS_DUE}, null, null, null, null, null);
+            while (cursor.moveToNext()) {
+                int hour = cursor.getInt(0);
+                if (hour >= 0 && hour < dueByHour.length) {
+                    dueByHour[hour] = cursor.getInt(1);
+                }
+            }
+            cursor.close();
+            db.close();
+            return new ReminderStats(weekly, dueByHour);
+        } finally {
+            PerfMetrics.end("db.getStats", start);
+        }
+    }
+
+    /**
+     * Rebuilds the rollups from the reminders in one transaction. Used to repair them, e.g.
+     * after a time zone change moved the local week and hour boundaries.
+     */
+    public void recomputeStats() {
+        long start = PerfMetrics.begin("db.recomputeStats");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            String live = REMINDER_DELETED_AT + " IS NULL";
+            db.beginTransaction();
+            try {
+                db.delete(TABLE_STATS_WEEKLY, null, null);
+                db.delete(TABLE_STATS_HOURLY, null, null);
+                db.execSQL("INSERT INTO " + TABLE_STATS_WEEKLY + "(" + STATS_WEEK + ", " + STATS_CREATED + ", "
+                        + STATS_COMPLETED + ", " + STATS_COMPLETED_ON_TIME + ")"
+                        + " SELECT w, SUM(c), SUM(d), SUM(o) FROM ("
+                        + "SELECT " + statsWeek(REMINDER_CREATED_AT) + " AS w, 1 AS c, 0 AS d, 0 AS o FROM " + TABLE_REMINDER
+                        + " WHERE " + live + " AND " + REMINDER_CREATED_AT + " IS NOT NULL"
+                        + " UNION ALL SELECT " + statsWeek(REMINDER_COMPLETED_AT) + ", 0, 1, COALESCE("
+                        + REMINDER_COMPLETED_AT + " <= " + REMINDER_DUE_AT + ", 0) FROM " + TABLE_REMINDER
+                        + " WHERE " + live + " AND " + REMINDER_COMPLETED_AT + " IS NOT NULL"
+                        + ") WHERE w IS NOT NULL GROUP BY w");
+                db.execSQL("INSERT INTO " + TABLE_STATS_HOURLY + "(" + STATS_HOUR + ", " + STATS_DUE + ")"
+                        + " SELECT h, COUNT(*) FROM (SELECT " + statsHour(REMINDER_DUE_AT) + " AS h FROM " + TABLE_REMINDER
+                        + " WHERE " + live + ") WHERE h IS NOT NULL GROUP BY h");
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+        } finally {
+            PerfMetrics.end("db.recomputeStats", start);
+        }
+    }
+
+    // ----------------------- Draft Operations -----------------------
+
+    /**
+     * Saves the add/edit form contents, replacing any earlier draft for the same reminder.
+     *
+     * @param userId     ID of the user.
+     * @param reminderId Reminder being edited, or 0 for a new reminder.
+     * @param draft      Form contents.
+     */
+    public void saveDraft(int userId, int reminderId, ReminderDraft draft) {
+        long start = PerfMetrics.begin("db.saveDraft");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            ContentValues values = new ContentValues();
+            values.put(DRAFT_USER_ID, userId);
+            values.put(DRAFT_REMINDER_ID, reminderId);
+            values.put(DRAFT_TITLE, draft.getTitle());
+            values.put(DRAFT_DESCRIPTION, draft.getDescription());
+            values.put(DRAFT_DATE, draft.getDate());
+            values.put(DRAFT_TIME, draft.getTime());
+            values.put(DRAFT_UPDATED_AT, System.currentTimeMillis());
+            db.insertWithOnConflict(TABLE_DRAFTS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            db.close();
+        } finally {
+            PerfMetrics.end("db.saveDraft", start);
+        }
+    }
+
+    /**
+     * Retrieves the saved draft for a reminder.
+     *
+     * @param userId     ID of the user.
+     * @param reminderId Reminder being edited, or 0 for a new reminder.
+     * @return Draft if found, null otherwise.
+     */
+    public ReminderDraft getDraft(int userId, int reminderId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_DRAFTS, new String[]{DRAFT_TITLE, DRAFT_DESCRIPTION, DRAFT_DATE, DRAFT_TIME},
+                DRAFT_USER_ID + " = ? AND " + DRAFT_REMINDER_ID + " = ?",
+                new String[]{String.valueOf(userId), String.valueOf(reminderId)}, null, null, null);
+        ReminderDraft draft = null;
+        if (cursor.moveToFirst()) {
+            draft = new ReminderDraft(cursor.getString(0), cursor.getString(1), cursor.getString(2), cursor.getString(3));
+        }
+        cursor.close();
+        db.close();
+        return draft;
+    }
+
+    /**
+     * Deletes the saved draft for a reminder.
+     *
+     * @param userId     ID of the user.
+     * @param reminderId Reminder being edited, or 0 for a new reminder.
+     */
+    public void deleteDraft(int userId, int reminderId) {
         SQLiteDatabase db = this.getWritableDatabase();
-        String whereClause = REMINDER_ID + " = ?";
-        String[] whereArgs = {String.valueOf(id)};
+        db.delete(TABLE_DRAFTS, DRAFT_USER_ID + " = ? AND " + DRAFT_REMINDER_ID + " = ?",
+                new String[]{String.valueOf(userId), String.valueOf(reminderId)});
+        db.close();
+    }
+
+    // ----------------------- Sync Operations -----------------------
+
+    /**
+     * Retrieves the current state of reminders changed after a change log position.
+     * Several changes to the same reminder collapse into one record; deleted reminders
+     * come back as tombstones.
+     *
+     * @param userId   ID of the user.
+     * @param afterSeq Last acknowledged change log position.
+     * @param limit    Maximum number of records.
+     * @return Records ordered by change log position.
+     */
+    public List<SyncRecord> getPendingChanges(int userId, long afterSeq, int limit) {
+        long start = PerfMetrics.begin("db.getPendingChanges");
+        try {
+            List<SyncRecord> records = new ArrayList<>();
+            SQLiteDatabase db = this.getReadableDatabase();
+            String query = "SELECT c." + CHANGE_SEQ + ", c." + CHANGE_REMINDER_UID + ", c." + CHANGE_OP + ", c." + CHANGE_VERSION
+                    + ", c." + CHANGE_CHANGED_AT + ", r." + REMINDER_TITLE + ", r." + REMINDER_DESCRIPTION
+                    + ", r." + REMINDER_DUE_AT + ", r." + REMINDER_FLAGS + ", r." + REMINDER_VERSION + ", r." + REMINDER_UPDATED_AT
+                    + " FROM " + TABLE_CHANGES + " c LEFT JOIN " + TABLE_REMINDER + " r ON r." + REMINDER_UID + " = c." + CHANGE_REMINDER_UID
+                    + " WHERE c." + CHANGE_SEQ + " IN (SELECT MAX(" + CHANGE_SEQ + ") FROM " + TABLE_CHANGES
+                    + " WHERE " + CHANGE_USER_ID + " = ? AND " + CHANGE_SEQ + " > ? GROUP BY " + CHANGE_REMINDER_UID + ")"
+                    + " ORDER BY c." + CHANGE_SEQ + " LIMIT ?";
+            Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(userId), String.valueOf(afterSeq), String.valueOf(limit)});
+            while (cursor.moveToNext()) {
+                long seq = cursor.getLong(0);
+                String uid = cursor.getString(1);
+                if (OP_DELETE.equals(cursor.getString(2)) || cursor.isNull(9)) {
+                    records.add(SyncRecord.tombstone(uid, cursor.getInt(3), cursor.getLong(4), seq));
+                } else {
+                    records.add(new SyncRecord(uid, false, cursor.getInt(9), cursor.getLong(10), cursor.getString(5),
+                            cursor.getString(6), cursor.getLong(7), cursor.getInt(8), seq));
+                }
+            }
+            cursor.close();
+            db.close();
+            return records;
+        } finally {
+            PerfMetrics.end("db.getPendingChanges", start);
+        }
+    }
+
+    /**
+     * @param userId ID of the user.
+     * @return Last change log position acknowledged by the backend, 0 if never synced.
+     */
+    public long getPushSeq(int userId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        long seq = DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(" + SYNC_PUSH_SEQ + "), 0) FROM " + TABLE_SYNC_STATE
+                + " WHERE " + SYNC_USER_ID + " = ?", new String[]{String.valueOf(userId)});
+        db.close();
+        return seq;
+    }
 
-        int rowsDeleted = db.delete(TABLE_REMINDER, whereClause, whereArgs);
+    /**
+     * @param userId ID of the user.
+     * @return Token from the last pull, or null if never synced.
+     */
+    public String getPullToken(int userId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_SYNC_STATE, new String[]{SYNC_PULL_TOKEN}, SYNC_USER_ID + " = ?",
+                new String[]{String.valueOf(userId)}, null, null, null);
+        String token = cursor.moveToFirst() ? cursor.getString(0) : null;
+        cursor.close();
         db.close();
-        return rowsDeleted;
+        return token;
+    }
+
+    /**
+     * Records that the backend received all changes up to a position and drops them from the log.
+     *
+     * @param userId ID of the user.
+     * @param seq    Last change log position sent.
+     */
+    public void acknowledgePush(int userId, long seq) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ensureSyncState(db, userId);
+            ContentValues values = new ContentValues();
+            values.put(SYNC_PUSH_SEQ, seq);
+            db.update(TABLE_SYNC_STATE, values, SYNC_USER_ID + " = ?", new String[]{String.valueOf(userId)});
+            db.delete(TABLE_CHANGES, CHANGE_USER_ID + " = ? AND " + CHANGE_SEQ + " <= ?",
+                    new String[]{String.valueOf(userId), String.valueOf(seq)});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.close();
+    }
+
+    /**
+     * Applies server records that win against the local state, without logging them as
+     * local changes, and stores the new pull token, all in one transaction.
+     *
+     * @param userId     ID of the user.
+     * @param records    Records from the backend.
+     * @param token      Pull token to store.
+     * @param changedIds Receives the IDs of the reminders changed, added or deleted, whose
+     *                   alarms the caller must set again.
+     * @return Number of records applied.
+     */
+    public int applyRemoteRecords(int userId, List<SyncRecord> records, String token, List<Integer> changedIds) {
+        long start = PerfMetrics.begin("db.applyRemoteRecords");
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            int applied = 0;
+            List<String> attachmentFiles = new ArrayList<>();
+            db.beginTransaction();
+            try {
+                ContentValues values = new ContentValues();
+                for (SyncRecord remote : records) {
+                    String[] uidArgs = {remote.getUid()};
+                    SyncRecord local = getLocalSyncRecord(db, remote.getUid());
+                    if (SyncConflictResolver.compare(remote, local) <= 0) {
+                        continue;
+                    }
+                    long id = DatabaseUtils.longForQuery(db, "SELECT ifnull(max(" + REMINDER_ID + "), -1) FROM "
+                            + TABLE_REMINDER + " WHERE " + REMINDER_UID + " = ?", uidArgs);
+                    if (remote.isDeleted()) {
+                        attachmentFiles.addAll(deleteAttachments(db, REMINDER_UID + " = ?", uidArgs));
+                        db.delete(TABLE_REMINDER, REMINDER_UID + " = ?", uidArgs);
+                    } else {
+                        values.clear();
+                        values.put(REMINDER_TITLE, remote.getTitle());
+                        values.put(REMINDER_DESCRIPTION, remote.getDescription());
+                        values.put(REMINDER_DUE_AT, remote.getDueAt());
+                        values.put(REMINDER_FLAGS, remote.getFlags());
+                        values.put(REMINDER_VERSION, remote.getVersion());
+                        values.put(REMINDER_UPDATED_AT, remote.getUpdatedAt());
+                        if (db.update(TABLE_REMINDER, values, REMINDER_UID + " = ?", uidArgs) == 0) {
+                            values.put(REMINDER_UID, remote.getUid());
+                            values.put(REMINDER_USER_ID, userId);
+                            id = db.insert(TABLE_REMINDER, null, values);
+                        }
+                    }
+                    if (id != -1) {
+                        changedIds.add((int) id);
+                    }
+                    // Local changes to this reminder lost the conflict and must not be pushed again
+                    db.delete(TABLE_CHANGES, CHANGE_REMINDER_UID + " = ?", uidArgs);
+                    applied++;
+                }
+                ensureSyncState(db, userId);
+                ContentValues state = new ContentValues();
+                state.put(SYNC_PULL_TOKEN, token);
+                db.update(TABLE_SYNC_STATE, state, SYNC_USER_ID + " = ?", new String[]{String.valueOf(userId)});
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.close();
+            deleteAttachmentFiles(attachmentFiles);
+            if (applied > 0) {
+                ReminderChangeNotifier.notifyChanged(context, userId, ReminderChangeNotifier.UNKNOWN);
+            }
+            PerfMetrics.record("db.applyRemoteRecords.rows", applied);
+            return applied;
+        } finally {
+            PerfMetrics.end("db.applyRemoteRecords", start);
+        }
+    }
+
+    /**
+     * Reads the local state of a reminder by global ID. A reminder that is gone locally
+     * is represented by its pending tombstone, if any.
+     */
+    private SyncRecord getLocalSyncRecord(SQLiteDatabase db, String uid) {
+        Cursor cursor = db.query(TABLE_REMINDER, new String[]{REMINDER_TITLE, REMINDER_DESCRIPTION, REMINDER_DUE_AT,
+                        REMINDER_FLAGS, REMINDER_VERSION, REMINDER_UPDATED_AT},
+                REMINDER_UID + " = ?", new String[]{uid}, null, null, null);
+        SyncRecord record = null;
+        if (cursor.moveToFirst()) {
+            record = new SyncRecord(uid, false, cursor.getInt(4), cursor.getLong(5), cursor.getString(0),
+                    cursor.getString(1), cursor.getLong(2), cursor.getInt(3), 0);
+        }
+        cursor.close();
+        if (record != null) {
+            return record;
+        }
+
+        cursor = db.query(TABLE_CHANGES, new String[]{CHANGE_VERSION, CHANGE_CHANGED_AT},
+                CHANGE_REMINDER_UID + " = ? AND " + CHANGE_OP + " = ?", new String[]{uid, OP_DELETE},
+                null, null, CHANGE_SEQ + " DESC", "1");
+        if (cursor.moveToFirst()) {
+            record = SyncRecord.tombstone(uid, cursor.getInt(0), cursor.getLong(1), 0);
+        }
+        cursor.close();
+        return record;
+    }
+
+    private void ensureSyncState(SQLiteDatabase db, int userId) {
+        ContentValues values = new ContentValues();
+        values.put(SYNC_USER_ID, userId);
+        db.insertWithOnConflict(TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    /**
+     * Reads list rows from a cursor over the list projection.
+     * Column indexes are resolved once, and identical titles share one String.
+     */
+    private void readReminders(Cursor cursor, int userId, List<Reminder> out) {
+        int idIndex = cursor.getColumnIndexOrThrow(REMINDER_ID);
+        int titleIndex = cursor.getColumnIndexOrThrow(REMINDER_TITLE);
+        int descriptionIndex = cursor.getColumnIndexOrThrow(REMINDER_DESCRIPTION);
+        int dueAtIndex = cursor.getColumnIndexOrThrow(REMINDER_DUE_AT);
+        int flagsIndex = cursor.getColumnIndexOrThrow(REMINDER_FLAGS);
+        int tagsIndex = cursor.getColumnIndexOrThrow(REMINDER_TAGS);
+        int priorityIndex = cursor.getColumnIndexOrThrow(REMINDER_PRIORITY);
+        int thumbnailIndex = cursor.getColumnIndexOrThrow(LIST_THUMBNAIL_FILE);
+        Map<String, String> titlePool = new HashMap<>();
+
+        while (cursor.moveToNext()) {
+            String title = cursor.getString(titleIndex);
+            if (title != null) {
+                String shared = titlePool.get(title);
+                if (shared == null) {
+                    titlePool.put(title, title);
+                } else {
+                    title = shared;
+                }
+            }
+
+            out.add(Reminder.builder()
+                    .setId(cursor.getInt(idIndex))
+                    .setTitle(title)
+                    .setDescription(cursor.getString(descriptionIndex))
+                    .setDueAt(cursor.getLong(dueAtIndex))
+                    .setFlags(cursor.getInt(flagsIndex))
+                    .setTags(cursor.getInt(tagsIndex))
+                    .setPriority(cursor.getInt(priorityIndex))
+                    .setUserId(userId)
+                    .setThumbnailFile(cursor.getString(thumbnailIndex))
+                    .build());
+        }
+    }
+
+    /**
+     * Inserts a locally created reminder with a fresh global ID and logs it.
+     * Must run inside a transaction.
+     *
+     * @return Row ID, or -1 on failure.
+     */
+    private long insertLocalReminder(SQLiteDatabase db, ContentValues values, Reminder reminder) {
+        String uid = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        values.clear();
+        putReminderValues(values, reminder);
+        values.put(REMINDER_USER_ID, reminder.getUserId());
+        values.put(REMINDER_UID, uid);
+        values.put(REMINDER_VERSION, 1);
+        values.put(REMINDER_UPDATED_AT, now);
+        long id = db.insert(TABLE_REMINDER, null, values);
+        if (id != -1) {
+            appendChange(db, reminder.getUserId(), uid, OP_UPSERT, 1, now);
+        }
+        return id;
+    }
+
+    /**
+     * Bumps the version of a locally edited reminder and logs the change.
+     * Must run inside the transaction that made the edit.
+     *
+     * @return Owner of the reminder, or {@link ReminderChangeNotifier#UNKNOWN}.
+     */
+    private int recordLocalUpdate(SQLiteDatabase db, int id) {
+        long now = System.currentTimeMillis();
+        db.execSQL("UPDATE " + TABLE_REMINDER + " SET " + REMINDER_VERSION + " = " + REMINDER_VERSION + " + 1, "
+                + REMINDER_UPDATED_AT + " = ? WHERE " + REMINDER_ID + " = ?", new Object[]{now, id});
+        return logRowChange(db, id, OP_UPSERT, 0, now);
+    }
+
+    /**
+     * Logs a tombstone for a reminder that is about to be deleted locally.
+     * Must run inside the transaction that deletes the row.
+     *
+     * @return Owner of the reminder, or {@link ReminderChangeNotifier#UNKNOWN}.
+     */
+    private int recordLocalDelete(SQLiteDatabase db, int id) {
+        return logRowChange(db, id, OP_DELETE, 1, System.currentTimeMillis());
+    }
+
+    private int logRowChange(SQLiteDatabase db, int id, String op, int versionIncrement, long now) {
+        Cursor cursor = db.query(TABLE_REMINDER, new String[]{REMINDER_USER_ID, REMINDER_UID, REMINDER_VERSION},
+                REMINDER_ID + " = ?", new String[]{String.valueOf(id)}, null, null, null);
+        int userId = ReminderChangeNotifier.UNKNOWN;
+        if (cursor.moveToFirst()) {
+            userId = cursor.getInt(0);
+            // Rows without a global ID yet are logged by the version 3 backfill instead
+            if (!cursor.isNull(1)) {
+                appendChange(db, userId, cursor.getString(1), op, cursor.getInt(2) + versionIncrement, now);
+            }
+        }
+        cursor.close();
+        return userId;
+    }
+
+    private void appendChange(SQLiteDatabase db, int userId, String uid, String op, int version, long changedAt) {
+        ContentValues values = new ContentValues();
+        values.put(CHANGE_USER_ID, userId);
+        values.put(CHANGE_REMINDER_UID, uid);
+        values.put(CHANGE_OP, op);
+        values.put(CHANGE_VERSION, version);
+        values.put(CHANGE_CHANGED_AT, changedAt);
+        db.insert(TABLE_CHANGES, null, values);
+    }
+
+    /**
+     * Copies the editable reminder fields into ContentValues.
+     */
+    private void putReminderValues(ContentValues values, Reminder reminder) {
+        values.put(REMINDER_TITLE, reminder.getTitle());
+        values.put(REMINDER_DESCRIPTION, reminder.getDescription());
+        values.put(REMINDER_DUE_AT, reminder.getDueAt());
+        values.put(REMINDER_FLAGS, reminder.getFlags());
+        values.put(REMINDER_TAGS, reminder.getTags());
+        values.put(REMINDER_PRIORITY, reminder.getPriority());
     }
 }
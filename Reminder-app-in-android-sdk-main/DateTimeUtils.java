@@ -0,0 +1,169 @@
+package com.example.reminderapp.utils;
+
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * DateTimeUtils converts between due times stored as epoch milliseconds and the
+ * "d/M/yyyy" and "HH:mm" text shown in the UI. Formatted text is shared through small
+ * bounded caches keyed by local day and minute of the day, so list rows formatting their
+ * due time on every bind reuse a few hundred Strings instead of each keeping their own.
+ */
+public final class DateTimeUtils {
+
+    private static final long MINUTE = 60_000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // Days a list typically spans
+    private static final int DATE_CACHE_SIZE = 64;
+
+    // Indexed by minute of the day; a race only formats a time twice
+    private static final String[] timeText = new String[MINUTES_PER_DAY];
+    // Local epoch day -> text, least recently used evicted first
+    private static final Map<Long, String> dateText = new LinkedHashMap<Long, String>(DATE_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > DATE_CACHE_SIZE;
+        }
+    };
+
+    private DateTimeUtils() {
+    }
+
+    /**
+     * Parses the date and time entered through the pickers into local epoch milliseconds.
+     *
+     * @param date Date as "d/M/yyyy".
+     * @param time Time as "HH:mm".
+     * @return Epoch milliseconds, or -1 if either value cannot be parsed.
+     */
+    public static long parseDueAt(String date, String time) {
+        if (date == null || time == null) {
+            return -1;
+        }
+        String[] dateParts = date.trim().split("/");
+        String[] timeParts = time.trim().split(":");
+        if (dateParts.length != 3 || timeParts.length != 2) {
+            return -1;
+        }
+        try {
+            int day = Integer.parseInt(dateParts[0]);
+            int month = Integer.parseInt(dateParts[1]);
+            int year = Integer.parseInt(dateParts[2]);
+            int hour = Integer.parseInt(timeParts[0]);
+            int minute = Integer.parseInt(timeParts[1]);
+            if (month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return -1;
+            }
+            Calendar calendar = Calendar.getInstance();
+            calendar.clear();
+            calendar.set(year, month - 1, day, hour, minute, 0);
+            return calendar.getTimeInMillis();
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Formats a due time as "d/M/yyyy".
+     *
+     * @param millis Epoch milliseconds.
+     * @return Formatted date.
+     */
+    public static String formatDate(long millis) {
+        long local = toLocal(millis);
+        if (local < 0) {
+            return buildDate(millis);
+        }
+        Long day = local / DAY;
+        String text;
+        synchronized (dateText) {
+            text = dateText.get(day);
+        }
+        if (text == null) {
+            text = buildDate(millis);
+            synchronized (dateText) {
+                dateText.put(day, text);
+            }
+        }
+        return text;
+    }
+
+    private static String buildDate(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar.get(Calendar.DAY_OF_MONTH) + "/" + (calendar.get(Calendar.MONTH) + 1) + "/" + calendar.get(Calendar.YEAR);
+    }
+
+    /**
+     * Formats a due time as "HH:mm".
+     *
+     * @param millis Epoch milliseconds.
+     * @return Formatted time.
+     */
+    public static String formatTime(long millis) {
+        long local = toLocal(millis);
+        if (local < 0) {
+            return buildTime(millis);
+        }
+        int minute = (int) (local / MINUTE % MINUTES_PER_DAY);
+        String text = timeText[minute];
+        if (text == null) {
+            text = buildTime(millis);
+            timeText[minute] = text;
+        }
+        return text;
+    }
+
+    private static String buildTime(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        int hour = calendar.get(Calendar.HOUR_OF_DAY);
+        int minute = calendar.get(Calendar.MINUTE);
+        // Built by hand; String.format parses its pattern on every call
+        return new StringBuilder(5)
+                .append((char) ('0' + hour / 10)).append((char) ('0' + hour % 10))
+                .append(':')
+                .append((char) ('0' + minute / 10)).append((char) ('0' + minute % 10))
+                .toString();
+    }
+
+    /**
+     * @return Wall-clock time in the default time zone, as millis since the local epoch.
+     */
+    private static long toLocal(long millis) {
+        return millis + TimeZone.getDefault().getOffset(millis);
+    }
+
+    /**
+     * Returns local midnight of the day containing the given time, shifted by a number of days.
+     *
+     * @param millis    Epoch milliseconds.
+     * @param dayOffset Days to add, e.g. 1 for the start of tomorrow.
+     * @return Epoch milliseconds of the day start.
+     */
+    public static long startOfDay(long millis, int dayOffset) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, dayOffset);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Returns a sortable integer key for the local day containing a time, as yyyymmdd.
+     *
+     * @param millis Epoch milliseconds.
+     * @return Day key, e.g. 20261019.
+     */
+    public static int dayKey(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar.get(Calendar.YEAR) * 10000 + (calendar.get(Calendar.MONTH) + 1) * 100 + calendar.get(Calendar.DAY_OF_MONTH);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.reminderapp.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.reminderapp.models.ReminderDraft;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DraftAutosaver persists the add/edit form while the user types. Edits are debounced on
+ * the main thread, so a burst of keystrokes becomes one write once typing pauses for
+ * {@link #IDLE_MS}; the write itself runs on a background thread. Writes and clears for
+ * all drafts share one thread, so a clear is never overtaken by an older write.
+ */
+public final class DraftAutosaver {
+
+    // Pause in typing after which the draft is written
+    public static final long IDLE_MS = 1000L;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Supplies the current form contents when a write is due.
+     */
+    public interface Source {
+        ReminderDraft getDraft();
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final int userId;
+    private final int reminderId;
+    private final Source source;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // Whether the form changed since the last write; only touched on the main thread
+    private boolean dirty;
+    private boolean cleared;
+
+    private final Runnable saveRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * @param context    Context.
+     * @param userId     ID of the user.
+     * @param reminderId Reminder being edited, or 0 for a new reminder.
+     * @param source     Supplies the form contents.
+     */
+    public DraftAutosaver(Context context, int userId, int reminderId, Source source) {
+        this.dbHelper = DatabaseHelper.forUser(context, userId);
+        this.userId = userId;
+        this.reminderId = reminderId;
+        this.source = source;
+    }
+
+    /**
+     * Loads the saved draft, if any. Call on the main thread before edits start.
+     *
+     * @return Saved draft, or null.
+     */
+    public ReminderDraft restore() {
+        return dbHelper.getDraft(userId, reminderId);
+    }
+
+    /**
+     * Records that the form changed; the write is pushed back until typing pauses.
+     */
+    public void onEdited() {
+        if (cleared) {
+            return;
+        }
+        dirty = true;
+        handler.removeCallbacks(saveRunnable);
+        handler.postDelayed(saveRunnable, IDLE_MS);
+    }
+
+    /**
+     * Writes any pending change now, e.g. when the activity goes to the background.
+     */
+    public void flush() {
+        handler.removeCallbacks(saveRunnable);
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        final ReminderDraft draft = source.getDraft();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                dbHelper.saveDraft(userId, reminderId, draft);
+            }
+        });
+    }
+
+    /**
+     * Drops the pending write and deletes the saved draft, after the reminder itself was saved.
+     * Later edits are ignored.
+     */
+    public void clear() {
+        handler.removeCallbacks(saveRunnable);
+        dirty = false;
+        cleared = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                dbHelper.deleteDraft(userId, reminderId);
+            }
+        });
+    }
+}
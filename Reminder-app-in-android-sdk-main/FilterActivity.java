@@ -0,0 +1,127 @@
+package com.example.reminderapp.activities;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.CheckBox;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.reminderapp.R;
+import com.example.reminderapp.database.ReminderFilterCache;
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderFilter;
+import com.example.reminderapp.models.ReminderTag;
+import com.example.reminderapp.utils.DateTimeUtils;
+import com.example.reminderapp.utils.SessionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FilterActivity lists the reminders matching a combination of tags, urgency and a due
+ * window, e.g. "urgent AND work, due this week". Each combination is one indexed query,
+ * served from ReminderFilterCache until a write invalidates it.
+ */
+public class FilterActivity extends AppCompatActivity {
+
+    // Maximum number of matching reminders shown
+    private static final int RESULT_LIMIT = 200;
+
+    private CheckBox checkUrgent, checkThisWeek;
+    private TextView textCount;
+    private ArrayAdapter<String> resultsAdapter;
+    private ReminderFilterCache filterCache;
+    private SessionManager sessionManager;
+
+    // Indexed by ReminderTag ordinal
+    private final CheckBox[] tagCheckBoxes = new CheckBox[ReminderTag.values().length];
+    private final List<Reminder> results = new ArrayList<>();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_filter);
+
+        filterCache = ReminderFilterCache.getInstance(this);
+        sessionManager = new SessionManager(this);
+
+        // Initialize views
+        checkUrgent = findViewById(R.id.checkBoxUrgent);
+        checkThisWeek = findViewById(R.id.checkBoxThisWeek);
+        textCount = findViewById(R.id.textFilterCount);
+        ListView listResults = findViewById(R.id.listViewFiltered);
+        resultsAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<String>());
+        listResults.setAdapter(resultsAdapter);
+
+        View.OnClickListener filterChanged = new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                applyFilter();
+            }
+        };
+
+        LinearLayout layoutTags = findViewById(R.id.layoutFilterTags);
+        for (ReminderTag tag : ReminderTag.values()) {
+            CheckBox checkBox = new CheckBox(this);
+            checkBox.setText(tag.getLabel());
+            checkBox.setOnClickListener(filterChanged);
+            layoutTags.addView(checkBox);
+            tagCheckBoxes[tag.ordinal()] = checkBox;
+        }
+        checkUrgent.setOnClickListener(filterChanged);
+        checkThisWeek.setOnClickListener(filterChanged);
+
+        listResults.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                Intent intent = new Intent(FilterActivity.this, AddEditReminderActivity.class);
+                intent.putExtra("REMINDER_ID", results.get(position).getId());
+                startActivity(intent);
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        applyFilter();
+    }
+
+    /**
+     * Builds the filter from the checkboxes and shows its results.
+     */
+    private void applyFilter() {
+        ReminderFilter.Builder builder = ReminderFilter.builder();
+        for (ReminderTag tag : ReminderTag.values()) {
+            if (tagCheckBoxes[tag.ordinal()].isChecked()) {
+                builder.requireTag(tag);
+            }
+        }
+        if (checkUrgent.isChecked()) {
+            builder.setMinPriority(Reminder.PRIORITY_URGENT);
+        }
+        if (checkThisWeek.isChecked()) {
+            // Day-aligned, so the cache key stays the same for the whole day
+            long today = DateTimeUtils.startOfDay(System.currentTimeMillis(), 0);
+            builder.setDueRange(today, DateTimeUtils.startOfDay(today, 7));
+        }
+
+        results.clear();
+        results.addAll(filterCache.get(sessionManager.getUserId(), builder.build(), RESULT_LIMIT));
+
+        List<String> rows = new ArrayList<>(results.size());
+        for (Reminder reminder : results) {
+            String marker = reminder.getPriority() == Reminder.PRIORITY_URGENT ? "! " : "";
+            rows.add(marker + reminder.getDate() + " " + reminder.getTime() + "  " + reminder.getTitle());
+        }
+        resultsAdapter.clear();
+        resultsAdapter.addAll(rows);
+        textCount.setText(results.size() >= RESULT_LIMIT ? RESULT_LIMIT + "+ reminders" : results.size() + " reminders");
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.reminderapp.sync;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * InMemorySyncBackend is an in-process fake sync server for tests and local development.
+ * It keeps the winning state of every reminder and a per-account change sequence; the
+ * pull token is the last sequence number a client has seen.
+ */
+public class InMemorySyncBackend implements SyncBackend {
+
+    private static final class Account {
+        long lastSeq;
+        // seq -> latest state of a reminder; each reminder appears once, at its latest seq
+        final TreeMap<Long, SyncRecord> log = new TreeMap<>();
+        final Map<String, Long> seqByUid = new HashMap<>();
+    }
+
+    private final Map<Integer, Account> accounts = new HashMap<>();
+    private int pushCount;
+    private int pullCount;
+
+    @Override
+    public synchronized byte[] push(int userId, byte[] batch) throws IOException {
+        pushCount++;
+        Account account = account(userId);
+        int accepted = 0;
+        int rejected = 0;
+        for (SyncRecord record : SyncCodec.decodeRecords(batch)) {
+            Long currentSeq = account.seqByUid.get(record.getUid());
+            SyncRecord current = currentSeq == null ? null : account.log.get(currentSeq);
+            if (SyncConflictResolver.compare(record, current) > 0) {
+                if (currentSeq != null) {
+                    account.log.remove(currentSeq);
+                }
+                long seq = ++account.lastSeq;
+                account.log.put(seq, record);
+                account.seqByUid.put(record.getUid(), seq);
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+        return SyncCodec.encodePushResult(accepted, rejected);
+    }
+
+    @Override
+    public synchronized byte[] pull(int userId, String token, int limit) throws IOException {
+        pullCount++;
+        Account account = account(userId);
+        long since = token == null ? 0 : Long.parseLong(token);
+        List<SyncRecord> records = new ArrayList<>();
+        long last = since;
+        for (Map.Entry<Long, SyncRecord> entry : account.log.tailMap(since, false).entrySet()) {
+            if (records.size() == limit) {
+                break;
+            }
+            records.add(entry.getValue());
+            last = entry.getKey();
+        }
+        boolean hasMore = account.log.higherKey(last) != null;
+        return SyncCodec.encodePullBatch(new SyncCodec.PullBatch(records, String.valueOf(last), hasMore));
+    }
+
+    /**
+     * @return Number of push requests served, for asserting that syncs send only deltas.
+     */
+    public synchronized int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * @return Number of pull requests served.
+     */
+    public synchronized int getPullCount() {
+        return pullCount;
+    }
+
+    private Account account(int userId) {
+        Account account = accounts.get(userId);
+        if (account == null) {
+            account = new Account();
+            accounts.put(userId, account);
+        }
+        return account;
+    }
+}
@@ -1,14 +1,27 @@
 package com.example.reminderapp.activities;
 
 import android.annotation.SuppressLint;
+import android.app.TimePickerDialog;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.EditText;
 import android.widget.ListView;
+import android.widget.TextView;
+import android.widget.TimePicker;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
@@ -16,25 +29,77 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.reminderapp.R;
 import com.example.reminderapp.adapters.ReminderAdapter;
+import com.example.reminderapp.database.BackfillRunner;
 import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.database.ReminderBackup;
+import com.example.reminderapp.database.ReminderPurger;
 import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderSection;
+import com.example.reminderapp.utils.CacheRegistry;
+import com.example.reminderapp.utils.DateTimeUtils;
+import com.example.reminderapp.utils.NotificationPolicy;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.QuickAddParser;
+import com.example.reminderapp.utils.ReminderScheduler;
 import com.example.reminderapp.utils.SessionManager;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.snackbar.Snackbar;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * MainActivity displays the list of reminders and handles logout.
+ * MainActivity displays the reminders grouped into overdue, today, upcoming and completed
+ * sections, and handles logout.
  */
-public class MainActivity extends AppCompatActivity implements ReminderAdapter.OnItemClickListener, ReminderAdapter.OnDeleteClickListener {
+public class MainActivity extends AppCompatActivity implements ReminderAdapter.OnItemClickListener, ReminderAdapter.OnDeleteClickListener,
+        ReminderAdapter.OnSectionClickListener, ReminderAdapter.OnCompleteToggleListener {
+
+    // Number of reminders loaded per section page
+    private static final int PAGE_SIZE = 50;
+
+    // Deletes made within this window are written with a single UPDATE
+    private static final long DELETE_COALESCE_MS = 1000;
+
+    // Request codes for the backup and restore document pickers
+    private static final int REQUEST_BACKUP = 1;
+    private static final int REQUEST_RESTORE = 2;
 
     private ListView listViewReminders; // Correct ID
     private ReminderAdapter reminderAdapter;
     private DatabaseHelper dbHelper;
-    private List<Reminder> reminderList;
     private FloatingActionButton fabAdd;
     private SessionManager sessionManager;
 
+    // Quick-add bar; the parser and result are reused on every keystroke
+    private EditText editQuickAdd;
+    private Button btnQuickAdd;
+    private TextView textQuickAddPreview;
+    private final QuickAddParser quickAddParser = new QuickAddParser();
+    private final QuickAddParser.Result quickAddResult = new QuickAddParser.Result();
+
+    // Section state: counts from SQL, loaded pages, and which sections are expanded
+    private int[] sectionCounts = new int[ReminderSection.values().length];
+    private final Map<ReminderSection, List<Reminder>> sectionReminders = new EnumMap<>(ReminderSection.class);
+    private final Set<ReminderSection> expandedSections = EnumSet.of(ReminderSection.TODAY, ReminderSection.UPCOMING);
+    private boolean scrolledToToday = false;
+
+    // Deletes not yet written; flushed together after DELETE_COALESCE_MS
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Reminder> pendingDeletes = new ArrayList<>();
+    private final Runnable flushDeletes = new Runnable() {
+        @Override
+        public void run() {
+            flushPendingDeletes();
+        }
+    };
+
     @SuppressLint("MissingInflatedId")
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -49,14 +114,17 @@ public class MainActivity extends AppCompatActivity implements ReminderAdapter.O
             Intent intent = new Intent(MainActivity.this, LoginActivity.class);
             startActivity(intent);
             finish();
+            return;
         }
 
-        // Initialize DatabaseHelper
-        dbHelper = new DatabaseHelper(this);
+        // The user's own database; its file is opened by the first query
+        dbHelper = DatabaseHelper.forUser(this, sessionManager.getUserId());
 
         // Initialize views
         listViewReminders = findViewById(R.id.listViewReminders); // Correct ID
         fabAdd = findViewById(R.id.fabAdd);
+        reminderAdapter = new ReminderAdapter(this, this, this, this, this);
+        listViewReminders.setAdapter(reminderAdapter);
 
         // Set listener for FAB to add new reminder
         fabAdd.setOnClickListener(new View.OnClickListener() {
@@ -67,8 +135,135 @@ public class MainActivity extends AppCompatActivity implements ReminderAdapter.O
             }
         });
 
+        setUpQuickAdd();
+
         // Load reminders
         loadReminders();
+
+        runBackfills();
+    }
+
+    /**
+     * Finishes data migrations left by a schema upgrade in the background, showing progress
+     * while they run and reloading the list once they are done.
+     */
+    private void runBackfills() {
+        BackfillRunner.runAsync(this, new BackfillRunner.Listener() {
+            private Snackbar progressBar;
+
+            @Override
+            public void onProgress(long done, long total) {
+                String text = "Updating reminders... " + (done * 100 / total) + "%";
+                if (progressBar == null) {
+                    progressBar = Snackbar.make(listViewReminders, text, Snackbar.LENGTH_INDEFINITE);
+                    progressBar.show();
+                } else {
+                    progressBar.setText(text);
+                }
+            }
+
+            @Override
+            public void onFinished() {
+                if (progressBar != null) {
+                    progressBar.dismiss();
+                }
+                if (!isFinishing() && !isDestroyed()) {
+                    loadReminders();
+                }
+            }
+        });
+    }
+
+    /**
+     * Parses the quick-add line on every keystroke to show a live preview, and adds the
+     * reminder without opening the form.
+     */
+    private void setUpQuickAdd() {
+        editQuickAdd = findViewById(R.id.editTextQuickAdd);
+        btnQuickAdd = findViewById(R.id.buttonQuickAdd);
+        textQuickAddPreview = findViewById(R.id.textQuickAddPreview);
+
+        editQuickAdd.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                updateQuickAddPreview();
+            }
+        });
+
+        btnQuickAdd.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                quickAdd();
+            }
+        });
+    }
+
+    private void updateQuickAddPreview() {
+        String line = editQuickAdd.getText().toString();
+        if (line.trim().isEmpty()) {
+            textQuickAddPreview.setVisibility(View.GONE);
+            btnQuickAdd.setEnabled(false);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        quickAddParser.parse(line, now, quickAddResult);
+        StringBuilder preview = new StringBuilder(quickAddResult.getTitle().isEmpty() ? "(no title)" : quickAddResult.getTitle());
+        if (quickAddResult.getRecurrence() != QuickAddParser.RECUR_NONE) {
+            // Reminders cannot repeat until recurrence is persisted (see QuickAddParser);
+            // saying so beats quietly adding a one-off reminder
+            preview.append(" - repeating reminders are not supported yet");
+        } else if (quickAddResult.getDueAt() == -1) {
+            preview.append(" - add a time, e.g. \"tomorrow 9am\"");
+        } else {
+            preview.append(" - ").append(DateTimeUtils.formatDate(quickAddResult.getDueAt()))
+                    .append(' ').append(DateTimeUtils.formatTime(quickAddResult.getDueAt()));
+            if (quickAddResult.getDueAt() <= now) {
+                preview.append(" (already passed)");
+            }
+        }
+        textQuickAddPreview.setText(preview);
+        textQuickAddPreview.setVisibility(View.VISIBLE);
+        btnQuickAdd.setEnabled(isQuickAddable(now));
+    }
+
+    /**
+     * A parse can be added if it has a title and a future due time, and does not repeat.
+     */
+    private boolean isQuickAddable(long now) {
+        return !quickAddResult.getTitle().isEmpty() && quickAddResult.getDueAt() > now
+                && quickAddResult.getRecurrence() == QuickAddParser.RECUR_NONE;
+    }
+
+    /**
+     * Adds the reminder described by the quick-add line.
+     */
+    private void quickAdd() {
+        long now = System.currentTimeMillis();
+        quickAddParser.parse(editQuickAdd.getText().toString(), now, quickAddResult);
+        if (!isQuickAddable(now)) {
+            return;
+        }
+        Reminder reminder = Reminder.builder()
+                .setTitle(quickAddResult.getTitle())
+                .setDueAt(quickAddResult.getDueAt())
+                .setUserId(sessionManager.getUserId())
+                .build();
+        long id = dbHelper.addReminder(reminder);
+        if (id != -1) {
+            ReminderScheduler.schedule(this, reminder.toBuilder().setId((int) id).build());
+            editQuickAdd.setText("");
+            loadReminders();
+        } else {
+            Toast.makeText(this, "Failed to add reminder.", Toast.LENGTH_SHORT).show();
+        }
     }
 
     @Override
@@ -77,14 +272,176 @@ public class MainActivity extends AppCompatActivity implements ReminderAdapter.O
         loadReminders();
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        flushPendingDeletes();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Purge deletes whose undo window has passed
+        ReminderPurger.purgeAsync(this);
+    }
+
     /**
-     * Loads reminders from the database and sets up the ListView.
+     * Loads section counts with one aggregate query, then reloads only the expanded
+     * sections, keeping as many rows as were already paged in.
      */
     private void loadReminders() {
+        long start = PerfMetrics.begin("main.loadReminders");
+        try {
+            // Write pending deletes first so the reload does not bring the rows back
+            flushPendingDeletes();
+            int userId = sessionManager.getUserId();
+            long now = System.currentTimeMillis();
+            long startOfTomorrow = DateTimeUtils.startOfDay(now, 1);
+
+            sectionCounts = dbHelper.getSectionCounts(userId, now, startOfTomorrow);
+            for (ReminderSection section : ReminderSection.values()) {
+                if (!expandedSections.contains(section)) {
+                    sectionReminders.remove(section);
+                    continue;
+                }
+                List<Reminder> loaded = sectionReminders.get(section);
+                int limit = Math.max(PAGE_SIZE, loaded == null ? 0 : loaded.size());
+                sectionReminders.put(section, dbHelper.getSectionReminders(userId, section, now, startOfTomorrow, 0, limit));
+            }
+            reminderAdapter.setSections(sectionCounts, sectionReminders, expandedSections);
+
+            // Open the list at today's reminders instead of overdue history
+            if (!scrolledToToday) {
+                listViewReminders.setSelection(reminderAdapter.getSectionPosition(ReminderSection.TODAY));
+                scrolledToToday = true;
+            }
+        } finally {
+            PerfMetrics.end("main.loadReminders", start);
+        }
+    }
+
+    /**
+     * Loads the next page of a section and appends it.
+     *
+     * @param section Section to page.
+     */
+    private void loadMore(ReminderSection section) {
         int userId = sessionManager.getUserId();
-        reminderList = dbHelper.getAllReminders(userId);
-        reminderAdapter = new ReminderAdapter(this, reminderList, this, this);
-        listViewReminders.setAdapter(reminderAdapter);
+        long now = System.currentTimeMillis();
+        long startOfTomorrow = DateTimeUtils.startOfDay(now, 1);
+
+        List<Reminder> loaded = sectionReminders.get(section);
+        if (loaded == null) {
+            loaded = new ArrayList<>();
+            sectionReminders.put(section, loaded);
+        }
+        loaded.addAll(dbHelper.getSectionReminders(userId, section, now, startOfTomorrow, loaded.size(), PAGE_SIZE));
+        reminderAdapter.setSections(sectionCounts, sectionReminders, expandedSections);
+    }
+
+    /**
+     * Checks whether this is a debuggable build.
+     *
+     * @return true for debug builds.
+     */
+    private boolean isDebuggable() {
+        return (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    /**
+     * Shows the performance aggregates collected by PerfMetrics.
+     */
+    private void showPerfStats() {
+        new AlertDialog.Builder(this)
+                .setTitle("Performance stats")
+                .setMessage(PerfMetrics.dump() + CacheRegistry.dump())
+                .setPositiveButton("Close", null)
+                .setNeutralButton("Reset", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        PerfMetrics.reset();
+                    }
+                })
+                .show();
+    }
+
+    /**
+     * Shows the quiet hours and rate limit settings. Saving flushes the deferred queue right
+     * away, so nothing stays held back by settings that no longer apply.
+     */
+    private void showNotificationSettings() {
+        final NotificationPolicy policy = new NotificationPolicy(this);
+        final int[] window = {policy.getQuietStart(), policy.getQuietEnd()};
+        View view = getLayoutInflater().inflate(R.layout.dialog_notification_settings, null);
+        final CheckBox checkQuietHours = view.findViewById(R.id.checkBoxQuietHours);
+        final Button btnQuietStart = view.findViewById(R.id.buttonQuietStart);
+        final Button btnQuietEnd = view.findViewById(R.id.buttonQuietEnd);
+        final EditText editBudget = view.findViewById(R.id.editTextBudget);
+
+        checkQuietHours.setChecked(policy.isQuietHoursEnabled());
+        btnQuietStart.setText("From " + formatMinuteOfDay(window[0]));
+        btnQuietEnd.setText("To " + formatMinuteOfDay(window[1]));
+        editBudget.setText(String.valueOf(policy.getBudgetPerMinute()));
+
+        btnQuietStart.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                showMinuteOfDayPicker(window, 0, btnQuietStart, "From ");
+            }
+        });
+        btnQuietEnd.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                showMinuteOfDayPicker(window, 1, btnQuietEnd, "To ");
+            }
+        });
+
+        new AlertDialog.Builder(this)
+                .setTitle("Notification settings")
+                .setView(view)
+                .setPositiveButton("Save", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        policy.save(checkQuietHours.isChecked(), window[0], window[1],
+                                NotificationPolicy.parseBudget(editBudget.getText().toString()));
+                        // Reminders moved into quiet hours are queued, those moved out of them armed
+                        final Context appContext = getApplicationContext();
+                        new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                ReminderScheduler.rescheduleAll(appContext);
+                                ReminderScheduler.scheduleDeferredFlush(appContext, System.currentTimeMillis());
+                            }
+                        }).start();
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showMinuteOfDayPicker(final int[] window, final int index, final Button button, final String label) {
+        new TimePickerDialog(this, new TimePickerDialog.OnTimeSetListener() {
+            @Override
+            public void onTimeSet(TimePicker view, int hourOfDay, int minute) {
+                window[index] = hourOfDay * 60 + minute;
+                button.setText(label + formatMinuteOfDay(window[index]));
+            }
+        }, window[index] / 60, window[index] % 60, true).show();
+    }
+
+    private static String formatMinuteOfDay(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    /**
+     * Exports performance aggregates via "adb shell dumpsys activity top".
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.print(prefix);
+        writer.println("PerfMetrics:");
+        writer.print(PerfMetrics.dump());
     }
 
     /**
@@ -97,6 +454,9 @@ public class MainActivity extends AppCompatActivity implements ReminderAdapter.O
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
         inflater.inflate(R.menu.main_menu, menu); // Ensure main_menu.xml exists and has 'logout' ID
+        menu.findItem(R.id.perf_stats).setVisible(isDebuggable());
+        menu.findItem(R.id.backup).setVisible(ReminderBackup.isSupported());
+        menu.findItem(R.id.restore).setVisible(ReminderBackup.isSupported());
         return true;
     }
 
@@ -108,6 +468,41 @@ public class MainActivity extends AppCompatActivity implements ReminderAdapter.O
      */
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.calendar) {
+            startActivity(new Intent(MainActivity.this, CalendarActivity.class));
+            return true;
+        }
+        if (item.getItemId() == R.id.filter) {
+            startActivity(new Intent(MainActivity.this, FilterActivity.class));
+            return true;
+        }
+        if (item.getItemId() == R.id.stats) {
+            startActivity(new Intent(MainActivity.this, StatsActivity.class));
+            return true;
+        }
+        if (item.getItemId() == R.id.notification_settings) {
+            showNotificationSettings();
+            return true;
+        }
+        if (item.getItemId() == R.id.backup) {
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("application/octet-stream");
+            intent.putExtra(Intent.EXTRA_TITLE, "reminders.rmbak");
+            startActivityForResult(intent, REQUEST_BACKUP);
+            return true;
+        }
+        if (item.getItemId() == R.id.restore) {
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("*/*");
+            startActivityForResult(intent, REQUEST_RESTORE);
+            return true;
+        }
+        if (item.getItemId() == R.id.perf_stats) {
+            showPerfStats();
+            return true;
+        }
         if (item.getItemId() == R.id.logout) { // Ensure 'logout' ID exists in menu
             // Show confirmation dialog
             new AlertDialog.Builder(this)
@@ -116,23 +511,99 @@ public class MainActivity extends AppCompatActivity implements ReminderAdapter.O
                     .setPositiveButton("Yes", new DialogInterface.OnClickListener() {
                         @Override
                         public void onClick(DialogInterface dialog, int which) {
-                            // Clear user session
-                            sessionManager.logoutUser();
-
-                            // Redirect to LoginActivity
-                            Intent intent = new Intent(MainActivity.this, LoginActivity.class);
-                            intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
-                            startActivity(intent);
-                            finish();
+                            logout();
                         }
                     })
                     .setNegativeButton("No", null)
                     .show();
             return true;
         }
+        if (item.getItemId() == R.id.delete_account) {
+            new AlertDialog.Builder(this)
+                    .setTitle("Delete account")
+                    .setMessage("Your account and all of its reminders will be deleted from this device.")
+                    .setPositiveButton("Delete", new DialogInterface.OnClickListener() {
+                        @Override
+                        public void onClick(DialogInterface dialog, int which) {
+                            deleteAccount();
+                        }
+                    })
+                    .setNegativeButton("Cancel", null)
+                    .show();
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 
+    private void logout() {
+        // Close the user's database along with the session
+        dbHelper.close();
+        sessionManager.logoutUser();
+
+        // Redirect to LoginActivity
+        Intent intent = new Intent(MainActivity.this, LoginActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
+        startActivity(intent);
+        finish();
+    }
+
+    /**
+     * Cancels the user's alarms, then deletes the account; the reminders go with their
+     * database file.
+     */
+    private void deleteAccount() {
+        int userId = sessionManager.getUserId();
+        for (int id : dbHelper.getReminderIdsDueAfter(System.currentTimeMillis())) {
+            ReminderScheduler.cancel(this, userId, id);
+        }
+        dbHelper.close();
+        new DatabaseHelper(this).deleteUser(userId);
+        logout();
+    }
+
+    /**
+     * Starts a backup or restore once the user has picked the document.
+     */
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (resultCode != RESULT_OK || data == null || data.getData() == null) {
+            return;
+        }
+        if (requestCode == REQUEST_BACKUP) {
+            ReminderBackup.backupAsync(this, data.getData(), backupCallback);
+        } else if (requestCode == REQUEST_RESTORE) {
+            confirmRestore(data.getData());
+        }
+    }
+
+    private void confirmRestore(final Uri uri) {
+        new AlertDialog.Builder(this)
+                .setTitle("Restore backup")
+                .setMessage("All reminders and accounts on this device will be replaced by the backup.")
+                .setPositiveButton("Restore", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        ReminderBackup.restoreAsync(MainActivity.this, uri, backupCallback);
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private final ReminderBackup.Callback backupCallback = new ReminderBackup.Callback() {
+        @Override
+        public void onFinished(boolean success, String message) {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+            if (success) {
+                loadReminders();
+            }
+        }
+    };
+
     /**
      * Handles reminder item clicks for editing.
      *
@@ -140,37 +611,140 @@ public class MainActivity extends AppCompatActivity implements ReminderAdapter.O
      */
     @Override
     public void onItemClick(int position) {
-        Reminder reminder = reminderList.get(position);
+        Reminder reminder = reminderAdapter.getReminder(position);
         Intent intent = new Intent(MainActivity.this, AddEditReminderActivity.class);
         intent.putExtra("REMINDER_ID", reminder.getId());
         startActivity(intent);
     }
 
     /**
-     * Handles reminder item deletions.
+     * Handles reminder item deletions. The row is removed from the list right away and an
+     * Undo snackbar is shown; deletes made in quick succession are written together.
      *
      * @param position Position of the item to delete.
      */
     @Override
     public void onDeleteClick(int position) {
-        Reminder reminder = reminderList.get(position);
-        // Show confirmation dialog
-        new AlertDialog.Builder(this)
-                .setTitle("Delete Reminder")
-                .setMessage("Are you sure you want to delete this reminder?")
-                .setPositiveButton("Yes", new DialogInterface.OnClickListener() {
+        final Reminder reminder = reminderAdapter.getReminder(position);
+        if (reminder == null) {
+            return;
+        }
+        ReminderSection section = reminderAdapter.getSection(position);
+        List<Reminder> loaded = sectionReminders.get(section);
+        if (loaded != null) {
+            loaded.remove(reminder);
+        }
+        sectionCounts[section.ordinal()]--;
+        reminderAdapter.setSections(sectionCounts, sectionReminders, expandedSections);
+
+        pendingDeletes.add(reminder);
+        handler.removeCallbacks(flushDeletes);
+        handler.postDelayed(flushDeletes, DELETE_COALESCE_MS);
+
+        Snackbar.make(listViewReminders, "Reminder deleted.", Snackbar.LENGTH_LONG)
+                .setAction("Undo", new View.OnClickListener() {
                     @Override
-                    public void onClick(DialogInterface dialog, int which) {
-                        int result = dbHelper.deleteReminder(reminder.getId());
-                        if (result > 0) {
-                            Toast.makeText(MainActivity.this, "Reminder deleted.", Toast.LENGTH_SHORT).show();
-                            loadReminders();
-                        } else {
-                            Toast.makeText(MainActivity.this, "Failed to delete reminder.", Toast.LENGTH_SHORT).show();
-                        }
+                    public void onClick(View view) {
+                        undoDelete(reminder);
                     }
                 })
-                .setNegativeButton("No", null)
                 .show();
     }
+
+    /**
+     * Writes all pending deletes with one soft-delete UPDATE and cancels their alarms.
+     */
+    private void flushPendingDeletes() {
+        handler.removeCallbacks(flushDeletes);
+        if (pendingDeletes.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (Reminder reminder : pendingDeletes) {
+            ids.add(reminder.getId());
+        }
+        pendingDeletes.clear();
+
+        if (dbHelper.softDeleteReminders(sessionManager.getUserId(), ids) > 0) {
+            for (int id : ids) {
+                ReminderScheduler.cancel(this, sessionManager.getUserId(), id);
+            }
+        } else {
+            Toast.makeText(MainActivity.this, "Failed to delete reminder.", Toast.LENGTH_SHORT).show();
+            loadReminders();
+        }
+    }
+
+    /**
+     * Restores a deleted reminder: drops it from the pending batch if it was not written
+     * yet, otherwise clears its soft-delete mark and reschedules its alarm.
+     *
+     * @param reminder Reminder to restore.
+     */
+    private void undoDelete(Reminder reminder) {
+        if (!pendingDeletes.remove(reminder)) {
+            List<Integer> ids = new ArrayList<>();
+            ids.add(reminder.getId());
+            if (dbHelper.restoreReminders(sessionManager.getUserId(), ids) == 0) {
+                Toast.makeText(MainActivity.this, "Reminder can no longer be restored.", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            // The list row only holds a description preview; the notification needs the full text
+            Reminder restored = dbHelper.getReminder(reminder.getId());
+            if (restored != null) {
+                ReminderScheduler.schedule(this, restored);
+            }
+        }
+        loadReminders();
+    }
+
+    /**
+     * Expands or collapses a section. Collapsed sections are not queried.
+     *
+     * @param section Section whose header was clicked.
+     */
+    @Override
+    public void onSectionHeaderClick(ReminderSection section) {
+        if (expandedSections.contains(section)) {
+            expandedSections.remove(section);
+            sectionReminders.remove(section);
+            reminderAdapter.setSections(sectionCounts, sectionReminders, expandedSections);
+        } else {
+            expandedSections.add(section);
+            loadMore(section);
+        }
+    }
+
+    /**
+     * Loads the next page of a section.
+     *
+     * @param section Section whose "show more" row was clicked.
+     */
+    @Override
+    public void onSectionMoreClick(ReminderSection section) {
+        loadMore(section);
+    }
+
+    /**
+     * Marks a reminder as done or not done and refreshes the sections.
+     *
+     * @param position  Position of the toggled item.
+     * @param completed New completion state.
+     */
+    @Override
+    public void onCompleteToggle(int position, boolean completed) {
+        Reminder reminder = reminderAdapter.getReminder(position);
+        if (reminder != null && dbHelper.setCompleted(reminder.getId(), completed) > 0) {
+            if (completed) {
+                ReminderScheduler.cancel(this, reminder.getUserId(), reminder.getId());
+            } else {
+                // Reload the full row; the list row only holds a description preview
+                Reminder reopened = dbHelper.getReminder(reminder.getId());
+                if (reopened != null) {
+                    ReminderScheduler.schedule(this, reopened);
+                }
+            }
+            loadReminders();
+        }
+    }
 }
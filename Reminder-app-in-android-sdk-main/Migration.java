@@ -0,0 +1,48 @@
+package com.example.reminderapp.database;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Migration is one step of the schema history, bringing the database to {@link #version}.
+ * {@link #apply} runs inside the upgrade transaction that SQLiteOpenHelper holds while the
+ * database is opened, so it must only do work whose cost does not grow with the data, such
+ * as creating tables and indexes or adding columns. Per-row work goes into {@link #backfill},
+ * which DatabaseHelper runs after the upgrade, one chunk of rows per transaction.
+ */
+abstract class Migration {
+
+    final int version;
+
+    /**
+     * @param version Schema version this step upgrades to.
+     */
+    Migration(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Changes the schema. Runs inside the upgrade transaction.
+     *
+     * @param db Database being upgraded.
+     */
+    abstract void apply(SQLiteDatabase db);
+
+    /**
+     * @return Table whose rows the backfill walks in rowid order, or null if this step has none.
+     */
+    String getBackfillTable() {
+        return null;
+    }
+
+    /**
+     * Migrates the rows of the backfill table with rowids in (afterId, upToId]. Runs inside a
+     * transaction that also records the progress, so an interrupted backfill resumes after
+     * the last committed chunk. Rows written after the upgrade are never passed in.
+     *
+     * @param db      Database.
+     * @param afterId Exclusive lower rowid bound.
+     * @param upToId  Inclusive upper rowid bound.
+     */
+    void backfill(SQLiteDatabase db, long afterId, long upToId) {
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.reminderapp.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Calendar;
+
+/**
+ * NotificationPolicy holds the user's quiet hours and per-minute notification budget, and
+ * tracks how much of the current minute's budget has been used.
+ */
+public class NotificationPolicy {
+    private static final String PREF_NAME = "notification_policy";
+    private static final String KEY_QUIET_ENABLED = "quiet_enabled";
+    private static final String KEY_QUIET_START = "quiet_start";
+    private static final String KEY_QUIET_END = "quiet_end";
+    private static final String KEY_BUDGET_PER_MINUTE = "budget_per_minute";
+    private static final String KEY_BUDGET_MINUTE = "budget_minute";
+    private static final String KEY_BUDGET_USED = "budget_used";
+
+    // Quiet hours are stored as minutes since local midnight
+    private static final int DEFAULT_QUIET_START = 22 * 60;
+    private static final int DEFAULT_QUIET_END = 7 * 60;
+    private static final int DEFAULT_BUDGET_PER_MINUTE = 5;
+    // Anything higher is effectively no limit; matches the settings field's maxLength
+    public static final int MAX_BUDGET_PER_MINUTE = 999;
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private SharedPreferences pref;
+
+    /**
+     * Constructor initializes SharedPreferences.
+     *
+     * @param context Context.
+     */
+    public NotificationPolicy(Context context) {
+        pref = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    public boolean isQuietHoursEnabled() {
+        return pref.getBoolean(KEY_QUIET_ENABLED, false);
+    }
+
+    /**
+     * @return Quiet hours start in minutes since local midnight.
+     */
+    public int getQuietStart() {
+        return pref.getInt(KEY_QUIET_START, DEFAULT_QUIET_START);
+    }
+
+    /**
+     * @return Quiet hours end in minutes since local midnight.
+     */
+    public int getQuietEnd() {
+        return pref.getInt(KEY_QUIET_END, DEFAULT_QUIET_END);
+    }
+
+    /**
+     * @return Maximum notifications posted per minute, or 0 for no limit.
+     */
+    public int getBudgetPerMinute() {
+        return pref.getInt(KEY_BUDGET_PER_MINUTE, DEFAULT_BUDGET_PER_MINUTE);
+    }
+
+    /**
+     * Reads a budget typed into the settings field.
+     *
+     * @param text Field text.
+     * @return Budget clamped to 0..{@link #MAX_BUDGET_PER_MINUTE}; 0 (no limit) if empty or not a number.
+     */
+    public static int parseBudget(String text) {
+        String digits = text.trim();
+        if (digits.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Math.min(Integer.parseInt(digits), MAX_BUDGET_PER_MINUTE));
+        } catch (NumberFormatException e) {
+            // Too many digits for an int
+            return digits.matches("\\d+") ? MAX_BUDGET_PER_MINUTE : 0;
+        }
+    }
+
+    /**
+     * Saves the user's settings.
+     *
+     * @param quietEnabled    Whether quiet hours apply.
+     * @param quietStart      Quiet hours start in minutes since local midnight.
+     * @param quietEnd        Quiet hours end in minutes since local midnight.
+     * @param budgetPerMinute Maximum notifications per minute, or 0 for no limit; clamped to
+     *                        0..{@link #MAX_BUDGET_PER_MINUTE}.
+     */
+    public void save(boolean quietEnabled, int quietStart, int quietEnd, int budgetPerMinute) {
+        pref.edit()
+                .putBoolean(KEY_QUIET_ENABLED, quietEnabled)
+                .putInt(KEY_QUIET_START, quietStart)
+                .putInt(KEY_QUIET_END, quietEnd)
+                .putInt(KEY_BUDGET_PER_MINUTE, Math.max(0, Math.min(budgetPerMinute, MAX_BUDGET_PER_MINUTE)))
+                .commit();
+    }
+
+    /**
+     * Checks whether a time falls inside quiet hours. The window may wrap past midnight.
+     *
+     * @param millis Time in epoch millis.
+     * @return true if notifications at that time should be held back.
+     */
+    public boolean isQuiet(long millis) {
+        int start = getQuietStart();
+        int end = getQuietEnd();
+        if (!isQuietHoursEnabled() || start == end) {
+            return false;
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        int minute = calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+        return start < end ? minute >= start && minute < end : minute >= start || minute < end;
+    }
+
+    /**
+     * Returns the first end of quiet hours after a time, i.e. the end of the window containing it.
+     *
+     * @param millis Time in epoch millis.
+     * @return End of quiet hours in epoch millis.
+     */
+    public long quietEndAfter(long millis) {
+        int end = getQuietEnd();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        calendar.set(Calendar.HOUR_OF_DAY, end / 60);
+        calendar.set(Calendar.MINUTE, end % 60);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        if (calendar.getTimeInMillis() <= millis) {
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Takes one notification from the current minute's budget.
+     *
+     * @param now Current time in epoch millis.
+     * @return true if the notification may be posted now.
+     */
+    public boolean tryAcquire(long now) {
+        int budget = getBudgetPerMinute();
+        if (budget <= 0) {
+            return true;
+        }
+        long minute = now / MINUTE_MILLIS;
+        int used = pref.getLong(KEY_BUDGET_MINUTE, -1) == minute ? pref.getInt(KEY_BUDGET_USED, 0) : 0;
+        if (used >= budget) {
+            return false;
+        }
+        pref.edit()
+                .putLong(KEY_BUDGET_MINUTE, minute)
+                .putInt(KEY_BUDGET_USED, used + 1)
+                .apply();
+        return true;
+    }
+
+    /**
+     * @param now Current time in epoch millis.
+     * @return Start of the next minute, when a fresh budget is available.
+     */
+    public static long nextMinute(long now) {
+        return (now / MINUTE_MILLIS + 1) * MINUTE_MILLIS;
+    }
+}
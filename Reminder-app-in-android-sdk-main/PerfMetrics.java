@@ -0,0 +1,168 @@
+package com.example.reminderapp.utils;
+
+import android.os.SystemClock;
+import android.os.Trace;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * PerfMetrics records trace sections, latency histograms and value histograms
+ * (e.g. rows returned) for hot paths in the app.
+ * When disabled, begin() and record() return after a single volatile read.
+ * Callers close sections in a finally block, so an exception never leaves one open.
+ */
+public final class PerfMetrics {
+
+    private static volatile boolean enabled = false;
+    private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private PerfMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording on or off for the process; ReminderApplication enables it on debug builds.
+     */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Opens a trace section and starts timing.
+     *
+     * @param section Section name, shown in Perfetto/systrace.
+     * @return Start timestamp to pass to end(), or 0 if instrumentation is disabled.
+     */
+    public static long begin(String section) {
+        if (!enabled) {
+            return 0;
+        }
+        Trace.beginSection(section);
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Closes the trace section opened by begin() and records its latency in microseconds.
+     *
+     * @param section    Section name passed to begin().
+     * @param startNanos Value returned by begin().
+     */
+    public static void end(String section, long startNanos) {
+        if (startNanos == 0) {
+            return;
+        }
+        Trace.endSection();
+        histogram(section + ".us").record((SystemClock.elapsedRealtimeNanos() - startNanos) / 1000);
+    }
+
+    /**
+     * Records a value such as rows returned by a query.
+     *
+     * @param metric Metric name.
+     * @param value  Value to record.
+     */
+    public static void record(String metric, long value) {
+        if (!enabled) {
+            return;
+        }
+        histogram(metric).record(value);
+    }
+
+    /**
+     * Clears all recorded aggregates.
+     */
+    public static void reset() {
+        histograms.clear();
+    }
+
+    /**
+     * Exports the aggregates as text, one metric per line, sorted by name.
+     *
+     * @return Dump of all metrics.
+     */
+    public static String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("enabled=").append(enabled).append('\n');
+        Map<String, Histogram> sorted = new TreeMap<>(histograms);
+        for (Map.Entry<String, Histogram> entry : sorted.entrySet()) {
+            builder.append(entry.getKey()).append(' ');
+            entry.getValue().appendTo(builder);
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Lock-free histogram with power-of-two buckets.
+     */
+    private static final class Histogram {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long currentMax;
+            while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+                // Retry until the max is updated or another thread stores a larger one.
+            }
+        }
+
+        /**
+         * Upper bound of the bucket containing the given percentile.
+         */
+        long percentile(double p) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return i == 0 ? 0 : (1L << i) - 1;
+                }
+            }
+            return max.get();
+        }
+
+        void appendTo(StringBuilder builder) {
+            long total = count.get();
+            builder.append("count=").append(total)
+                    .append(" mean=").append(total == 0 ? 0 : sum.get() / total)
+                    .append(" p50<=").append(percentile(0.50))
+                    .append(" p90<=").append(percentile(0.90))
+                    .append(" p99<=").append(percentile(0.99))
+                    .append(" max=").append(max.get());
+        }
+    }
+}
@@ -0,0 +1,671 @@
+package com.example.reminderapp.utils;
+
+import java.util.Calendar;
+
+/**
+ * QuickAddParser turns a single line such as "call Sam tomorrow 9am" or
+ * "pay rent every 1st at 10:00" into a title, a due time and an optional recurrence.
+ *
+ * <p>The grammar is token based: the line is split on whitespace, date, time and recurrence
+ * phrases are matched and consumed, and the remaining tokens form the title. Words that are
+ * also common in titles only count as dates or times with a leading keyword, so "call 3 people"
+ * and "sat exam" stay titles while "at 3" and "on sat" do not. A date without a time defaults to
+ * 09:00, and a time, weekday or day of month that has already passed rolls forward to its next
+ * occurrence. A time on an explicitly named day ("today at 2pm") is kept even if it has passed,
+ * and a date that does not exist ("31/2") is not read as a date at all.
+ *
+ * <p>Recurrence is parsed but not yet stored: reminders have no recurrence column and alarms
+ * fire once, so MainActivity refuses repeating lines rather than adding a one-off reminder.
+ * Persisting it (a column, a migration and rescheduling the next occurrence when an alarm
+ * fires) is left as a follow-up; the RECUR_* results are kept so the grammar is ready for it.
+ *
+ * <p>Parsing is meant to run on every keystroke for a live preview: an instance reuses its token
+ * buffers, Calendar and StringBuilder, so a parse allocates little beyond the title string.
+ * Instances are not thread-safe.
+ */
+public final class QuickAddParser {
+
+    // Recurrence kinds
+    public static final int RECUR_NONE = 0;
+    public static final int RECUR_DAILY = 1;
+    public static final int RECUR_WEEKLY = 2;
+    public static final int RECUR_MONTHLY = 3;
+
+    private static final int MAX_TOKENS = 64;
+    private static final int DEFAULT_MINUTE_OF_DAY = 9 * 60;
+    private static final int TONIGHT_MINUTE_OF_DAY = 20 * 60;
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    // Indexed by Calendar.DAY_OF_WEEK - 1
+    private static final String[] WEEKDAYS = {"sunday", "monday", "tuesday", "wednesday", "thursday", "friday", "saturday"};
+
+    // Units accepted after "in <n>"
+    private static final String[] MINUTE_UNITS = {"m", "min", "mins", "minute", "minutes"};
+    private static final String[] HOUR_UNITS = {"h", "hr", "hrs", "hour", "hours"};
+    private static final String[] DAY_UNITS = {"d", "day", "days"};
+    private static final String[] WEEK_UNITS = {"w", "wk", "wks", "week", "weeks"};
+
+    /**
+     * Parse output; reused across parses.
+     */
+    public static final class Result {
+        private String title = "";
+        private long dueAt = -1;
+        private int recurrence = RECUR_NONE;
+
+        public String getTitle() {
+            return title;
+        }
+
+        /**
+         * @return Due time in epoch millis, or -1 if the line names no date or time.
+         */
+        public long getDueAt() {
+            return dueAt;
+        }
+
+        /**
+         * @return One of the RECUR_* constants.
+         */
+        public int getRecurrence() {
+            return recurrence;
+        }
+    }
+
+    private final int[] starts = new int[MAX_TOKENS];
+    // Token end with trailing punctuation removed, used for matching
+    private final int[] ends = new int[MAX_TOKENS];
+    // Token end as typed, used for the title
+    private final int[] rawEnds = new int[MAX_TOKENS];
+    private final boolean[] consumed = new boolean[MAX_TOKENS];
+    private final Calendar calendar = Calendar.getInstance();
+    private final StringBuilder titleBuilder = new StringBuilder();
+
+    private String text;
+    private int tokenCount;
+
+    // Matched phrases of the current parse
+    private int dayOffset;
+    private int weekday;
+    private boolean weekdayNext;
+    private int monthDay;
+    private int dateDay;
+    private int dateMonth;
+    private int dateYear;
+    private int minuteOfDay;
+    private int defaultMinuteOfDay;
+    private long relativeMillis;
+    private int recurrence;
+    // Tokens used by the last successful parseTime()
+    private int timeTokens;
+
+    /**
+     * Parses a quick-add line.
+     *
+     * @param input Line as typed.
+     * @param now   Current time in epoch millis; relative phrases resolve against it.
+     * @param out   Result to fill.
+     */
+    public void parse(String input, long now, Result out) {
+        long start = PerfMetrics.begin("quickAdd.parse");
+        try {
+            text = input;
+            tokenize();
+            resetState();
+
+            for (int t = 0; t < tokenCount; t++) {
+                if (!consumed[t]) {
+                    matchAt(t);
+                }
+            }
+
+            out.title = buildTitle();
+            out.dueAt = resolveDueAt(now);
+            out.recurrence = recurrence;
+        } finally {
+            PerfMetrics.end("quickAdd.parse", start);
+        }
+    }
+
+    private void tokenize() {
+        tokenCount = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length && tokenCount < MAX_TOKENS) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            int end = i;
+            while (end > start && isTrailingPunctuation(text.charAt(end - 1))) {
+                end--;
+            }
+            starts[tokenCount] = start;
+            ends[tokenCount] = end;
+            rawEnds[tokenCount] = i;
+            consumed[tokenCount] = false;
+            tokenCount++;
+        }
+    }
+
+    private void resetState() {
+        dayOffset = -1;
+        weekday = 0;
+        weekdayNext = false;
+        monthDay = 0;
+        dateDay = 0;
+        dateMonth = 0;
+        dateYear = 0;
+        minuteOfDay = -1;
+        defaultMinuteOfDay = DEFAULT_MINUTE_OF_DAY;
+        relativeMillis = -1;
+        recurrence = RECUR_NONE;
+    }
+
+    /**
+     * Tries every phrase that can start at a token and consumes the first one that matches.
+     *
+     * @return true if a phrase matched.
+     */
+    private boolean matchAt(int t) {
+        return matchRecurrence(t) || matchDayWord(t) || matchWeekday(t) || matchMonthDay(t)
+                || matchRelative(t) || matchTime(t) || matchDate(t);
+    }
+
+    // "every day", "every monday", "every 1st", "daily", "weekly", "monthly"
+    private boolean matchRecurrence(int t) {
+        if (recurrence != RECUR_NONE) {
+            return false;
+        }
+        if (is(t, "daily")) {
+            return consumeRecurrence(t, 1, RECUR_DAILY);
+        }
+        if (is(t, "weekly")) {
+            return consumeRecurrence(t, 1, RECUR_WEEKLY);
+        }
+        if (is(t, "monthly")) {
+            return consumeRecurrence(t, 1, RECUR_MONTHLY);
+        }
+        if (!is(t, "every") || !available(t + 1)) {
+            return false;
+        }
+        if (is(t + 1, "day")) {
+            return consumeRecurrence(t, 2, RECUR_DAILY);
+        }
+        if (is(t + 1, "week")) {
+            return consumeRecurrence(t, 2, RECUR_WEEKLY);
+        }
+        if (is(t + 1, "month")) {
+            return consumeRecurrence(t, 2, RECUR_MONTHLY);
+        }
+        int day = parseWeekday(t + 1, true);
+        if (day != 0 && weekday == 0) {
+            weekday = day;
+            return consumeRecurrence(t, 2, RECUR_WEEKLY);
+        }
+        int ordinal = parseOrdinal(t + 1);
+        if (ordinal != 0 && monthDay == 0) {
+            monthDay = ordinal;
+            return consumeRecurrence(t, 2, RECUR_MONTHLY);
+        }
+        return false;
+    }
+
+    private boolean consumeRecurrence(int t, int count, int kind) {
+        recurrence = kind;
+        consume(t, count);
+        return true;
+    }
+
+    // "today", "tonight", "tomorrow", "next week", optionally followed by a part of the day
+    private boolean matchDayWord(int t) {
+        if (hasDate()) {
+            return false;
+        }
+        if (is(t, "today")) {
+            dayOffset = 0;
+        } else if (is(t, "tonight")) {
+            dayOffset = 0;
+            defaultMinuteOfDay = TONIGHT_MINUTE_OF_DAY;
+        } else if (is(t, "tomorrow") || is(t, "tmrw") || is(t, "tmr")) {
+            dayOffset = 1;
+        } else if (is(t, "next") && available(t + 1) && is(t + 1, "week")) {
+            dayOffset = 7;
+            consume(t, 2);
+            return true;
+        } else {
+            return false;
+        }
+        consume(t, 1);
+        matchPartOfDay(t + 1);
+        return true;
+    }
+
+    // "friday", "on fri", "next monday", optionally followed by a part of the day
+    private boolean matchWeekday(int t) {
+        if (hasDate()) {
+            return false;
+        }
+        boolean prefixed = is(t, "on") || is(t, "next") || is(t, "this");
+        int day = prefixed ? parseWeekday(t + 1, true) : parseWeekday(t, false);
+        if (day == 0) {
+            return false;
+        }
+        weekday = day;
+        weekdayNext = is(t, "next");
+        int count = prefixed ? 2 : 1;
+        consume(t, count);
+        matchPartOfDay(t + count);
+        return true;
+    }
+
+    // "on the 1st", "the 3rd", "on 21st"; a bare ordinal stays in the title ("1st prize")
+    private boolean matchMonthDay(int t) {
+        if (hasDate()) {
+            return false;
+        }
+        int count;
+        if (is(t, "on") && available(t + 1) && is(t + 1, "the")) {
+            count = 3;
+        } else if (is(t, "on") || is(t, "the")) {
+            count = 2;
+        } else {
+            return false;
+        }
+        int ordinal = parseOrdinal(t + count - 1);
+        if (ordinal == 0) {
+            return false;
+        }
+        monthDay = ordinal;
+        consume(t, count);
+        return true;
+    }
+
+    // "in 10 min", "in 2 hours", "in an hour", "in 3 days", "in 2 weeks"
+    private boolean matchRelative(int t) {
+        if (!is(t, "in") || !available(t + 1) || !available(t + 2) || hasDate()) {
+            return false;
+        }
+        int amount = is(t + 1, "a") || is(t + 1, "an") ? 1 : parseNumber(starts[t + 1], ends[t + 1]);
+        if (amount <= 0) {
+            return false;
+        }
+        int u = t + 2;
+        if (isAny(u, MINUTE_UNITS)) {
+            relativeMillis = amount * MINUTE_MILLIS;
+        } else if (isAny(u, HOUR_UNITS)) {
+            relativeMillis = amount * 60 * MINUTE_MILLIS;
+        } else if (isAny(u, DAY_UNITS)) {
+            dayOffset = amount;
+        } else if (isAny(u, WEEK_UNITS)) {
+            dayOffset = amount * 7;
+        } else {
+            return false;
+        }
+        consume(t, 3);
+        return true;
+    }
+
+    // "at 9", "@ 5pm", "9am", "9:30 pm", "21:00", "noon", "midnight"
+    private boolean matchTime(int t) {
+        if (minuteOfDay >= 0) {
+            return false;
+        }
+        if ((is(t, "at") || is(t, "@")) && available(t + 1)) {
+            int minute = parseTime(t + 1, true);
+            if (minute >= 0) {
+                minuteOfDay = minute;
+                consume(t, 1 + timeTokens);
+                return true;
+            }
+            return false;
+        }
+        int minute = parseTime(t, false);
+        if (minute < 0) {
+            return false;
+        }
+        minuteOfDay = minute;
+        consume(t, timeTokens);
+        return true;
+    }
+
+    // "25/12", "25/12/2026" or "on 25/12", day first as in the rest of the app
+    private boolean matchDate(int t) {
+        if (hasDate()) {
+            return false;
+        }
+        int prefix = is(t, "on") ? 1 : 0;
+        if (!available(t + prefix)) {
+            return false;
+        }
+        int start = starts[t + prefix];
+        int end = ends[t + prefix];
+        int firstSlash = indexOf('/', start, end);
+        if (firstSlash < 0) {
+            return false;
+        }
+        int secondSlash = indexOf('/', firstSlash + 1, end);
+        int day = parseNumber(start, firstSlash);
+        int month = parseNumber(firstSlash + 1, secondSlash < 0 ? end : secondSlash);
+        int year = secondSlash < 0 ? 0 : parseNumber(secondSlash + 1, end);
+        if (month < 1 || month > 12 || (secondSlash >= 0 && year < 1970)) {
+            return false;
+        }
+        // Impossible dates such as 31/2 stay in the title rather than being moved to a real one;
+        // without a year, 29/2 is allowed and falls in the next leap year
+        if (day < 1 || day > daysInMonth(month, year)) {
+            return false;
+        }
+        dateDay = day;
+        dateMonth = month;
+        dateYear = year;
+        consume(t, prefix + 1);
+        return true;
+    }
+
+    // "morning", "afternoon", "evening", "night" right after a day
+    private void matchPartOfDay(int t) {
+        if (!available(t) || minuteOfDay >= 0) {
+            return;
+        }
+        if (is(t, "morning")) {
+            minuteOfDay = 9 * 60;
+        } else if (is(t, "afternoon")) {
+            minuteOfDay = 15 * 60;
+        } else if (is(t, "evening")) {
+            minuteOfDay = 18 * 60;
+        } else if (is(t, "night")) {
+            minuteOfDay = 20 * 60;
+        } else {
+            return;
+        }
+        consume(t, 1);
+    }
+
+    /**
+     * Parses a time starting at a token and records how many tokens it used in timeTokens.
+     *
+     * @param t        Token index.
+     * @param allowBare Whether a bare hour ("at 5") counts; 1 to 7 are then read as afternoon.
+     * @return Minutes since midnight, or -1.
+     */
+    private int parseTime(int t, boolean allowBare) {
+        if (!available(t)) {
+            return -1;
+        }
+        timeTokens = 1;
+        if (is(t, "noon")) {
+            return 12 * 60;
+        }
+        if (is(t, "midnight")) {
+            return 0;
+        }
+
+        int start = starts[t];
+        int end = ends[t];
+        // Optional am/pm suffix, attached ("9pm") or as the next token ("9 pm")
+        int meridiem = 0;
+        if (endsWith(start, end, "am")) {
+            meridiem = 1;
+            end -= 2;
+        } else if (endsWith(start, end, "pm")) {
+            meridiem = 2;
+            end -= 2;
+        } else if (available(t + 1) && is(t + 1, "am")) {
+            meridiem = 1;
+            timeTokens = 2;
+        } else if (available(t + 1) && is(t + 1, "pm")) {
+            meridiem = 2;
+            timeTokens = 2;
+        }
+
+        int colon = indexOf(':', start, end);
+        if (colon < 0) {
+            colon = indexOf('.', start, end);
+        }
+        int hour = parseNumber(start, colon < 0 ? end : colon);
+        int minute = colon < 0 ? 0 : parseNumber(colon + 1, end);
+        if (hour < 0 || minute < 0 || minute > 59 || (colon >= 0 && end - colon != 3)) {
+            return -1;
+        }
+        if (meridiem != 0) {
+            if (hour < 1 || hour > 12) {
+                return -1;
+            }
+            hour = hour % 12 + (meridiem == 2 ? 12 : 0);
+        } else if (colon < 0) {
+            if (!allowBare || hour < 1 || hour > 12) {
+                return -1;
+            }
+            if (hour <= 7) {
+                hour += 12;
+            }
+        } else if (hour > 23) {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * @param allowShort Whether three-letter names count; they need a leading keyword.
+     * @return Calendar.DAY_OF_WEEK value, or 0.
+     */
+    private int parseWeekday(int t, boolean allowShort) {
+        if (!available(t)) {
+            return 0;
+        }
+        int length = ends[t] - starts[t];
+        for (int i = 0; i < WEEKDAYS.length; i++) {
+            String name = WEEKDAYS[i];
+            if (length == name.length() || (allowShort && length == 3)) {
+                if (text.regionMatches(true, starts[t], name, 0, length)) {
+                    return i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    // "1st", "2nd", "3rd", "21st"; returns 0 if not an ordinal day of month
+    private int parseOrdinal(int t) {
+        if (!available(t)) {
+            return 0;
+        }
+        int start = starts[t];
+        int end = ends[t];
+        if (!(endsWith(start, end, "st") || endsWith(start, end, "nd") || endsWith(start, end, "rd")
+                || endsWith(start, end, "th"))) {
+            return 0;
+        }
+        int day = parseNumber(start, end - 2);
+        return day >= 1 && day <= 31 ? day : 0;
+    }
+
+    /**
+     * Computes the due time from the matched phrases.
+     */
+    private long resolveDueAt(long now) {
+        boolean hasTime = minuteOfDay >= 0;
+        if (!hasDate() && !hasTime && relativeMillis < 0 && recurrence == RECUR_NONE) {
+            return -1;
+        }
+        if (relativeMillis >= 0) {
+            return now + relativeMillis;
+        }
+
+        Calendar c = calendar;
+        c.setTimeInMillis(now);
+        // A bare "weekly" or "monthly" repeats on today's weekday or day of month
+        int day = weekday;
+        int dayOfMonth = monthDay;
+        if (!hasDate() && recurrence == RECUR_WEEKLY) {
+            day = c.get(Calendar.DAY_OF_WEEK);
+        } else if (!hasDate() && recurrence == RECUR_MONTHLY) {
+            dayOfMonth = c.get(Calendar.DAY_OF_MONTH);
+        }
+        // Unit to roll forward by when the named time has already passed
+        int rollField = Calendar.DAY_OF_MONTH;
+        int rollAmount = 1;
+        if (dateMonth != 0) {
+            int year = dateYear;
+            if (year != 0) {
+                rollAmount = 0;
+            } else {
+                year = nextYearWithDate(c.get(Calendar.YEAR));
+                rollField = Calendar.YEAR;
+            }
+            c.set(Calendar.DAY_OF_MONTH, 1);
+            c.set(Calendar.YEAR, year);
+            c.set(Calendar.MONTH, dateMonth - 1);
+            c.set(Calendar.DAY_OF_MONTH, dateDay);
+        } else if (dayOfMonth != 0) {
+            c.set(Calendar.DAY_OF_MONTH, Math.min(dayOfMonth, c.getActualMaximum(Calendar.DAY_OF_MONTH)));
+            rollField = Calendar.MONTH;
+        } else if (day != 0) {
+            int offset = (day - c.get(Calendar.DAY_OF_WEEK) + 7) % 7;
+            if (offset == 0 && weekdayNext) {
+                offset = 7;
+            }
+            c.add(Calendar.DAY_OF_MONTH, offset);
+            rollAmount = 7;
+        } else if (dayOffset >= 0) {
+            c.add(Calendar.DAY_OF_MONTH, dayOffset);
+            // An explicit day is kept even if its time has passed
+            rollAmount = 0;
+        }
+
+        int minute = hasTime ? minuteOfDay : defaultMinuteOfDay;
+        c.set(Calendar.HOUR_OF_DAY, minute / 60);
+        c.set(Calendar.MINUTE, minute % 60);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+
+        if (rollAmount > 0 && c.getTimeInMillis() <= now) {
+            if (rollField == Calendar.MONTH) {
+                c.set(Calendar.DAY_OF_MONTH, 1);
+                c.add(Calendar.MONTH, 1);
+                c.set(Calendar.DAY_OF_MONTH, Math.min(dayOfMonth, c.getActualMaximum(Calendar.DAY_OF_MONTH)));
+            } else if (rollField == Calendar.YEAR) {
+                c.set(Calendar.DAY_OF_MONTH, 1);
+                c.set(Calendar.YEAR, nextYearWithDate(c.get(Calendar.YEAR) + 1));
+                c.set(Calendar.DAY_OF_MONTH, dateDay);
+            } else {
+                c.add(Calendar.DAY_OF_MONTH, rollAmount);
+            }
+        }
+        return c.getTimeInMillis();
+    }
+
+    /**
+     * @return The first year from the given one in which the matched day and month exist.
+     */
+    private int nextYearWithDate(int year) {
+        while (dateDay > daysInMonth(dateMonth, year)) {
+            year++;
+        }
+        return year;
+    }
+
+    /**
+     * @param month Month, 1 to 12.
+     * @param year  Year, or 0 for a year not given, which allows 29 February.
+     * @return Number of days in the month.
+     */
+    private static int daysInMonth(int month, int year) {
+        if (month == 2) {
+            boolean leap = year == 0 || (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0));
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private String buildTitle() {
+        StringBuilder title = titleBuilder;
+        title.setLength(0);
+        for (int t = 0; t < tokenCount; t++) {
+            if (consumed[t]) {
+                continue;
+            }
+            if (title.length() > 0) {
+                title.append(' ');
+            }
+            title.append(text, starts[t], rawEnds[t]);
+        }
+        // Drop punctuation left dangling by a removed phrase, e.g. "call Sam, tomorrow"
+        while (title.length() > 0 && isTrailingPunctuation(title.charAt(title.length() - 1))) {
+            title.setLength(title.length() - 1);
+        }
+        return title.toString();
+    }
+
+    private boolean hasDate() {
+        return dayOffset >= 0 || weekday != 0 || monthDay != 0 || dateMonth != 0 || relativeMillis >= 0;
+    }
+
+    private boolean available(int t) {
+        return t < tokenCount && !consumed[t];
+    }
+
+    private void consume(int t, int count) {
+        for (int i = t; i < t + count; i++) {
+            consumed[i] = true;
+        }
+    }
+
+    private boolean is(int t, String word) {
+        return ends[t] - starts[t] == word.length() && text.regionMatches(true, starts[t], word, 0, word.length());
+    }
+
+    private boolean isAny(int t, String[] words) {
+        for (String word : words) {
+            if (is(t, word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean endsWith(int start, int end, String suffix) {
+        int length = suffix.length();
+        return end - start > length && text.regionMatches(true, end - length, suffix, 0, length);
+    }
+
+    private int indexOf(char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses an unsigned decimal number of up to four digits.
+     *
+     * @return Value, or -1 if the range is empty or not all digits.
+     */
+    private int parseNumber(int start, int end) {
+        if (start >= end || end - start > 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isTrailingPunctuation(char c) {
+        return c == ',' || c == '.' || c == ';' || c == '!' || c == '?';
+    }
+}
@@ -1,84 +1,225 @@
 package com.example.reminderapp.models;
 
+import com.example.reminderapp.utils.DateTimeUtils;
+
+import java.nio.charset.StandardCharsets;
+
 /**
- * Reminder model represents a reminder with title, description, date, time, and associated user.
+ * Reminder model represents a reminder with title, description, due time, flags, tags, priority,
+ * associated user and, on list rows, the first image attachment.
+ * Instances are immutable and safe to share across threads; use {@link #toBuilder()} to derive an edited copy.
  */
-public class Reminder {
-    private int id;
-    private String title;
-    private String description;
-    private String date;
-    private String time;
-    private int userId;
-
-    // Default constructor
-    public Reminder() {
+public final class Reminder {
+
+    // Flag bits
+    public static final int FLAG_COMPLETED = 1;
+
+    // Priority levels, in ascending order
+    public static final int PRIORITY_NONE = 0;
+    public static final int PRIORITY_LOW = 1;
+    public static final int PRIORITY_MEDIUM = 2;
+    public static final int PRIORITY_URGENT = 3;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int id;
+    private final String title;
+    // Stored as UTF-8, the only copy kept, and decoded on access; most descriptions are never displayed in full
+    private final byte[] description;
+    private final long dueAt;
+    private final int flags;
+    // Bit set of ReminderTag bits
+    private final int tags;
+    private final int priority;
+    private final int userId;
+    // File of the first image attachment; only loaded for list rows
+    private final String thumbnailFile;
+
+    private Reminder(Builder builder) {
+        this.id = builder.id;
+        this.title = builder.title;
+        this.description = builder.description;
+        this.dueAt = builder.dueAt;
+        this.flags = builder.flags;
+        this.tags = builder.tags;
+        this.priority = builder.priority;
+        this.userId = builder.userId;
+        this.thumbnailFile = builder.thumbnailFile;
     }
 
-    // Constructor for adding a new reminder (without ID)
-    public Reminder(String title, String description, String date, String time, int userId) {
-        this.title = title;
-        this.description = description;
-        this.date = date;
-        this.time = time;
-        this.userId = userId;
+    /**
+     * Creates an empty builder for a new reminder.
+     *
+     * @return Builder.
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
-    // Constructor for editing an existing reminder (with ID)
-    public Reminder(int id, String title, String description, String date, String time, int userId) {
-        this.id = id;
-        this.title = title;
-        this.description = description;
-        this.date = date;
-        this.time = time;
-        this.userId = userId;
+    /**
+     * Creates a builder pre-filled with this reminder's values, for the edit path.
+     *
+     * @return Builder.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.id = id;
+        builder.title = title;
+        builder.description = description;
+        builder.dueAt = dueAt;
+        builder.flags = flags;
+        builder.tags = tags;
+        builder.priority = priority;
+        builder.userId = userId;
+        builder.thumbnailFile = thumbnailFile;
+        return builder;
     }
 
-    // Getters and Setters
+    // Getters
 
     public int getId() {
         return id;
     }
 
-    // No setter for ID as it is auto-incremented in the database
-
     public String getTitle() {
         return title;
     }
 
-    public void setTitle(String title) {
-        this.title = title;
+    public String getDescription() {
+        return description.length == 0 ? "" : new String(description, StandardCharsets.UTF_8);
     }
 
-    public String getDescription() {
-        return description;
+    /**
+     * @return Size of the description in UTF-8 bytes, without decoding it.
+     */
+    public int getDescriptionSize() {
+        return description.length;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
+    /**
+     * @return Due time in epoch milliseconds.
+     */
+    public long getDueAt() {
+        return dueAt;
     }
 
-    public String getDate() {
-        return date;
+    public int getFlags() {
+        return flags;
     }
 
-    public void setDate(String date) {
-        this.date = date;
+    public boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
     }
 
-    public String getTime() {
-        return time;
+    /**
+     * @return Bit set of {@link ReminderTag#getBit()} values.
+     */
+    public int getTags() {
+        return tags;
+    }
+
+    public boolean hasTag(ReminderTag tag) {
+        return (tags & tag.getBit()) != 0;
     }
 
-    public void setTime(String time) {
-        this.time = time;
+    /**
+     * @return One of the PRIORITY_* levels.
+     */
+    public int getPriority() {
+        return priority;
     }
 
     public int getUserId() {
         return userId;
     }
 
-    public void setUserId(int userId) {
-        this.userId = userId;
+    /**
+     * @return Stored file name of the first image attachment, or null if there is none or
+     * the reminder was not loaded for a list.
+     */
+    public String getThumbnailFile() {
+        return thumbnailFile;
+    }
+
+    /**
+     * @return Due date formatted as "d/M/yyyy", shared with other reminders due that day.
+     */
+    public String getDate() {
+        return DateTimeUtils.formatDate(dueAt);
+    }
+
+    /**
+     * @return Due time formatted as "HH:mm", shared with other reminders due at that minute.
+     */
+    public String getTime() {
+        return DateTimeUtils.formatTime(dueAt);
+    }
+
+    /**
+     * Builder for Reminder.
+     */
+    public static final class Builder {
+        private int id;
+        private String title;
+        private byte[] description = EMPTY;
+        private long dueAt;
+        private int flags;
+        private int tags;
+        private int priority;
+        private int userId;
+        private String thumbnailFile;
+
+        private Builder() {
+        }
+
+        public Builder setId(int id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder setDescription(String description) {
+            this.description = description == null || description.isEmpty()
+                    ? EMPTY : description.getBytes(StandardCharsets.UTF_8);
+            return this;
+        }
+
+        public Builder setDueAt(long dueAt) {
+            this.dueAt = dueAt;
+            return this;
+        }
+
+        public Builder setFlags(int flags) {
+            this.flags = flags;
+            return this;
+        }
+
+        public Builder setTags(int tags) {
+            this.tags = tags;
+            return this;
+        }
+
+        public Builder setPriority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public Builder setUserId(int userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        public Builder setThumbnailFile(String thumbnailFile) {
+            this.thumbnailFile = thumbnailFile;
+            return this;
+        }
+
+        public Reminder build() {
+            return new Reminder(this);
+        }
     }
 }
@@ -0,0 +1,79 @@
+package com.example.reminderapp.receivers;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.core.app.NotificationManagerCompat;
+
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.ReminderScheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ReminderActionReceiver handles the Snooze and Done notification actions without
+ * launching an activity. Each action is one targeted update of the reminder row,
+ * run off the main thread within the receiver's goAsync() budget.
+ */
+public class ReminderActionReceiver extends BroadcastReceiver {
+
+    public static final String ACTION_SNOOZE = "com.example.reminderapp.action.SNOOZE";
+    public static final String ACTION_DONE = "com.example.reminderapp.action.DONE";
+    public static final String EXTRA_SNOOZE_MINUTES = "snooze_minutes";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Override
+    public void onReceive(Context context, final Intent intent) {
+        final Context appContext = context.getApplicationContext();
+        final PendingResult pendingResult = goAsync();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    handleAction(appContext, intent);
+                } finally {
+                    pendingResult.finish();
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies the action to the reminder row, reschedules or cancels its alarm and
+     * dismisses the notification.
+     */
+    private void handleAction(Context context, Intent intent) {
+        long start = PerfMetrics.begin("actionReceiver.handleAction");
+        try {
+            int userId = intent.getIntExtra(ReminderScheduler.EXTRA_USER_ID, -1);
+            int reminderId = intent.getIntExtra(ReminderScheduler.EXTRA_REMINDER_ID, -1);
+            if (userId == -1 || reminderId == -1) {
+                return;
+            }
+
+            DatabaseHelper dbHelper = DatabaseHelper.forUser(context, userId);
+            if (ACTION_SNOOZE.equals(intent.getAction())) {
+                int minutes = intent.getIntExtra(EXTRA_SNOOZE_MINUTES, 10);
+                long dueAt = System.currentTimeMillis() + minutes * 60_000L;
+                // Nothing is updated for a reminder deleted since the notification was posted,
+                // and its alarm stays cancelled
+                if (dbHelper.snoozeReminder(reminderId, dueAt) > 0) {
+                    ReminderScheduler.schedule(context, userId, reminderId,
+                            intent.getStringExtra(ReminderScheduler.EXTRA_TITLE),
+                            intent.getStringExtra(ReminderScheduler.EXTRA_DESCRIPTION), dueAt);
+                }
+            } else if (ACTION_DONE.equals(intent.getAction())) {
+                dbHelper.setCompleted(reminderId, true);
+                ReminderScheduler.cancel(context, userId, reminderId);
+            }
+
+            NotificationManagerCompat.from(context).cancel(ReminderReceiver.notificationTag(userId), reminderId);
+        } finally {
+            PerfMetrics.end("actionReceiver.handleAction", start);
+        }
+    }
+}
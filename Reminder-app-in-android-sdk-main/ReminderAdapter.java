@@ -4,7 +4,8 @@ import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.BaseAdapter;
+import android.widget.CheckBox;
 import android.widget.ImageView;
 import android.widget.TextView;
 
@@ -13,18 +14,38 @@ import androidx.annotation.Nullable;
 
 import com.example.reminderapp.R;
 import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderSection;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.ThumbnailLoader;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * ReminderAdapter binds reminder data to the ListView.
+ * ReminderAdapter binds reminder data to the ListView, grouped into sections.
+ * Each section has a header with its count, its loaded reminders when expanded,
+ * and a "show more" row while more reminders remain to be paged in. Reminders with an image
+ * attachment show its thumbnail, loaded off the main thread by ThumbnailLoader.
  */
-public class ReminderAdapter extends ArrayAdapter<Reminder> {
+public class ReminderAdapter extends BaseAdapter {
+
+    private static final int TYPE_HEADER = 0;
+    private static final int TYPE_REMINDER = 1;
+    private static final int TYPE_MORE = 2;
+
+    // Matches the thumbnail view in item_reminder.xml
+    private static final int THUMBNAIL_SIZE_DP = 48;
 
     private Context context;
-    private List<Reminder> reminders;
+    private final ThumbnailLoader thumbnailLoader;
+    private final int thumbnailSizePx;
+    private List<Row> rows = new ArrayList<>();
     private OnItemClickListener itemClickListener;
     private OnDeleteClickListener deleteClickListener;
+    private OnSectionClickListener sectionClickListener;
+    private OnCompleteToggleListener completeToggleListener;
 
     /**
      * Interface for handling item clicks.
@@ -40,41 +61,259 @@ public class ReminderAdapter extends ArrayAdapter<Reminder> {
         void onDeleteClick(int position);
     }
 
+    /**
+     * Interface for handling section header and "show more" clicks.
+     */
+    public interface OnSectionClickListener {
+        void onSectionHeaderClick(ReminderSection section);
+
+        void onSectionMoreClick(ReminderSection section);
+    }
+
+    /**
+     * Interface for handling completion checkbox toggles.
+     */
+    public interface OnCompleteToggleListener {
+        void onCompleteToggle(int position, boolean completed);
+    }
+
+    /**
+     * A single list row: a section header, a reminder, or a "show more" footer.
+     */
+    private static final class Row {
+        final int type;
+        final ReminderSection section;
+        final Reminder reminder;
+        final int count;
+
+        Row(int type, ReminderSection section, Reminder reminder, int count) {
+            this.type = type;
+            this.section = section;
+            this.reminder = reminder;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Holds the views of a reminder row so they are looked up once per inflated view.
+     */
+    private static final class ViewHolder {
+        TextView textTitle;
+        TextView textDescription;
+        TextView textDateTime;
+        CheckBox checkDone;
+        ImageView imageDelete;
+        ImageView imageThumbnail;
+        // Load for the reminder last bound to this view; cancelled when the view is recycled
+        ThumbnailLoader.Request thumbnailRequest;
+    }
+
     /**
      * Constructor for the adapter.
      *
-     * @param context            Context.
-     * @param reminders          List of reminders.
-     * @param itemClickListener  Listener for item clicks.
-     * @param deleteClickListener Listener for delete clicks.
+     * @param context                Context.
+     * @param itemClickListener      Listener for item clicks.
+     * @param deleteClickListener    Listener for delete clicks.
+     * @param sectionClickListener   Listener for section header and "show more" clicks.
+     * @param completeToggleListener Listener for completion toggles.
      */
-    public ReminderAdapter(@NonNull Context context, @NonNull List<Reminder> reminders, OnItemClickListener itemClickListener, OnDeleteClickListener deleteClickListener) {
-        super(context, 0, reminders);
+    public ReminderAdapter(@NonNull Context context, OnItemClickListener itemClickListener,
+                           OnDeleteClickListener deleteClickListener, OnSectionClickListener sectionClickListener,
+                           OnCompleteToggleListener completeToggleListener) {
         this.context = context;
-        this.reminders = reminders;
         this.itemClickListener = itemClickListener;
         this.deleteClickListener = deleteClickListener;
+        this.sectionClickListener = sectionClickListener;
+        this.completeToggleListener = completeToggleListener;
+        this.thumbnailLoader = ThumbnailLoader.getInstance(context);
+        this.thumbnailSizePx = Math.round(THUMBNAIL_SIZE_DP * context.getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * Rebuilds the rows from the per-section counts and loaded pages.
+     *
+     * @param counts   Section counts indexed by {@link ReminderSection#ordinal()}.
+     * @param loaded   Reminders loaded so far for each expanded section.
+     * @param expanded Sections whose reminders are shown.
+     */
+    public void setSections(int[] counts, Map<ReminderSection, List<Reminder>> loaded, Set<ReminderSection> expanded) {
+        List<Row> newRows = new ArrayList<>();
+        for (ReminderSection section : ReminderSection.values()) {
+            int count = counts[section.ordinal()];
+            newRows.add(new Row(TYPE_HEADER, section, null, count));
+            List<Reminder> reminders = loaded.get(section);
+            if (!expanded.contains(section) || reminders == null) {
+                continue;
+            }
+            for (Reminder reminder : reminders) {
+                newRows.add(new Row(TYPE_REMINDER, section, reminder, 0));
+            }
+            if (reminders.size() < count) {
+                newRows.add(new Row(TYPE_MORE, section, null, count - reminders.size()));
+            }
+        }
+        rows = newRows;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Returns the position of a section's header row.
+     *
+     * @param section Section.
+     * @return Position, or -1 if not present.
+     */
+    public int getSectionPosition(ReminderSection section) {
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            if (row.type == TYPE_HEADER && row.section == section) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the reminder shown at a position.
+     *
+     * @param position Row position.
+     * @return Reminder, or null for header and "show more" rows.
+     */
+    @Nullable
+    public Reminder getReminder(int position) {
+        return rows.get(position).reminder;
+    }
+
+    /**
+     * Returns the section a row belongs to.
+     *
+     * @param position Row position.
+     * @return Section.
+     */
+    public ReminderSection getSection(int position) {
+        return rows.get(position).section;
+    }
+
+    @Override
+    public int getCount() {
+        return rows.size();
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return rows.get(position).reminder;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        Row row = rows.get(position);
+        return row.reminder != null ? row.reminder.getId() : -1 - position;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return false;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return 3;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return rows.get(position).type;
     }
 
     @NonNull
     @Override
     public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        long start = PerfMetrics.begin("adapter.getView");
+        try {
+            final Row row = rows.get(position);
+            View view;
+            if (row.type == TYPE_HEADER) {
+                view = getHeaderView(row, convertView, parent);
+            } else if (row.type == TYPE_MORE) {
+                view = getMoreView(row, convertView, parent);
+            } else {
+                view = getReminderView(position, row.reminder, convertView, parent);
+            }
+            return view;
+        } finally {
+            PerfMetrics.end("adapter.getView", start);
+        }
+    }
+
+    private View getHeaderView(final Row row, @Nullable View convertView, ViewGroup parent) {
+        View header = convertView;
+        if (header == null) {
+            header = LayoutInflater.from(context).inflate(R.layout.item_section_header, parent, false);
+        }
+        TextView textSection = header.findViewById(R.id.sectionTitle);
+        textSection.setText(row.section.getLabel() + " (" + row.count + ")");
+
+        header.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                if (sectionClickListener != null) {
+                    sectionClickListener.onSectionHeaderClick(row.section);
+                }
+            }
+        });
+        return header;
+    }
+
+    private View getMoreView(final Row row, @Nullable View convertView, ViewGroup parent) {
+        View more = convertView;
+        if (more == null) {
+            more = LayoutInflater.from(context).inflate(R.layout.item_section_more, parent, false);
+        }
+        TextView textMore = more.findViewById(R.id.sectionMore);
+        textMore.setText("Show more (" + row.count + " remaining)");
+
+        more.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                if (sectionClickListener != null) {
+                    sectionClickListener.onSectionMoreClick(row.section);
+                }
+            }
+        });
+        return more;
+    }
 
+    private View getReminderView(final int position, Reminder currentReminder, @Nullable View convertView, ViewGroup parent) {
         View listItem = convertView;
+        ViewHolder holder;
         if (listItem == null) {
             listItem = LayoutInflater.from(context).inflate(R.layout.item_reminder, parent, false);
+            holder = new ViewHolder();
+            holder.textTitle = listItem.findViewById(R.id.reminderTitle);
+            holder.textDescription = listItem.findViewById(R.id.reminderDescription);
+            holder.textDateTime = listItem.findViewById(R.id.reminderDateTime);
+            holder.checkDone = listItem.findViewById(R.id.checkBoxDone);
+            holder.imageDelete = listItem.findViewById(R.id.imageDelete);
+            holder.imageThumbnail = listItem.findViewById(R.id.reminderThumbnail);
+            listItem.setTag(holder);
+        } else {
+            holder = (ViewHolder) listItem.getTag();
         }
 
-        Reminder currentReminder = reminders.get(position);
-
-        TextView textTitle = listItem.findViewById(R.id.reminderTitle);
-        TextView textDescription = listItem.findViewById(R.id.reminderDescription);
-        TextView textDateTime = listItem.findViewById(R.id.reminderDateTime);
-        ImageView imageDelete = listItem.findViewById(R.id.imageDelete);
+        holder.textTitle.setText(currentReminder.getTitle());
+        holder.textDescription.setText(currentReminder.getDescription());
+        holder.textDateTime.setText(currentReminder.getDate() + " " + currentReminder.getTime());
+        bindThumbnail(holder, currentReminder);
 
-        textTitle.setText(currentReminder.getTitle());
-        textDescription.setText(currentReminder.getDescription());
-        textDateTime.setText(currentReminder.getDate() + " " + currentReminder.getTime());
+        // A click listener (not a checked-change listener) so rebinding a recycled view does not fire it
+        holder.checkDone.setChecked(currentReminder.hasFlag(Reminder.FLAG_COMPLETED));
+        holder.checkDone.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                if (completeToggleListener != null) {
+                    completeToggleListener.onCompleteToggle(position, ((CheckBox) view).isChecked());
+                }
+            }
+        });
 
         // Set click listener for the entire item
         listItem.setOnClickListener(new View.OnClickListener() {
@@ -87,7 +326,7 @@ public class ReminderAdapter extends ArrayAdapter<Reminder> {
         });
 
         // Set click listener for the delete icon
-        imageDelete.setOnClickListener(new View.OnClickListener() {
+        holder.imageDelete.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
                 if (deleteClickListener != null) {
@@ -98,4 +337,20 @@ public class ReminderAdapter extends ArrayAdapter<Reminder> {
 
         return listItem;
     }
+
+    private void bindThumbnail(ViewHolder holder, Reminder reminder) {
+        if (holder.thumbnailRequest != null) {
+            holder.thumbnailRequest.cancel();
+            holder.thumbnailRequest = null;
+        }
+        if (reminder.getThumbnailFile() == null) {
+            holder.imageThumbnail.setImageDrawable(null);
+            // Invisible rather than gone, so recycled rows do not re-layout their text
+            holder.imageThumbnail.setVisibility(View.INVISIBLE);
+            return;
+        }
+        holder.imageThumbnail.setVisibility(View.VISIBLE);
+        holder.thumbnailRequest = thumbnailLoader.load(context, reminder.getUserId(), reminder.getThumbnailFile(),
+                thumbnailSizePx, holder.imageThumbnail);
+    }
 }
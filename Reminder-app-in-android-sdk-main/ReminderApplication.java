@@ -0,0 +1,22 @@
+package com.example.reminderapp;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+
+import com.example.reminderapp.utils.PerfMetrics;
+
+/**
+ * ReminderApplication sets up process-wide state before any component starts, so receivers,
+ * the provider and the widget behave the same whether or not an activity ran first.
+ */
+public class ReminderApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Enable performance instrumentation on debug builds
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            PerfMetrics.setEnabled(true);
+        }
+    }
+}
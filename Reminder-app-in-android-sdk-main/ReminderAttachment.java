@@ -0,0 +1,49 @@
+package com.example.reminderapp.models;
+
+/**
+ * ReminderAttachment describes a file attached to a reminder. The content is stored as a
+ * file in app storage under {@link #getFileName()}; see AttachmentStore.
+ */
+public final class ReminderAttachment {
+
+    private final int id;
+    private final int reminderId;
+    private final String fileName;
+    private final String mimeType;
+    private final String displayName;
+
+    public ReminderAttachment(int id, int reminderId, String fileName, String mimeType, String displayName) {
+        this.id = id;
+        this.reminderId = reminderId;
+        this.fileName = fileName;
+        this.mimeType = mimeType;
+        this.displayName = displayName;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getReminderId() {
+        return reminderId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return MIME type reported by the source, or null if unknown.
+     */
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public boolean isImage() {
+        return mimeType != null && mimeType.startsWith("image/");
+    }
+}
@@ -0,0 +1,440 @@
+package com.example.reminderapp.database;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.ReminderScheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ReminderBackup writes the directory and user databases to a compressed, checksummed file
+ * and restores them. A backup snapshots each database with VACUUM INTO, which reads it in
+ * one transaction without blocking writers, then hashes and compresses the snapshots in
+ * chunks on a low-priority thread. A restore verifies the file, upgrades the databases to
+ * the current schema and swaps their rows into the live databases, then rebuilds the alarms.
+ * Attachment files are not backed up, so a restore then drops the attachment rows whose file
+ * is gone and deletes the files that no restored row refers to.
+ *
+ * <p>File layout: the magic bytes, the schema version and the number of databases; for each
+ * database its owner (-1 for the directory, which comes first), uncompressed length and
+ * SHA-256; then the databases back to back in one gzip stream.
+ */
+public final class ReminderBackup {
+
+    private static final byte[] MAGIC = "RMDBAK02".getBytes(StandardCharsets.US_ASCII);
+    // Backups of the single shared database used before reminders were stored per user
+    private static final byte[] MAGIC_SINGLE_DATABASE = "RMDBAK01".getBytes(StandardCharsets.US_ASCII);
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String RESTORE_DB_NAME = "reminder_app_restore.db";
+    // Copy of the live rows kept while a restore is swapped in
+    private static final String ROLLBACK_DB_NAME = "reminder_app_rollback.db";
+    // Owner recorded for the directory database
+    private static final int DIRECTORY_ENTRY = -1;
+
+    // Backups and restores never overlap
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Receives the outcome of a backup or restore on the main thread.
+     */
+    public interface Callback {
+        void onFinished(boolean success, String message);
+    }
+
+    private ReminderBackup() {
+    }
+
+    /**
+     * VACUUM INTO needs SQLite 3.27, which ships with Android 11.
+     *
+     * @return Whether backups can be taken on this device.
+     */
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+    }
+
+    /**
+     * Writes a backup to a document on the background thread.
+     *
+     * @param context  Context.
+     * @param uri      Document to write, e.g. from ACTION_CREATE_DOCUMENT.
+     * @param callback Called on the main thread when done.
+     */
+    public static void backupAsync(Context context, final Uri uri, final Callback callback) {
+        final Context appContext = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                try {
+                    OutputStream output = appContext.getContentResolver().openOutputStream(uri);
+                    if (output == null) {
+                        throw new IOException("Cannot open the backup file");
+                    }
+                    try {
+                        backup(appContext, output);
+                    } finally {
+                        output.close();
+                    }
+                    post(callback, true, "Backup saved");
+                } catch (IOException | RuntimeException e) {
+                    post(callback, false, "Backup failed: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Restores a backup from a document on the background thread.
+     *
+     * @param context  Context.
+     * @param uri      Document to read, e.g. from ACTION_OPEN_DOCUMENT.
+     * @param callback Called on the main thread when done.
+     */
+    public static void restoreAsync(Context context, final Uri uri, final Callback callback) {
+        final Context appContext = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                try {
+                    InputStream input = appContext.getContentResolver().openInputStream(uri);
+                    if (input == null) {
+                        throw new IOException("Cannot open the backup file");
+                    }
+                    try {
+                        restore(appContext, input);
+                    } finally {
+                        input.close();
+                    }
+                    post(callback, true, "Backup restored");
+                } catch (IOException | RuntimeException e) {
+                    post(callback, false, "Restore failed: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static void backup(Context context, OutputStream output) throws IOException {
+        long start = PerfMetrics.begin("backup.write");
+        try {
+            DatabaseHelper directory = new DatabaseHelper(context);
+            List<Integer> owners = new ArrayList<>();
+            List<File> snapshots = new ArrayList<>();
+            try {
+                // Each database is snapshotted on its own; users are independent of each other
+                owners.add(DIRECTORY_ENTRY);
+                snapshots.add(snapshot(context, directory, "backup_directory.db"));
+                for (int userId : directory.getUserIds()) {
+                    if (directory.hasUserDatabase(userId)) {
+                        owners.add(userId);
+                        snapshots.add(snapshot(context, directory.getUserDatabase(userId), "backup_user_" + userId + ".db"));
+                    }
+                }
+
+                // The header carries the checksums, so hash in a first pass and compress in a second
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, CHUNK_SIZE));
+                out.write(MAGIC);
+                out.writeInt(DatabaseHelper.DATABASE_VERSION);
+                out.writeInt(snapshots.size());
+                for (int i = 0; i < snapshots.size(); i++) {
+                    out.writeInt(owners.get(i));
+                    out.writeLong(snapshots.get(i).length());
+                    out.write(sha256(snapshots.get(i)));
+                }
+                // One compressed stream holds the databases back to back
+                GZIPOutputStream gzip = new GZIPOutputStream(out, CHUNK_SIZE);
+                byte[] buffer = new byte[CHUNK_SIZE];
+                long bytes = 0;
+                for (File snapshot : snapshots) {
+                    InputStream in = new FileInputStream(snapshot);
+                    try {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            gzip.write(buffer, 0, read);
+                        }
+                    } finally {
+                        in.close();
+                    }
+                    bytes += snapshot.length();
+                }
+                gzip.finish();
+                out.flush();
+                PerfMetrics.record("backup.bytes", bytes);
+            } finally {
+                for (File snapshot : snapshots) {
+                    SQLiteDatabase.deleteDatabase(snapshot);
+                }
+            }
+        } finally {
+            PerfMetrics.end("backup.write", start);
+        }
+    }
+
+    private static File snapshot(Context context, DatabaseHelper dbHelper, String fileName) {
+        File snapshot = new File(context.getCacheDir(), fileName);
+        SQLiteDatabase.deleteDatabase(snapshot);
+        dbHelper.writeSnapshot(snapshot);
+        return snapshot;
+    }
+
+    private static void restore(Context context, InputStream input) throws IOException {
+        long start = PerfMetrics.begin("backup.restore");
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(input, CHUNK_SIZE));
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            boolean singleDatabase = Arrays.equals(magic, MAGIC_SINGLE_DATABASE);
+            if (!singleDatabase && !Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a reminder backup");
+            }
+            int version = in.readInt();
+            if (version > DatabaseHelper.DATABASE_VERSION) {
+                throw new IOException("Backup is from a newer version of the app");
+            }
+            int count = singleDatabase ? 1 : in.readInt();
+            int[] owners = new int[count];
+            long[] lengths = new long[count];
+            byte[][] digests = new byte[count][32];
+            for (int i = 0; i < count; i++) {
+                owners[i] = singleDatabase ? DIRECTORY_ENTRY : in.readInt();
+                lengths[i] = in.readLong();
+                in.readFully(digests[i]);
+            }
+            if (owners[0] != DIRECTORY_ENTRY) {
+                throw new IOException("Backup is corrupt");
+            }
+
+            List<File> restoreFiles = new ArrayList<>();
+            DatabaseHelper restoredDirectory = new DatabaseHelper(context, RESTORE_DB_NAME);
+            try {
+                // Verify before anything is opened by SQLite
+                GZIPInputStream gzip = new GZIPInputStream(in, CHUNK_SIZE);
+                for (int i = 0; i < count; i++) {
+                    String name = owners[i] == DIRECTORY_ENTRY ? RESTORE_DB_NAME
+                            : DatabaseHelper.getUserDatabaseName(RESTORE_DB_NAME, owners[i]);
+                    File restoreFile = context.getDatabasePath(name);
+                    SQLiteDatabase.deleteDatabase(restoreFile);
+                    restoreFiles.add(restoreFile);
+                    extract(gzip, restoreFile, lengths[i], digests[i]);
+                }
+
+                // Opening through the helper upgrades backups from older schema versions; a backup
+                // of the single shared database of older versions is split into user databases here
+                BackfillRunner.runBlocking(context, restoredDirectory);
+                List<Integer> restoredUsers = restoredDirectory.getUserIds();
+                for (int userId : restoredUsers) {
+                    restoreFiles.add(context.getDatabasePath(DatabaseHelper.getUserDatabaseName(RESTORE_DB_NAME, userId)));
+                }
+                checkIntegrity(restoredDirectory);
+                for (int userId : restoredUsers) {
+                    if (restoredDirectory.hasUserDatabase(userId)) {
+                        checkIntegrity(restoredDirectory.getUserDatabase(userId));
+                    }
+                }
+                swapIn(context, restoredDirectory, restoredUsers);
+            } finally {
+                restoredDirectory.close();
+                for (File restoreFile : restoreFiles) {
+                    SQLiteDatabase.deleteDatabase(restoreFile);
+                }
+            }
+        } finally {
+            PerfMetrics.end("backup.restore", start);
+        }
+    }
+
+    /**
+     * Decompresses one database and checks its length and checksum.
+     */
+    private static void extract(InputStream gzip, File target, long length, byte[] expectedDigest) throws IOException {
+        MessageDigest digest = newSha256();
+        long remaining = length;
+        OutputStream out = new FileOutputStream(target);
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            while (remaining > 0) {
+                int read = gzip.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("Backup is truncated");
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        } finally {
+            out.close();
+        }
+        if (!MessageDigest.isEqual(digest.digest(), expectedDigest)) {
+            throw new IOException("Backup is corrupt");
+        }
+    }
+
+    private static void checkIntegrity(DatabaseHelper dbHelper) throws IOException {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String result = DatabaseUtils.stringForQuery(db, "PRAGMA quick_check", null);
+        db.close();
+        if (!"ok".equals(result)) {
+            throw new IOException("Backup failed the integrity check");
+        }
+    }
+
+    /**
+     * Replaces the live users and their reminders, and moves the alarms over from the old
+     * reminders to the restored ones. Each database is swapped in its own transaction, so
+     * the live rows are first copied aside; if any swap fails, the databases already swapped
+     * get their old rows back and nothing else is changed. Users and alarms are only removed
+     * once every swap has succeeded.
+     */
+    private static void swapIn(Context context, DatabaseHelper restoredDirectory, List<Integer> restoredUsers)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        DatabaseHelper directory = new DatabaseHelper(context);
+        List<Integer> liveUsers = directory.getUserIds();
+        List<File> rollbackFiles = new ArrayList<>();
+        DatabaseHelper rollbackDirectory = new DatabaseHelper(context, ROLLBACK_DB_NAME);
+        try {
+            rollbackFiles.add(context.getDatabasePath(ROLLBACK_DB_NAME));
+            for (int userId : liveUsers) {
+                rollbackFiles.add(context.getDatabasePath(DatabaseHelper.getUserDatabaseName(ROLLBACK_DB_NAME, userId)));
+            }
+            for (File rollbackFile : rollbackFiles) {
+                SQLiteDatabase.deleteDatabase(rollbackFile);
+            }
+            copyContents(directory, rollbackDirectory);
+            for (int userId : liveUsers) {
+                if (directory.hasUserDatabase(userId)) {
+                    copyContents(directory.getUserDatabase(userId), rollbackDirectory.getUserDatabase(userId));
+                }
+            }
+
+            List<Integer> swappedUsers = new ArrayList<>();
+            try {
+                for (int userId : restoredUsers) {
+                    if (restoredDirectory.hasUserDatabase(userId)) {
+                        swappedUsers.add(userId);
+                        copyContents(restoredDirectory.getUserDatabase(userId), directory.getUserDatabase(userId));
+                    }
+                }
+                copyContents(restoredDirectory, directory);
+            } catch (RuntimeException e) {
+                rollBack(directory, rollbackDirectory, swappedUsers);
+                throw new IOException("Restore failed, the reminders were left unchanged", e);
+            }
+
+            // Every database holds the restored rows; only now are the old alarms and users dropped
+            for (int userId : liveUsers) {
+                if (rollbackDirectory.hasUserDatabase(userId)) {
+                    for (int id : rollbackDirectory.getUserDatabase(userId).getReminderIdsDueAfter(now)) {
+                        ReminderScheduler.cancel(context, userId, id);
+                    }
+                }
+                if (!restoredUsers.contains(userId)) {
+                    directory.deleteUser(userId);
+                } else if (!restoredDirectory.hasUserDatabase(userId) && directory.hasUserDatabase(userId)) {
+                    // The user had stored nothing when the backup was taken
+                    directory.deleteUserDatabase(userId);
+                }
+            }
+            for (int userId : restoredUsers) {
+                if (!directory.hasUserDatabase(userId)) {
+                    continue;
+                }
+                // Backups hold the attachment rows but not the files
+                directory.getUserDatabase(userId).reconcileAttachments();
+                for (Reminder reminder : directory.getUserDatabase(userId).getSchedulableReminders(now)) {
+                    ReminderScheduler.schedule(context, reminder);
+                }
+            }
+        } finally {
+            rollbackDirectory.close();
+            for (File rollbackFile : rollbackFiles) {
+                SQLiteDatabase.deleteDatabase(rollbackFile);
+            }
+        }
+    }
+
+    /**
+     * Puts the pre-restore rows back into the databases already swapped. A user database
+     * that did not exist before the restore is deleted again.
+     */
+    private static void rollBack(DatabaseHelper directory, DatabaseHelper rollbackDirectory, List<Integer> swappedUsers) {
+        for (int userId : swappedUsers) {
+            if (rollbackDirectory.hasUserDatabase(userId)) {
+                copyContents(rollbackDirectory.getUserDatabase(userId), directory.getUserDatabase(userId));
+            } else {
+                directory.deleteUserDatabase(userId);
+            }
+        }
+        copyContents(rollbackDirectory, directory);
+    }
+
+    /**
+     * Replaces the rows of one database with those of another with the same schema.
+     */
+    private static void copyContents(DatabaseHelper source, DatabaseHelper target) {
+        target.replaceContentsFrom(source.getReadableDatabase());
+        source.close();
+    }
+
+    private static byte[] sha256(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android release provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void post(final Callback callback, final boolean success, final String message) {
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onFinished(success, message);
+            }
+        });
+    }
+}
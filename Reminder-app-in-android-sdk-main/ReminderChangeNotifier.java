@@ -0,0 +1,75 @@
+package com.example.reminderapp.database;
+
+import android.content.Context;
+import android.content.Intent;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ReminderChangeNotifier reports reminder writes made through DatabaseHelper, both to
+ * in-process listeners (e.g. caches) and, as a package-scoped broadcast, to components
+ * such as the home-screen widget that are not running when the write happens.
+ */
+public final class ReminderChangeNotifier {
+
+    public static final String ACTION_REMINDERS_CHANGED = "com.example.reminderapp.action.REMINDERS_CHANGED";
+    public static final String EXTRA_USER_ID = "user_id";
+    public static final String EXTRA_REMINDER_ID = "reminder_id";
+
+    // Used when a write does not know the owner or the single row it touched
+    public static final int UNKNOWN = -1;
+
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Interface for in-process change listeners.
+     */
+    public interface Listener {
+        /**
+         * Called after a reminder write commits.
+         *
+         * @param userId     Owner of the changed reminders, or {@link #UNKNOWN}.
+         * @param reminderId Changed reminder, or {@link #UNKNOWN} for bulk changes.
+         */
+        void onRemindersChanged(int userId, int reminderId);
+    }
+
+    private ReminderChangeNotifier() {
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reports that a user logged in or out. What is shown for "the current user" changes
+     * without any reminder being written, so listeners and the widget reload everything.
+     *
+     * @param context Context.
+     */
+    public static void notifySessionChanged(Context context) {
+        notifyChanged(context, UNKNOWN, UNKNOWN);
+    }
+
+    /**
+     * Notifies listeners and broadcasts the change within the app package.
+     *
+     * @param context    Context.
+     * @param userId     Owner of the changed reminders, or {@link #UNKNOWN}.
+     * @param reminderId Changed reminder, or {@link #UNKNOWN} for bulk changes.
+     */
+    static void notifyChanged(Context context, int userId, int reminderId) {
+        for (Listener listener : listeners) {
+            listener.onRemindersChanged(userId, reminderId);
+        }
+        Intent intent = new Intent(ACTION_REMINDERS_CHANGED);
+        intent.setPackage(context.getPackageName());
+        intent.putExtra(EXTRA_USER_ID, userId);
+        intent.putExtra(EXTRA_REMINDER_ID, reminderId);
+        context.sendBroadcast(intent);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.reminderapp.providers;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.net.Uri;
+import android.provider.BaseColumns;
+
+/**
+ * ReminderContract defines the URIs and columns that ReminderProvider exposes to other apps.
+ *
+ * <p>URIs are scoped by user:
+ * <ul>
+ * <li>{@code users/<userId>/reminders} - all of the user's reminders</li>
+ * <li>{@code users/<userId>/reminders/upcoming} - incomplete reminders due from now on, soonest first</li>
+ * <li>{@code users/<userId>/reminders/<reminderId>} - a single reminder</li>
+ * </ul>
+ * A change to one reminder is notified on its own URI and on the upcoming URI; bulk changes
+ * are notified on the list URI. Observers of the list URI should register with
+ * {@code notifyForDescendants = true} to see both.
+ */
+public final class ReminderContract {
+
+    public static final String AUTHORITY = "com.example.reminderapp.provider";
+    public static final Uri AUTHORITY_URI = Uri.parse("content://" + AUTHORITY);
+
+    // Query parameter capping the number of rows returned
+    public static final String PARAM_LIMIT = "limit";
+
+    private ReminderContract() {
+    }
+
+    /**
+     * Columns and URIs of the reminders table.
+     */
+    public static final class Reminders implements BaseColumns {
+
+        public static final String TITLE = "title";
+        public static final String DESCRIPTION = "description";
+        // Epoch millis
+        public static final String DUE_AT = "due_at";
+        // Bit set of Reminder.FLAG_* values
+        public static final String FLAGS = "flags";
+
+        public static final String PATH_USERS = "users";
+        public static final String PATH_REMINDERS = "reminders";
+        public static final String PATH_UPCOMING = "upcoming";
+
+        public static final String CONTENT_TYPE = ContentResolver.CURSOR_DIR_BASE_TYPE + "/vnd.com.example.reminderapp.reminder";
+        public static final String CONTENT_ITEM_TYPE = ContentResolver.CURSOR_ITEM_BASE_TYPE + "/vnd.com.example.reminderapp.reminder";
+
+        private Reminders() {
+        }
+
+        public static Uri listUri(int userId) {
+            return AUTHORITY_URI.buildUpon()
+                    .appendPath(PATH_USERS)
+                    .appendPath(String.valueOf(userId))
+                    .appendPath(PATH_REMINDERS)
+                    .build();
+        }
+
+        public static Uri upcomingUri(int userId) {
+            return Uri.withAppendedPath(listUri(userId), PATH_UPCOMING);
+        }
+
+        public static Uri itemUri(int userId, int reminderId) {
+            return ContentUris.withAppendedId(listUri(userId), reminderId);
+        }
+    }
+}
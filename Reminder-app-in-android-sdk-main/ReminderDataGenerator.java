@@ -0,0 +1,160 @@
+package com.example.reminderapp.utils;
+
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderTag;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * ReminderDataGenerator produces deterministic synthetic reminders for load testing.
+ * The same seed always yields the same sequence of users, titles and due times, on any
+ * device: due times are laid out in UTC rather than the default time zone.
+ */
+public class ReminderDataGenerator {
+
+    private static final String[] TITLES = {
+            "Call mom", "Pay rent", "Team meeting", "Dentist appointment", "Buy groceries",
+            "Pick up kids", "Gym", "Renew passport", "Water plants", "Submit report",
+            "Car service", "Take medicine", "Book flights", "Birthday party", "Pay electricity bill"
+    };
+
+    private static final String[] DESCRIPTION_WORDS = {
+            "remember", "to", "bring", "the", "documents", "before", "noon", "and", "check",
+            "email", "for", "updates", "call", "back", "if", "needed", "office", "home"
+    };
+
+    private static final TimeZone ZONE = TimeZone.getTimeZone("UTC");
+
+    private final Random random;
+    private final long originMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param seed         Seed for the pseudo-random sequence.
+     * @param originMillis Reference "now" that due times are distributed around.
+     */
+    public ReminderDataGenerator(long seed, long originMillis) {
+        this.random = new Random(seed);
+        this.originMillis = originMillis;
+    }
+
+    /**
+     * Picks a user ID in [1, userCount] with a skewed distribution, so a few users
+     * own many reminders and most users own a handful.
+     *
+     * @param userCount Number of users.
+     * @return User ID.
+     */
+    public int nextUserId(int userCount) {
+        double u = random.nextDouble();
+        return 1 + (int) (userCount * u * u * u);
+    }
+
+    /**
+     * Generates the next reminder for a user.
+     *
+     * @param userId Owner of the reminder.
+     * @return Reminder without an ID.
+     */
+    public Reminder nextReminder(int userId) {
+        return Reminder.builder()
+                .setTitle(TITLES[random.nextInt(TITLES.length)])
+                .setDescription(nextDescription())
+                .setDueAt(nextDueMillis())
+                .setTags(nextTags())
+                .setPriority(nextPriority())
+                .setUserId(userId)
+                .build();
+    }
+
+    /**
+     * Generates a batch of reminders for a single user.
+     *
+     * @param userId Owner of the reminders.
+     * @param count  Number of reminders.
+     * @return List of reminders without IDs.
+     */
+    public List<Reminder> generateForUser(int userId, int count) {
+        List<Reminder> reminders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reminders.add(nextReminder(userId));
+        }
+        return reminders;
+    }
+
+    /**
+     * Due times: roughly 20% in the past (up to a year back), most within the next
+     * two weeks, and a long tail up to a year ahead. Times fall between 07:00 and
+     * 21:59 UTC on quarter hours, like reminders set through the time picker.
+     */
+    private long nextDueMillis() {
+        double bucket = random.nextDouble();
+        int dayOffset;
+        if (bucket < 0.2) {
+            dayOffset = -1 - random.nextInt(365);
+        } else if (bucket < 0.85) {
+            dayOffset = (int) Math.abs(random.nextGaussian() * 5) % 14;
+        } else {
+            dayOffset = 14 + random.nextInt(351);
+        }
+
+        Calendar calendar = Calendar.getInstance(ZONE, Locale.ROOT);
+        calendar.setTimeInMillis(originMillis);
+        calendar.add(Calendar.DAY_OF_MONTH, dayOffset);
+        calendar.set(Calendar.HOUR_OF_DAY, 7 + random.nextInt(15));
+        calendar.set(Calendar.MINUTE, 15 * random.nextInt(4));
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Tags: each tag independently on about one reminder in four, so multi-tag filters
+     * match progressively smaller subsets.
+     */
+    private int nextTags() {
+        int tags = 0;
+        for (ReminderTag tag : ReminderTag.values()) {
+            if (random.nextInt(4) == 0) {
+                tags |= tag.getBit();
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Priorities: most reminders have none, about 5% are urgent.
+     */
+    private int nextPriority() {
+        int bucket = random.nextInt(100);
+        if (bucket < 60) {
+            return Reminder.PRIORITY_NONE;
+        } else if (bucket < 80) {
+            return Reminder.PRIORITY_LOW;
+        } else if (bucket < 95) {
+            return Reminder.PRIORITY_MEDIUM;
+        }
+        return Reminder.PRIORITY_URGENT;
+    }
+
+    /**
+     * Descriptions are mostly short, with an occasional long pasted note.
+     */
+    private String nextDescription() {
+        int words = random.nextDouble() < 0.05 ? 200 + random.nextInt(600) : random.nextInt(12);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(DESCRIPTION_WORDS[random.nextInt(DESCRIPTION_WORDS.length)]);
+        }
+        return builder.toString();
+    }
+}
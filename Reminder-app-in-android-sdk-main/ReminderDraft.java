@@ -0,0 +1,35 @@
+package com.example.reminderapp.models;
+
+/**
+ * ReminderDraft holds the unsaved contents of the add/edit form, as typed.
+ */
+public final class ReminderDraft {
+
+    private final String title;
+    private final String description;
+    private final String date;
+    private final String time;
+
+    public ReminderDraft(String title, String description, String date, String time) {
+        this.title = title;
+        this.description = description;
+        this.date = date;
+        this.time = time;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getTime() {
+        return time;
+    }
+}
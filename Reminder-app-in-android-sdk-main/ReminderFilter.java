@@ -0,0 +1,128 @@
+package com.example.reminderapp.models;
+
+/**
+ * ReminderFilter describes a filtered reminder list, e.g. "urgent AND work, due this week".
+ * Instances are immutable and compare by value, so they can key a result cache.
+ */
+public final class ReminderFilter {
+
+    // Value for an open end of the due time range
+    public static final long UNBOUNDED = -1;
+
+    private final int requiredTags;
+    private final int minPriority;
+    private final long dueFrom;
+    private final long dueTo;
+    private final boolean includeCompleted;
+
+    private ReminderFilter(Builder builder) {
+        this.requiredTags = builder.requiredTags;
+        this.minPriority = builder.minPriority;
+        this.dueFrom = builder.dueFrom;
+        this.dueTo = builder.dueTo;
+        this.includeCompleted = builder.includeCompleted;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Tag bits that a reminder must all carry.
+     */
+    public int getRequiredTags() {
+        return requiredTags;
+    }
+
+    /**
+     * @return Lowest matching priority level.
+     */
+    public int getMinPriority() {
+        return minPriority;
+    }
+
+    /**
+     * @return Range start in epoch millis, inclusive, or {@link #UNBOUNDED}.
+     */
+    public long getDueFrom() {
+        return dueFrom;
+    }
+
+    /**
+     * @return Range end in epoch millis, exclusive, or {@link #UNBOUNDED}.
+     */
+    public long getDueTo() {
+        return dueTo;
+    }
+
+    public boolean isIncludeCompleted() {
+        return includeCompleted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ReminderFilter)) {
+            return false;
+        }
+        ReminderFilter other = (ReminderFilter) o;
+        return requiredTags == other.requiredTags && minPriority == other.minPriority
+                && dueFrom == other.dueFrom && dueTo == other.dueTo && includeCompleted == other.includeCompleted;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = requiredTags;
+        result = 31 * result + minPriority;
+        result = 31 * result + (int) (dueFrom ^ (dueFrom >>> 32));
+        result = 31 * result + (int) (dueTo ^ (dueTo >>> 32));
+        result = 31 * result + (includeCompleted ? 1 : 0);
+        return result;
+    }
+
+    /**
+     * Builder for ReminderFilter.
+     */
+    public static final class Builder {
+        private int requiredTags;
+        private int minPriority = Reminder.PRIORITY_NONE;
+        private long dueFrom = UNBOUNDED;
+        private long dueTo = UNBOUNDED;
+        private boolean includeCompleted;
+
+        private Builder() {
+        }
+
+        public Builder requireTag(ReminderTag tag) {
+            this.requiredTags |= tag.getBit();
+            return this;
+        }
+
+        public Builder setRequiredTags(int requiredTags) {
+            this.requiredTags = requiredTags;
+            return this;
+        }
+
+        public Builder setMinPriority(int minPriority) {
+            this.minPriority = minPriority;
+            return this;
+        }
+
+        public Builder setDueRange(long dueFrom, long dueTo) {
+            this.dueFrom = dueFrom;
+            this.dueTo = dueTo;
+            return this;
+        }
+
+        public Builder setIncludeCompleted(boolean includeCompleted) {
+            this.includeCompleted = includeCompleted;
+            return this;
+        }
+
+        public ReminderFilter build() {
+            return new ReminderFilter(this);
+        }
+    }
+}
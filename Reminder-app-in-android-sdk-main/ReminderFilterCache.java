@@ -0,0 +1,162 @@
+package com.example.reminderapp.database;
+
+import android.content.Context;
+import android.util.LruCache;
+
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderFilter;
+import com.example.reminderapp.utils.CacheRegistry;
+import com.example.reminderapp.utils.PerfMetrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ReminderFilterCache keeps the results of recent filter queries. Entries are dropped when
+ * DatabaseHelper reports a write for their user, so a cached list is never stale; a query
+ * that raced with a write is returned but not cached. Under memory pressure CacheRegistry trims
+ * it like the app's other caches.
+ */
+public final class ReminderFilterCache implements CacheRegistry.TrimmableCache {
+
+    private static final int MAX_ENTRIES = 16;
+    // Rough heap cost of a Reminder and its list slot, excluding the characters of its strings
+    private static final int REMINDER_OVERHEAD_BYTES = 96;
+
+    private static ReminderFilterCache instance;
+
+    private final Context context;
+    private final LruCache<Key, List<Reminder>> cache = new LruCache<>(MAX_ENTRIES);
+    // Bumped by every invalidation; a load only caches its result if no write happened meanwhile
+    private long generation;
+
+    private final ReminderChangeNotifier.Listener changeListener = new ReminderChangeNotifier.Listener() {
+        @Override
+        public void onRemindersChanged(int userId, int reminderId) {
+            invalidate(userId);
+        }
+    };
+
+    /**
+     * Cache key: a filter for one user and page size.
+     */
+    private static final class Key {
+        final int userId;
+        final ReminderFilter filter;
+        final int limit;
+
+        Key(int userId, ReminderFilter filter, int limit) {
+            this.userId = userId;
+            this.filter = filter;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return userId == other.userId && limit == other.limit && filter.equals(other.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * userId + limit) * 31 + filter.hashCode();
+        }
+    }
+
+    private ReminderFilterCache(Context context) {
+        this.context = context;
+        ReminderChangeNotifier.addListener(changeListener);
+    }
+
+    /**
+     * Returns the process-wide cache.
+     *
+     * @param context Context.
+     * @return Cache.
+     */
+    public static synchronized ReminderFilterCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReminderFilterCache(context.getApplicationContext());
+            CacheRegistry.register(context, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the reminders matching a filter, from the cache when possible.
+     *
+     * @param userId ID of the user.
+     * @param filter Filter.
+     * @param limit  Maximum number of reminders.
+     * @return Unmodifiable list of matching reminders, ordered by due time.
+     */
+    public List<Reminder> get(int userId, ReminderFilter filter, int limit) {
+        Key key = new Key(userId, filter, limit);
+        long loadGeneration;
+        synchronized (this) {
+            List<Reminder> cached = cache.get(key);
+            if (cached != null) {
+                PerfMetrics.record("filterCache.hit", 1);
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+
+        PerfMetrics.record("filterCache.miss", 1);
+        List<Reminder> reminders = Collections.unmodifiableList(
+                DatabaseHelper.forUser(context, userId).getFilteredReminders(userId, filter, limit));
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                cache.put(key, reminders);
+            }
+        }
+        return reminders;
+    }
+
+    @Override
+    public String getName() {
+        return "filter";
+    }
+
+    @Override
+    public synchronized void trimTo(float fraction) {
+        // Trimmed entries are still valid, so loads in flight may cache their results
+        cache.trimToSize((int) (MAX_ENTRIES * fraction));
+    }
+
+    @Override
+    public synchronized long getFootprintBytes() {
+        long bytes = 0;
+        for (List<Reminder> reminders : cache.snapshot().values()) {
+            for (Reminder reminder : reminders) {
+                bytes += REMINDER_OVERHEAD_BYTES + 2L * length(reminder.getTitle()) + reminder.getDescriptionSize();
+            }
+        }
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Drops cached results for a user, or for everyone.
+     *
+     * @param userId ID of the user, or {@link ReminderChangeNotifier#UNKNOWN} for all users.
+     */
+    public synchronized void invalidate(int userId) {
+        generation++;
+        if (userId == ReminderChangeNotifier.UNKNOWN) {
+            cache.evictAll();
+            return;
+        }
+        for (Key key : cache.snapshot().keySet()) {
+            if (key.userId == userId) {
+                cache.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.reminderapp.providers;
+
+import android.content.ContentProvider;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.UriMatcher;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.database.ReminderChangeNotifier;
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.utils.PerfMetrics;
+
+/**
+ * ReminderProvider gives other apps read access to reminders through {@link ReminderContract}.
+ * Projection, selection and sort order are pushed down into the SQLite query and the cursor is
+ * returned unread, so callers only pay for the rows and columns they actually consume.
+ * Writes still go through the app; the provider relays each one to observers of the affected URIs.
+ * Each user's reminders are in their own database, whose helper is opened by the first query for them.
+ */
+public class ReminderProvider extends ContentProvider {
+
+    private static final int MATCH_LIST = 1;
+    private static final int MATCH_UPCOMING = 2;
+    private static final int MATCH_ITEM = 3;
+
+    private static final UriMatcher uriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
+
+    static {
+        String list = ReminderContract.Reminders.PATH_USERS + "/#/" + ReminderContract.Reminders.PATH_REMINDERS;
+        uriMatcher.addURI(ReminderContract.AUTHORITY, list, MATCH_LIST);
+        uriMatcher.addURI(ReminderContract.AUTHORITY, list + "/" + ReminderContract.Reminders.PATH_UPCOMING, MATCH_UPCOMING);
+        uriMatcher.addURI(ReminderContract.AUTHORITY, list + "/#", MATCH_ITEM);
+    }
+
+    private static final String[] DEFAULT_PROJECTION = {
+            ReminderContract.Reminders._ID,
+            ReminderContract.Reminders.TITLE,
+            ReminderContract.Reminders.DESCRIPTION,
+            ReminderContract.Reminders.DUE_AT,
+            ReminderContract.Reminders.FLAGS
+    };
+
+    private DatabaseHelper directory;
+    // Guarded by itself; queries arrive on binder threads
+    private final SparseArray<DatabaseHelper> userDatabases = new SparseArray<>();
+
+    private final ReminderChangeNotifier.Listener changeListener = new ReminderChangeNotifier.Listener() {
+        @Override
+        public void onRemindersChanged(int userId, int reminderId) {
+            notifyObservers(userId, reminderId);
+        }
+    };
+
+    @Override
+    public boolean onCreate() {
+        // Helpers live as long as the provider; their connections stay open under returned cursors
+        directory = new DatabaseHelper(getContext());
+        ReminderChangeNotifier.addListener(changeListener);
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
+                        @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+        long start = PerfMetrics.begin("provider.query");
+        try {
+            int match = uriMatcher.match(uri);
+            if (match == UriMatcher.NO_MATCH) {
+                throw new IllegalArgumentException("Unknown URI: " + uri);
+            }
+            int userId = Integer.parseInt(uri.getPathSegments().get(1));
+            int reminderId = ReminderChangeNotifier.UNKNOWN;
+            String limit = uri.getQueryParameter(ReminderContract.PARAM_LIMIT);
+
+            if (match == MATCH_ITEM) {
+                reminderId = Integer.parseInt(uri.getLastPathSegment());
+            } else if (match == MATCH_UPCOMING) {
+                String upcoming = ReminderContract.Reminders.DUE_AT + " >= " + System.currentTimeMillis()
+                        + " AND (" + ReminderContract.Reminders.FLAGS + " & " + Reminder.FLAG_COMPLETED + ") = 0";
+                selection = selection == null ? upcoming : "(" + selection + ") AND " + upcoming;
+            }
+            if (sortOrder == null && match != MATCH_ITEM) {
+                sortOrder = ReminderContract.Reminders.DUE_AT + " ASC";
+            }
+
+            DatabaseHelper dbHelper = getUserDatabase(userId);
+            Cursor cursor = dbHelper != null
+                    ? dbHelper.queryReminders(userId, reminderId, projection, selection, selectionArgs, sortOrder, limit)
+                    : new MatrixCursor(projection != null ? projection : DEFAULT_PROJECTION);
+            cursor.setNotificationUri(getContext().getContentResolver(), uri);
+            return cursor;
+        } finally {
+            PerfMetrics.end("provider.query", start);
+        }
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        switch (uriMatcher.match(uri)) {
+            case MATCH_LIST:
+            case MATCH_UPCOMING:
+                return ReminderContract.Reminders.CONTENT_TYPE;
+            case MATCH_ITEM:
+                return ReminderContract.Reminders.CONTENT_ITEM_TYPE;
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        throw new UnsupportedOperationException("Reminders are read-only through this provider");
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection,
+                      @Nullable String[] selectionArgs) {
+        throw new UnsupportedOperationException("Reminders are read-only through this provider");
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
+        throw new UnsupportedOperationException("Reminders are read-only through this provider");
+    }
+
+    /**
+     * @return Helper for the user's database, or null if the user has none, so that queries
+     * for unknown users do not create database files.
+     */
+    @Nullable
+    private DatabaseHelper getUserDatabase(int userId) {
+        synchronized (userDatabases) {
+            DatabaseHelper dbHelper = userDatabases.get(userId);
+            if (dbHelper == null && directory.hasUserDatabase(userId)) {
+                dbHelper = directory.getUserDatabase(userId);
+                userDatabases.put(userId, dbHelper);
+            }
+            return dbHelper;
+        }
+    }
+
+    /**
+     * Notifies the narrowest URIs covering a change: the reminder's own URI plus the upcoming
+     * window when the row is known, the user's list URI for bulk changes, and every URI when
+     * the owner is unknown.
+     */
+    private void notifyObservers(int userId, int reminderId) {
+        ContentResolver resolver = getContext().getContentResolver();
+        if (userId == ReminderChangeNotifier.UNKNOWN) {
+            resolver.notifyChange(ReminderContract.AUTHORITY_URI, null);
+        } else if (reminderId == ReminderChangeNotifier.UNKNOWN) {
+            resolver.notifyChange(ReminderContract.Reminders.listUri(userId), null);
+        } else {
+            resolver.notifyChange(ReminderContract.Reminders.itemUri(userId, reminderId), null);
+            resolver.notifyChange(ReminderContract.Reminders.upcomingUri(userId), null);
+        }
+    }
+}
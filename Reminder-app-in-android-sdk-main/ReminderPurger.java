@@ -0,0 +1,54 @@
+package com.example.reminderapp.database;
+
+import android.content.Context;
+
+import com.example.reminderapp.utils.ReminderScheduler;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ReminderPurger permanently removes soft-deleted reminders once their undo window has
+ * passed. Each run purges everything that is due in one transaction per user database and
+ * then cancels the alarms of the purged reminders.
+ */
+public final class ReminderPurger {
+
+    // How long a soft-deleted reminder can still be restored
+    public static final long UNDO_WINDOW_MS = 10_000L;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private ReminderPurger() {
+    }
+
+    /**
+     * Queues a purge on the background thread.
+     *
+     * @param context Context.
+     */
+    public static void purgeAsync(Context context) {
+        final Context appContext = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                purge(appContext);
+            }
+        });
+    }
+
+    private static void purge(Context context) {
+        long deletedBefore = System.currentTimeMillis() - UNDO_WINDOW_MS;
+        DatabaseHelper directory = new DatabaseHelper(context);
+        for (int userId : directory.getUserIds()) {
+            if (!directory.hasUserDatabase(userId)) {
+                continue;
+            }
+            List<Integer> purged = directory.getUserDatabase(userId).purgeDeletedReminders(deletedBefore);
+            for (int id : purged) {
+                ReminderScheduler.cancel(context, userId, id);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.reminderapp.receivers;
 
+import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
@@ -12,42 +13,260 @@ import androidx.core.app.NotificationCompat;
 
 import com.example.reminderapp.R;
 import com.example.reminderapp.activities.MainActivity;
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.providers.ReminderContract;
+import com.example.reminderapp.utils.NotificationPolicy;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.ReminderScheduler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ReminderReceiver posts the notification for a due reminder. Reminders that fall in quiet
+ * hours are queued by ReminderScheduler, and those that exceed the per-minute budget go to
+ * the same persistent deferred queue here; the queue is flushed as one summary notification
+ * by the deferred-flush alarm. Reminder IDs
+ * repeat across users, so a reminder's notification is tagged with its owner.
+ */
 public class ReminderReceiver extends BroadcastReceiver {
 
+    public static final String ACTION_FLUSH_DEFERRED = "com.example.reminderapp.action.FLUSH_DEFERRED";
+
     private static final String CHANNEL_ID = "reminder_channel";
 
+    // Fixed ID, so re-posting the summary after an interrupted flush replaces it
+    private static final int SUMMARY_NOTIFICATION_ID = Integer.MIN_VALUE;
+
+    // Snooze durations offered on the notification, in minutes
+    private static final int[] SNOOZE_MINUTES = {5, 10, 60};
+
+    // Serializes queue and budget updates across deliveries
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
     @Override
-    public void onReceive(Context context, Intent intent) {
-        String title = intent.getStringExtra("title");
-        String description = intent.getStringExtra("description");
+    public void onReceive(Context context, final Intent intent) {
+        final Context appContext = context.getApplicationContext();
+        final PendingResult pendingResult = goAsync();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (ACTION_FLUSH_DEFERRED.equals(intent.getAction())) {
+                        flushDeferred(appContext);
+                    } else {
+                        deliver(appContext, intent);
+                    }
+                } finally {
+                    pendingResult.finish();
+                }
+            }
+        });
+    }
 
-        // Create notification channel if necessary
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Reminder Notifications", NotificationManager.IMPORTANCE_HIGH);
-            NotificationManager manager = context.getSystemService(NotificationManager.class);
+    /**
+     * Posts a due reminder, or queues it when quiet hours or the rate limit hold it back.
+     */
+    private void deliver(Context context, Intent intent) {
+        long start = PerfMetrics.begin("receiver.onReceive");
+        try {
+            int userId = intent.getIntExtra(ReminderScheduler.EXTRA_USER_ID, -1);
+            int reminderId = intent.getIntExtra(ReminderScheduler.EXTRA_REMINDER_ID, -1);
+            if (userId == -1) {
+                // Alarms set before reminders were stored per user carry no owner; post them as they are
+                reminderId = -1;
+            }
+            String title = intent.getStringExtra(ReminderScheduler.EXTRA_TITLE);
+            String description = intent.getStringExtra(ReminderScheduler.EXTRA_DESCRIPTION);
+            long now = System.currentTimeMillis();
+            long dueAt = intent.getLongExtra(ReminderScheduler.EXTRA_DUE_AT, now);
+
+            if (reminderId != -1) {
+                NotificationPolicy policy = new NotificationPolicy(context);
+                if (policy.isQuiet(now)) {
+                    defer(context, userId, reminderId, now, policy.quietEndAfter(now));
+                    return;
+                }
+                if (policy.isQuiet(dueAt)) {
+                    // A non-waking alarm set before quiet-hour reminders were queued when scheduled;
+                    // hand it to the flush of its own night, which every such alarm shares
+                    defer(context, userId, reminderId, now, policy.quietEndAfter(dueAt));
+                    return;
+                }
+                if (!policy.tryAcquire(now)) {
+                    defer(context, userId, reminderId, now, NotificationPolicy.nextMinute(now));
+                    return;
+                }
+            }
+
+            if (reminderId != -1) {
+                // Queued for quiet hours, then moved out of them; it is delivered now instead
+                DatabaseHelper.forUser(context, userId).removeDeferredNotification(reminderId);
+            }
+            NotificationManager manager = getNotificationManager(context);
             if (manager != null) {
-                manager.createNotificationChannel(channel);
+                long postStart = PerfMetrics.begin("receiver.notify");
+                try {
+                    if (reminderId != -1) {
+                        manager.notify(notificationTag(userId), reminderId,
+                                buildReminderNotification(context, userId, reminderId, title, description));
+                    } else {
+                        manager.notify((int) System.currentTimeMillis(),
+                                buildReminderNotification(context, userId, reminderId, title, description));
+                    }
+                } finally {
+                    PerfMetrics.end("receiver.notify", postStart);
+                }
             }
+        } finally {
+            PerfMetrics.end("receiver.onReceive", start);
         }
+    }
 
-        // Create intent to launch MainActivity when notification is clicked
-        Intent notificationIntent = new Intent(context, MainActivity.class);
-        PendingIntent pendingIntent = PendingIntent.getActivity(context, 0, notificationIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    private void defer(Context context, int userId, int reminderId, long now, long flushAt) {
+        DatabaseHelper.forUser(context, userId).enqueueDeferredNotification(reminderId, now);
+        ReminderScheduler.scheduleDeferredFlush(context, flushAt);
+        PerfMetrics.record("receiver.deferred", 1);
+    }
+
+    /**
+     * Posts the deferred queue as one notification, then removes the delivered entries.
+     * Notification IDs are fixed, so a flush interrupted between the two steps re-posts
+     * the same notification on the next run instead of delivering twice.
+     */
+    private void flushDeferred(Context context) {
+        long start = PerfMetrics.begin("receiver.flushDeferred");
+        try {
+            long now = System.currentTimeMillis();
+            NotificationPolicy policy = new NotificationPolicy(context);
+            if (policy.isQuiet(now)) {
+                ReminderScheduler.scheduleDeferredFlush(context, policy.quietEndAfter(now));
+                return;
+            }
+
+            // Each user's queue is in their own database; one summary covers all of them
+            DatabaseHelper directory = new DatabaseHelper(context);
+            List<DatabaseHelper> userDatabases = new ArrayList<>();
+            List<Reminder> queued = new ArrayList<>();
+            for (int userId : directory.getUserIds()) {
+                if (directory.hasUserDatabase(userId)) {
+                    DatabaseHelper userDatabase = directory.getUserDatabase(userId);
+                    userDatabases.add(userDatabase);
+                    queued.addAll(userDatabase.getDeferredNotifications(now));
+                }
+            }
+            NotificationManager manager = getNotificationManager(context);
+            if (manager != null && queued.size() == 1) {
+                Reminder reminder = queued.get(0);
+                manager.notify(notificationTag(reminder.getUserId()), reminder.getId(), buildReminderNotification(context,
+                        reminder.getUserId(), reminder.getId(), reminder.getTitle(), reminder.getDescription()));
+            } else if (manager != null && queued.size() > 1) {
+                manager.notify(SUMMARY_NOTIFICATION_ID, buildSummaryNotification(context, queued));
+            }
+            for (DatabaseHelper userDatabase : userDatabases) {
+                userDatabase.removeDeferredNotifications(now);
+            }
+            PerfMetrics.record("receiver.flushDeferred.rows", queued.size());
+        } finally {
+            PerfMetrics.end("receiver.flushDeferred", start);
+        }
+    }
 
+    private NotificationManager getNotificationManager(Context context) {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        // Create notification channel if necessary
+        if (manager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Reminder Notifications", NotificationManager.IMPORTANCE_HIGH);
+            manager.createNotificationChannel(channel);
+        }
+        return manager;
+    }
+
+    /**
+     * Tags the notifications of a user's reminders.
+     *
+     * @param userId Owner of the reminder.
+     * @return Notification tag.
+     */
+    static String notificationTag(int userId) {
+        return "user:" + userId;
+    }
+
+    private Notification buildReminderNotification(Context context, int userId, int reminderId, String title, String description) {
         // Build the notification
         NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
                 .setSmallIcon(R.drawable.ic_reminder)
                 .setContentTitle(title)
                 .setContentText(description)
                 .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setContentIntent(pendingIntent)
+                .setContentIntent(createContentIntent(context))
                 .setAutoCancel(true);
 
-        // Show the notification
-        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        if (manager != null) {
-            manager.notify((int) System.currentTimeMillis(), builder.build());
+        // Snooze and Done actions are handled by ReminderActionReceiver without opening the app
+        if (reminderId != -1) {
+            for (int i = 0; i < SNOOZE_MINUTES.length; i++) {
+                Intent snoozeIntent = createActionIntent(context, ReminderActionReceiver.ACTION_SNOOZE, userId, reminderId,
+                        title, description);
+                snoozeIntent.putExtra(ReminderActionReceiver.EXTRA_SNOOZE_MINUTES, SNOOZE_MINUTES[i]);
+                builder.addAction(0, "Snooze " + formatMinutes(SNOOZE_MINUTES[i]),
+                        createActionPendingIntent(context, reminderId, i, snoozeIntent));
+            }
+            Intent doneIntent = createActionIntent(context, ReminderActionReceiver.ACTION_DONE, userId, reminderId,
+                    title, description);
+            builder.addAction(0, "Done", createActionPendingIntent(context, reminderId, SNOOZE_MINUTES.length, doneIntent));
+        }
+        return builder.build();
+    }
+
+    private Notification buildSummaryNotification(Context context, List<Reminder> reminders) {
+        String title = reminders.size() + " reminders while notifications were held";
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle().setBigContentTitle(title);
+        for (Reminder reminder : reminders) {
+            style.addLine(reminder.getTime() + "  " + reminder.getTitle());
         }
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_reminder)
+                .setContentTitle(title)
+                .setContentText(reminders.get(0).getTitle())
+                .setStyle(style)
+                .setNumber(reminders.size())
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setContentIntent(createContentIntent(context))
+                .setAutoCancel(true)
+                .build();
+    }
+
+    // Create intent to launch MainActivity when notification is clicked
+    private static PendingIntent createContentIntent(Context context) {
+        Intent notificationIntent = new Intent(context, MainActivity.class);
+        return PendingIntent.getActivity(context, 0, notificationIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static Intent createActionIntent(Context context, String action, int userId, int reminderId,
+                                             String title, String description) {
+        Intent intent = new Intent(context, ReminderActionReceiver.class);
+        intent.setAction(action);
+        // Keeps the PendingIntents of equal reminder IDs of different users apart
+        intent.setData(ReminderContract.Reminders.itemUri(userId, reminderId));
+        intent.putExtra(ReminderScheduler.EXTRA_USER_ID, userId);
+        intent.putExtra(ReminderScheduler.EXTRA_REMINDER_ID, reminderId);
+        intent.putExtra(ReminderScheduler.EXTRA_TITLE, title);
+        intent.putExtra(ReminderScheduler.EXTRA_DESCRIPTION, description);
+        return intent;
+    }
+
+    /**
+     * Each action of each reminder needs a distinct request code, or PendingIntents would overwrite each other.
+     */
+    private static PendingIntent createActionPendingIntent(Context context, int reminderId, int actionIndex, Intent intent) {
+        int requestCode = reminderId * (SNOOZE_MINUTES.length + 1) + actionIndex;
+        return PendingIntent.getBroadcast(context, requestCode, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static String formatMinutes(int minutes) {
+        return minutes % 60 == 0 ? (minutes / 60) + " h" : minutes + " min";
     }
 }
@@ -0,0 +1,216 @@
+package com.example.reminderapp.utils;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.providers.ReminderContract;
+import com.example.reminderapp.receivers.ReminderReceiver;
+
+import java.util.List;
+
+/**
+ * ReminderScheduler sets and cancels the alarm that fires ReminderReceiver for a reminder.
+ * Each reminder owns one alarm, keyed by its owner and ID, so rescheduling replaces the
+ * previous one. Reminder IDs are only unique within a user's database, so the alarm intent
+ * carries the reminder's content URI, which keeps alarms of different users apart.
+ * Reminders due in quiet hours get no alarm of their own: they are queued right away, and
+ * the deferred-flush alarm for the end of that night's quiet hours wakes the device once and
+ * delivers them together, whether or not anything woke the device in between.
+ */
+public final class ReminderScheduler {
+
+    public static final String EXTRA_USER_ID = "user_id";
+    public static final String EXTRA_REMINDER_ID = "reminder_id";
+    public static final String EXTRA_TITLE = "title";
+    public static final String EXTRA_DESCRIPTION = "description";
+    public static final String EXTRA_DUE_AT = "due_at";
+
+    // Request code of the deferred-flush alarms; their action keeps them apart from reminder alarms
+    private static final int FLUSH_REQUEST_CODE = 0;
+    // Scheme of the flush alarm data URI, which carries the flush time
+    private static final String FLUSH_SCHEME = "flush";
+
+    private ReminderScheduler() {
+    }
+
+    /**
+     * Schedules the alarm for a reminder, or cancels it if the reminder is completed or past due.
+     *
+     * @param context  Context.
+     * @param reminder Reminder with an ID, owner and full description; list rows only carry a
+     *                 preview, so reload them with {@link DatabaseHelper#getReminder(int)} first.
+     */
+    public static void schedule(Context context, Reminder reminder) {
+        if (reminder.hasFlag(Reminder.FLAG_COMPLETED)) {
+            cancel(context, reminder.getUserId(), reminder.getId());
+            return;
+        }
+        schedule(context, reminder.getUserId(), reminder.getId(), reminder.getTitle(), reminder.getDescription(),
+                reminder.getDueAt());
+    }
+
+    /**
+     * Schedules the alarm for a reminder without loading it from the database. A reminder
+     * due in quiet hours is queued for the deferred flush instead.
+     *
+     * @param context     Context.
+     * @param userId      Owner of the reminder.
+     * @param reminderId  Reminder ID.
+     * @param title       Notification title.
+     * @param description Notification text.
+     * @param dueAt       Trigger time in epoch millis.
+     */
+    public static void schedule(Context context, int userId, int reminderId, String title, String description, long dueAt) {
+        if (dueAt <= System.currentTimeMillis()) {
+            // A past reminder may be waiting in the queue for the rate limit; it stays there
+            cancelAlarm(context, reminderId, createAlarmIntent(context, userId, reminderId));
+            return;
+        }
+        NotificationPolicy policy = new NotificationPolicy(context);
+        if (policy.isQuiet(dueAt)) {
+            // Held back until quiet hours end anyway, so there is no reason to wake the device
+            // at the due time; the flush delivers it from the queue. Queuing replaces any
+            // earlier entry of the reminder.
+            cancelAlarm(context, reminderId, createAlarmIntent(context, userId, reminderId));
+            DatabaseHelper.forUser(context, userId).enqueueDeferredNotification(reminderId, dueAt);
+            scheduleDeferredFlush(context, policy.quietEndAfter(dueAt));
+            return;
+        }
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        // Queued for an earlier due time in quiet hours; the alarm delivers it now, so a flush must not
+        DatabaseHelper.forUser(context, userId).removeDeferredNotification(reminderId);
+
+        Intent intent = createAlarmIntent(context, userId, reminderId);
+        intent.putExtra(EXTRA_USER_ID, userId);
+        intent.putExtra(EXTRA_REMINDER_ID, reminderId);
+        intent.putExtra(EXTRA_TITLE, title);
+        intent.putExtra(EXTRA_DESCRIPTION, description);
+        intent.putExtra(EXTRA_DUE_AT, dueAt);
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, reminderId, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        setWakeupAlarm(alarmManager, dueAt, pendingIntent);
+    }
+
+    /**
+     * Sets the alarms of every user's pending reminders again, e.g. after quiet hours change
+     * which reminders are armed and which are queued. Runs database queries, so call it off
+     * the main thread.
+     *
+     * @param context Context.
+     */
+    public static void rescheduleAll(Context context) {
+        long now = System.currentTimeMillis();
+        DatabaseHelper directory = new DatabaseHelper(context);
+        for (int userId : directory.getUserIds()) {
+            if (!directory.hasUserDatabase(userId)) {
+                continue;
+            }
+            for (Reminder reminder : directory.getUserDatabase(userId).getSchedulableReminders(now)) {
+                schedule(context, reminder);
+            }
+        }
+    }
+
+    /**
+     * Sets the alarms of reminders changed outside the app's own write paths, e.g. by a sync
+     * pull, from their stored state. Reminders that are gone or completed lose their alarm.
+     * Runs database queries, so call it off the main thread.
+     *
+     * @param context     Context.
+     * @param userId      Owner of the reminders.
+     * @param reminderIds Reminder IDs.
+     */
+    public static void reschedule(Context context, int userId, List<Integer> reminderIds) {
+        DatabaseHelper dbHelper = DatabaseHelper.forUser(context, userId);
+        for (int reminderId : reminderIds) {
+            Reminder reminder = dbHelper.getReminder(reminderId);
+            if (reminder == null) {
+                cancel(context, userId, reminderId);
+            } else {
+                schedule(context, reminder);
+            }
+        }
+    }
+
+    /**
+     * Schedules delivery of the deferred notification queue. Flush alarms are keyed by their
+     * time: every reminder held back until the same end of quiet hours shares one wakeup, and
+     * scheduling the flush of a later night, or of the rate limit, never moves an earlier one.
+     *
+     * @param context Context.
+     * @param flushAt Flush time in epoch millis.
+     */
+    public static void scheduleDeferredFlush(Context context, long flushAt) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        Intent intent = new Intent(context, ReminderReceiver.class);
+        intent.setAction(ReminderReceiver.ACTION_FLUSH_DEFERRED);
+        intent.setData(Uri.fromParts(FLUSH_SCHEME, Long.toString(flushAt), null));
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, FLUSH_REQUEST_CODE, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        setWakeupAlarm(alarmManager, flushAt, pendingIntent);
+    }
+
+    private static void setWakeupAlarm(AlarmManager alarmManager, long triggerAt, PendingIntent pendingIntent) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+        } else {
+            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+        }
+    }
+
+    /**
+     * Cancels the alarm for a reminder, if any, and takes it out of the deferred queue.
+     *
+     * @param context    Context.
+     * @param userId     Owner of the reminder.
+     * @param reminderId Reminder ID.
+     */
+    public static void cancel(Context context, int userId, int reminderId) {
+        cancelAlarm(context, reminderId, createAlarmIntent(context, userId, reminderId));
+        DatabaseHelper.forUser(context, userId).removeDeferredNotification(reminderId);
+    }
+
+    /**
+     * Cancels an alarm set before reminders were stored per user. Those alarm intents carry
+     * neither an owner nor a URI.
+     *
+     * @param context    Context.
+     * @param reminderId Reminder ID.
+     */
+    public static void cancelUnowned(Context context, int reminderId) {
+        cancelAlarm(context, reminderId, new Intent(context, ReminderReceiver.class));
+    }
+
+    /**
+     * The data URI is part of the PendingIntent identity, unlike extras.
+     */
+    private static Intent createAlarmIntent(Context context, int userId, int reminderId) {
+        Intent intent = new Intent(context, ReminderReceiver.class);
+        intent.setData(ReminderContract.Reminders.itemUri(userId, reminderId));
+        return intent;
+    }
+
+    private static void cancelAlarm(Context context, int reminderId, Intent intent) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, reminderId, intent,
+                PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE);
+        if (alarmManager != null && pendingIntent != null) {
+            alarmManager.cancel(pendingIntent);
+            pendingIntent.cancel();
+        }
+    }
+}
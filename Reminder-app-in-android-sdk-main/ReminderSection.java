@@ -0,0 +1,22 @@
+package com.example.reminderapp.models;
+
+/**
+ * ReminderSection groups reminders on the main list by status.
+ * Declaration order is the display order.
+ */
+public enum ReminderSection {
+    OVERDUE("Overdue"),
+    TODAY("Today"),
+    UPCOMING("Upcoming"),
+    COMPLETED("Completed");
+
+    private final String label;
+
+    ReminderSection(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
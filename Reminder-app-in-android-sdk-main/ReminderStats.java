@@ -0,0 +1,110 @@
+package com.example.reminderapp.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ReminderStats holds a user's usage statistics as read from the rollups: per-week counts
+ * of created and completed reminders, and the number of reminders due in each hour of the day.
+ */
+public final class ReminderStats {
+
+    /**
+     * Counts for one week.
+     */
+    public static final class Week {
+        private final String weekStart;
+        private final int created;
+        private final int completed;
+        private final int completedOnTime;
+
+        public Week(String weekStart, int created, int completed, int completedOnTime) {
+            this.weekStart = weekStart;
+            this.created = created;
+            this.completed = completed;
+            this.completedOnTime = completedOnTime;
+        }
+
+        /**
+         * @return Local date of the week's Monday, as "yyyy-MM-dd".
+         */
+        public String getWeekStart() {
+            return weekStart;
+        }
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return Reminders completed by their due time.
+         */
+        public int getCompletedOnTime() {
+            return completedOnTime;
+        }
+    }
+
+    private final List<Week> weeks;
+    private final int[] dueByHour;
+
+    /**
+     * @param weeks     Weeks, most recent first.
+     * @param dueByHour Reminders due in each local hour, indexed 0 to 23.
+     */
+    public ReminderStats(List<Week> weeks, int[] dueByHour) {
+        this.weeks = Collections.unmodifiableList(new ArrayList<>(weeks));
+        this.dueByHour = dueByHour.clone();
+    }
+
+    /**
+     * @return Weeks, most recent first.
+     */
+    public List<Week> getWeeks() {
+        return weeks;
+    }
+
+    public int getDueCount(int hour) {
+        return dueByHour[hour];
+    }
+
+    /**
+     * @return Share of the reminders completed in the listed weeks that were completed by
+     * their due time, from 0 to 1, or -1 if none were completed.
+     */
+    public float getOnTimeRate() {
+        int completed = 0;
+        int onTime = 0;
+        for (Week week : weeks) {
+            completed += week.completed;
+            onTime += week.completedOnTime;
+        }
+        return completed == 0 ? -1f : (float) onTime / completed;
+    }
+
+    /**
+     * @param count Maximum number of hours.
+     * @return Hours with reminders due, busiest first.
+     */
+    public List<Integer> getBusiestHours(int count) {
+        List<Integer> hours = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int busiest = -1;
+            for (int hour = 0; hour < dueByHour.length; hour++) {
+                if (dueByHour[hour] > 0 && !hours.contains(hour)
+                        && (busiest == -1 || dueByHour[hour] > dueByHour[busiest])) {
+                    busiest = hour;
+                }
+            }
+            if (busiest == -1) {
+                break;
+            }
+            hours.add(busiest);
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.reminderapp.models;
+
+/**
+ * ReminderTag is a fixed set of labels a reminder can carry. Each tag owns one bit, so a
+ * reminder's tags are stored as a single integer and matched with a bitmask check.
+ * Declaration order fixes the bits: append new tags, never reorder.
+ */
+public enum ReminderTag {
+    WORK("Work"),
+    HOME("Home"),
+    PERSONAL("Personal"),
+    ERRANDS("Errands"),
+    HEALTH("Health"),
+    FINANCE("Finance");
+
+    private final String label;
+
+    ReminderTag(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return Bit of this tag in a tag mask.
+     */
+    public int getBit() {
+        return 1 << ordinal();
+    }
+}
@@ -5,9 +5,11 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 
 import com.example.reminderapp.activities.LoginActivity;
+import com.example.reminderapp.database.ReminderChangeNotifier;
 
 /**
  * SessionManager manages user login sessions using SharedPreferences.
+ * Logging in or out is reported through ReminderChangeNotifier, so the widget follows the session.
  */
 public class SessionManager {
     private static final String PREF_NAME = "reminder_app_prefs";
@@ -41,6 +43,8 @@ public class SessionManager {
         editor.putInt(KEY_USER_ID, userId);
         editor.putString(KEY_USER_EMAIL, userEmail);
         editor.commit();
+        // The widget shows the previous user's reminders until it is told to reload
+        ReminderChangeNotifier.notifySessionChanged(context);
     }
 
     /**
@@ -76,6 +80,8 @@ public class SessionManager {
     public void logoutUser() {
         editor.clear();
         editor.commit();
+        // Clears the widget, so a shared device does not keep showing this user's reminders
+        ReminderChangeNotifier.notifySessionChanged(context);
         Intent intent = new Intent(context, LoginActivity.class);
         // Clear the activity stack
         intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
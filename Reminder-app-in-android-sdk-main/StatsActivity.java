@@ -0,0 +1,110 @@
+package com.example.reminderapp.activities;
+
+import android.os.Bundle;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.reminderapp.R;
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.database.StatsRebuilder;
+import com.example.reminderapp.models.ReminderStats;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.SessionManager;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * StatsActivity shows the user's reminders created and completed per week, their on-time
+ * rate and their busiest hours. It reads only the statistics rollups, so it loads in the same
+ * time however many reminders the account has.
+ */
+public class StatsActivity extends AppCompatActivity {
+
+    // Number of most recent weeks shown
+    private static final int WEEKS_SHOWN = 12;
+    private static final int BUSIEST_HOURS_SHOWN = 3;
+
+    private TextView textSummary, textWeeks;
+    private Button btnRebuild;
+    private DatabaseHelper dbHelper;
+    private SessionManager sessionManager;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stats);
+
+        sessionManager = new SessionManager(this);
+        dbHelper = DatabaseHelper.forUser(this, sessionManager.getUserId());
+
+        // Initialize views
+        textSummary = findViewById(R.id.textStatsSummary);
+        textWeeks = findViewById(R.id.textStatsWeeks);
+        btnRebuild = findViewById(R.id.buttonRebuildStats);
+
+        btnRebuild.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                btnRebuild.setEnabled(false);
+                StatsRebuilder.rebuildAsync(StatsActivity.this, sessionManager.getUserId(), new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isDestroyed()) {
+                            return;
+                        }
+                        btnRebuild.setEnabled(true);
+                        loadStats();
+                        Toast.makeText(StatsActivity.this, "Statistics rebuilt", Toast.LENGTH_SHORT).show();
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        loadStats();
+    }
+
+    private void loadStats() {
+        long start = PerfMetrics.begin("stats.load");
+        try {
+            ReminderStats stats = dbHelper.getStats(WEEKS_SHOWN);
+
+            StringBuilder summary = new StringBuilder();
+            float onTimeRate = stats.getOnTimeRate();
+            summary.append("On time: ")
+                    .append(onTimeRate < 0 ? "-" : Math.round(onTimeRate * 100) + "%")
+                    .append(" of completed reminders\nBusiest hours: ");
+            List<Integer> busiest = stats.getBusiestHours(BUSIEST_HOURS_SHOWN);
+            if (busiest.isEmpty()) {
+                summary.append("-");
+            }
+            for (int i = 0; i < busiest.size(); i++) {
+                int hour = busiest.get(i);
+                summary.append(i > 0 ? ", " : "")
+                        .append(String.format(Locale.getDefault(), "%02d:00 (%d)", hour, stats.getDueCount(hour)));
+            }
+            textSummary.setText(summary);
+
+            StringBuilder weeks = new StringBuilder("Week of       Created  Completed");
+            for (ReminderStats.Week week : stats.getWeeks()) {
+                if (week.getCreated() == 0 && week.getCompleted() == 0) {
+                    // Left behind when a week's reminders were deleted
+                    continue;
+                }
+                weeks.append('\n').append(String.format(Locale.getDefault(), "%-12s %8d %10d",
+                        week.getWeekStart(), week.getCreated(), week.getCompleted()));
+            }
+            textWeeks.setText(weeks);
+        } finally {
+            PerfMetrics.end("stats.load", start);
+        }
+    }
+}
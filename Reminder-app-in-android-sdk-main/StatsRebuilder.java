@@ -0,0 +1,73 @@
+package com.example.reminderapp.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * StatsRebuilder recomputes a user's statistics rollups from their reminders. The triggers
+ * keep the rollups current, so this is only a repair, e.g. after the time zone changed the
+ * local week and hour boundaries the rollups are bucketed by; TimeZoneChangedReceiver runs
+ * it for every user when that happens.
+ */
+public final class StatsRebuilder {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private StatsRebuilder() {
+    }
+
+    /**
+     * Queues a rebuild on the background thread.
+     *
+     * @param context    Context.
+     * @param userId     ID of the user.
+     * @param onFinished Run on the main thread when done, or null.
+     */
+    public static void rebuildAsync(Context context, final int userId, final Runnable onFinished) {
+        final Context appContext = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                DatabaseHelper.forUser(appContext, userId).recomputeStats();
+                if (onFinished != null) {
+                    new Handler(Looper.getMainLooper()).post(onFinished);
+                }
+            }
+        });
+    }
+
+    /**
+     * Queues a rebuild of every user's rollups on the background thread. Users who never
+     * stored anything are skipped.
+     *
+     * @param context    Context.
+     * @param onFinished Run on the main thread when done, or null. Also run if a rebuild failed.
+     */
+    public static void rebuildAllAsync(Context context, final Runnable onFinished) {
+        final Context appContext = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                try {
+                    DatabaseHelper directory = new DatabaseHelper(appContext);
+                    for (int userId : directory.getUserIds()) {
+                        if (directory.hasUserDatabase(userId)) {
+                            directory.getUserDatabase(userId).recomputeStats();
+                        }
+                    }
+                } finally {
+                    if (onFinished != null) {
+                        new Handler(Looper.getMainLooper()).post(onFinished);
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.reminderapp.sync;
+
+import java.io.IOException;
+
+/**
+ * SyncBackend is the server side of reminder sync. Requests and responses are
+ * gzip-compressed JSON batches encoded by {@link SyncCodec}.
+ */
+public interface SyncBackend {
+
+    /**
+     * Uploads a batch of local changes. The server keeps each record only if it wins
+     * against the server's current state; losing records come back on the next pull.
+     *
+     * @param userId Account whose reminders are synced.
+     * @param batch  Records encoded with {@link SyncCodec#encodeRecords}.
+     * @return Response encoded with {@link SyncCodec#encodePushResult}.
+     * @throws IOException If the request fails; the batch is retried on the next sync.
+     */
+    byte[] push(int userId, byte[] batch) throws IOException;
+
+    /**
+     * Downloads the records changed since a token, oldest first.
+     *
+     * @param userId Account whose reminders are synced.
+     * @param token  Token from the previous pull, or null for the first sync.
+     * @param limit  Maximum number of records in the response.
+     * @return Response encoded with {@link SyncCodec#encodePullBatch}.
+     * @throws IOException If the request fails.
+     */
+    byte[] pull(int userId, String token, int limit) throws IOException;
+}
@@ -0,0 +1,165 @@
+package com.example.reminderapp.sync;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * SyncCodec encodes sync requests and responses as gzip-compressed JSON.
+ */
+public final class SyncCodec {
+
+    private SyncCodec() {
+    }
+
+    /**
+     * A page of records returned by a pull.
+     */
+    public static final class PullBatch {
+        public final List<SyncRecord> records;
+        public final String token;
+        public final boolean hasMore;
+
+        public PullBatch(List<SyncRecord> records, String token, boolean hasMore) {
+            this.records = records;
+            this.token = token;
+            this.hasMore = hasMore;
+        }
+    }
+
+    public static byte[] encodeRecords(List<SyncRecord> records) throws IOException {
+        try {
+            JSONObject root = new JSONObject();
+            root.put("records", toJson(records));
+            return gzip(root.toString());
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode sync records", e);
+        }
+    }
+
+    public static List<SyncRecord> decodeRecords(byte[] data) throws IOException {
+        try {
+            return fromJson(new JSONObject(gunzip(data)).getJSONArray("records"));
+        } catch (JSONException e) {
+            throw new IOException("Malformed sync records", e);
+        }
+    }
+
+    public static byte[] encodePushResult(int accepted, int rejected) throws IOException {
+        try {
+            JSONObject root = new JSONObject();
+            root.put("accepted", accepted);
+            root.put("rejected", rejected);
+            return gzip(root.toString());
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode push result", e);
+        }
+    }
+
+    /**
+     * @return Number of records the server accepted.
+     */
+    public static int decodePushResult(byte[] data) throws IOException {
+        try {
+            return new JSONObject(gunzip(data)).getInt("accepted");
+        } catch (JSONException e) {
+            throw new IOException("Malformed push result", e);
+        }
+    }
+
+    public static byte[] encodePullBatch(PullBatch batch) throws IOException {
+        try {
+            JSONObject root = new JSONObject();
+            root.put("records", toJson(batch.records));
+            root.put("token", batch.token);
+            root.put("hasMore", batch.hasMore);
+            return gzip(root.toString());
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode pull batch", e);
+        }
+    }
+
+    public static PullBatch decodePullBatch(byte[] data) throws IOException {
+        try {
+            JSONObject root = new JSONObject(gunzip(data));
+            return new PullBatch(fromJson(root.getJSONArray("records")),
+                    root.optString("token", null), root.optBoolean("hasMore", false));
+        } catch (JSONException e) {
+            throw new IOException("Malformed pull batch", e);
+        }
+    }
+
+    private static JSONArray toJson(List<SyncRecord> records) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (SyncRecord record : records) {
+            JSONObject json = new JSONObject();
+            json.put("uid", record.getUid());
+            json.put("version", record.getVersion());
+            json.put("updatedAt", record.getUpdatedAt());
+            if (record.isDeleted()) {
+                json.put("deleted", true);
+            } else {
+                json.put("title", record.getTitle());
+                json.put("description", record.getDescription());
+                json.put("dueAt", record.getDueAt());
+                json.put("flags", record.getFlags());
+            }
+            array.put(json);
+        }
+        return array;
+    }
+
+    private static List<SyncRecord> fromJson(JSONArray array) throws JSONException {
+        List<SyncRecord> records = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            String uid = json.getString("uid");
+            int version = json.getInt("version");
+            long updatedAt = json.getLong("updatedAt");
+            if (json.optBoolean("deleted", false)) {
+                records.add(SyncRecord.tombstone(uid, version, updatedAt, 0));
+            } else {
+                records.add(new SyncRecord(uid, false, version, updatedAt,
+                        json.optString("title", null), json.optString("description", null),
+                        json.getLong("dueAt"), json.getInt("flags"), 0));
+            }
+        }
+        return records;
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        try {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            out.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String gunzip(byte[] data) throws IOException {
+        InputStream in = new GZIPInputStream(new ByteArrayInputStream(data));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
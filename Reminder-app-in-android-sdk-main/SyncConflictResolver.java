@@ -0,0 +1,54 @@
+package com.example.reminderapp.sync;
+
+/**
+ * SyncConflictResolver orders two states of the same reminder. Client and server both
+ * keep the greater state, so every replica converges to the same winner whatever order
+ * the changes arrive in.
+ */
+public final class SyncConflictResolver {
+
+    private SyncConflictResolver() {
+    }
+
+    /**
+     * Compares two states of the same reminder: higher version wins, then the later
+     * update, then a tombstone over content, and finally the content itself so that
+     * concurrent edits with equal versions and timestamps still have a fixed winner.
+     *
+     * @param a First state, or null if absent.
+     * @param b Second state, or null if absent.
+     * @return Positive if a wins, negative if b wins, 0 if they are identical.
+     */
+    public static int compare(SyncRecord a, SyncRecord b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        if (a.getVersion() != b.getVersion()) {
+            return a.getVersion() > b.getVersion() ? 1 : -1;
+        }
+        if (a.getUpdatedAt() != b.getUpdatedAt()) {
+            return a.getUpdatedAt() > b.getUpdatedAt() ? 1 : -1;
+        }
+        if (a.isDeleted() != b.isDeleted()) {
+            return a.isDeleted() ? 1 : -1;
+        }
+        if (a.isDeleted()) {
+            return 0;
+        }
+        if (a.getDueAt() != b.getDueAt()) {
+            return a.getDueAt() > b.getDueAt() ? 1 : -1;
+        }
+        if (a.getFlags() != b.getFlags()) {
+            return a.getFlags() > b.getFlags() ? 1 : -1;
+        }
+        int result = compareStrings(a.getTitle(), b.getTitle());
+        return result != 0 ? result : compareStrings(a.getDescription(), b.getDescription());
+    }
+
+    private static int compareStrings(String a, String b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        return Integer.signum(a.compareTo(b));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.reminderapp.sync;
+
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.utils.PerfMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SyncEngine exchanges reminder deltas with a {@link SyncBackend}.
+ * It pushes change log entries written since the last acknowledged push, then pulls
+ * server changes since the last pull token, both in bounded batches. A normal sync
+ * therefore costs requests proportional to what changed, never to the account size.
+ */
+public class SyncEngine {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final DatabaseHelper directory;
+    private final SyncBackend backend;
+
+    /**
+     * @param directory Directory database; each account is synced from its own database.
+     * @param backend   Server.
+     */
+    public SyncEngine(DatabaseHelper directory, SyncBackend backend) {
+        this.directory = directory;
+        this.backend = backend;
+    }
+
+    /**
+     * Runs one push-then-pull cycle for an account. Must not be called on the main thread.
+     * Pulled changes do not touch alarms; pass the returned IDs to
+     * {@link com.example.reminderapp.utils.ReminderScheduler#reschedule} to set, move or cancel them.
+     *
+     * @param userId Account to sync.
+     * @return IDs of the reminders changed, added or deleted by remote changes.
+     * @throws IOException If the backend fails; progress made so far is kept.
+     */
+    public synchronized List<Integer> sync(int userId) throws IOException {
+        long start = PerfMetrics.begin("sync.sync");
+        try {
+            DatabaseHelper dbHelper = directory.getUserDatabase(userId);
+            push(dbHelper, userId);
+            List<Integer> changedIds = new ArrayList<>();
+            pull(dbHelper, userId, changedIds);
+            return changedIds;
+        } finally {
+            PerfMetrics.end("sync.sync", start);
+        }
+    }
+
+    private void push(DatabaseHelper dbHelper, int userId) throws IOException {
+        while (true) {
+            List<SyncRecord> pending = dbHelper.getPendingChanges(userId, dbHelper.getPushSeq(userId), BATCH_SIZE);
+            if (pending.isEmpty()) {
+                return;
+            }
+            SyncCodec.decodePushResult(backend.push(userId, SyncCodec.encodeRecords(pending)));
+            // Rejected records lost a conflict; the winning state arrives with the pull
+            dbHelper.acknowledgePush(userId, pending.get(pending.size() - 1).getSeq());
+            PerfMetrics.record("sync.pushBatch.rows", pending.size());
+        }
+    }
+
+    private void pull(DatabaseHelper dbHelper, int userId, List<Integer> changedIds) throws IOException {
+        while (true) {
+            SyncCodec.PullBatch batch = SyncCodec.decodePullBatch(
+                    backend.pull(userId, dbHelper.getPullToken(userId), BATCH_SIZE));
+            dbHelper.applyRemoteRecords(userId, batch.records, batch.token, changedIds);
+            PerfMetrics.record("sync.pullBatch.rows", batch.records.size());
+            if (!batch.hasMore || batch.records.isEmpty()) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.reminderapp.sync;
+
+/**
+ * SyncRecord is the state of one reminder as exchanged with the sync backend.
+ * A deleted record is a tombstone and carries no content.
+ */
+public final class SyncRecord {
+
+    private final String uid;
+    private final boolean deleted;
+    private final int version;
+    private final long updatedAt;
+    private final String title;
+    private final String description;
+    private final long dueAt;
+    private final int flags;
+    // Local change log position; not sent to the backend
+    private final long seq;
+
+    public SyncRecord(String uid, boolean deleted, int version, long updatedAt,
+                      String title, String description, long dueAt, int flags, long seq) {
+        this.uid = uid;
+        this.deleted = deleted;
+        this.version = version;
+        this.updatedAt = updatedAt;
+        this.title = title;
+        this.description = description;
+        this.dueAt = dueAt;
+        this.flags = flags;
+        this.seq = seq;
+    }
+
+    /**
+     * Creates a tombstone for a deleted reminder.
+     */
+    public static SyncRecord tombstone(String uid, int version, long updatedAt, long seq) {
+        return new SyncRecord(uid, true, version, updatedAt, null, null, 0, 0, seq);
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getDueAt() {
+        return dueAt;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.reminderapp.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.ThumbnailUtils;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.example.reminderapp.database.AttachmentStore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ThumbnailLoader shows image attachments as square thumbnails in list rows. Decoding runs on
+ * background threads and samples the source down to the target size, so the main thread only
+ * ever sets a ready bitmap. Thumbnails are cached at two levels: in memory, bounded by bytes,
+ * and on disk as small JPEGs, so a thumbnail is decoded from the full image only once. Both
+ * levels evict least recently used entries first. A request can be cancelled when its view is
+ * recycled, and a cancelled request never touches the view. AttachmentStore evicts the
+ * thumbnails of an attachment when it deletes it.
+ */
+public final class ThumbnailLoader implements CacheRegistry.TrimmableCache {
+
+    private static final String DISK_DIRECTORY = "thumbnails";
+    private static final long MAX_DISK_BYTES = 16L * 1024 * 1024;
+    private static final int JPEG_QUALITY = 85;
+    // Share of the heap limit used by the memory cache
+    private static final int MEMORY_CACHE_DIVISOR = 16;
+    private static final int DECODE_THREADS = 2;
+
+    private static ThumbnailLoader instance;
+
+    private final File diskDirectory;
+    private final int maxMemoryBytes;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newFixedThreadPool(DECODE_THREADS, new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // Below the UI thread, so decoding never costs a frame
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "thumbnails");
+        }
+    });
+    // Bytes on disk, or -1 until first counted; guarded by diskDirectory
+    private long diskBytes = -1;
+
+    /**
+     * A pending thumbnail load. Only used on the main thread.
+     */
+    public static final class Request {
+        private boolean cancelled;
+        private Future<?> future;
+
+        /**
+         * Stops the load if it has not finished yet. The target view is left as it is.
+         */
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private ThumbnailLoader(Context context) {
+        diskDirectory = new File(context.getCacheDir(), DISK_DIRECTORY);
+        maxMemoryBytes = (int) (Runtime.getRuntime().maxMemory() / MEMORY_CACHE_DIVISOR);
+        memoryCache = new LruCache<String, Bitmap>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Returns the process-wide loader.
+     *
+     * @param context Context.
+     * @return Loader.
+     */
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailLoader(context.getApplicationContext());
+            CacheRegistry.register(context, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Shows an attachment's thumbnail in a view. A cached thumbnail is set right away;
+     * otherwise the view is cleared and the thumbnail is set when it has been decoded.
+     * Call on the main thread.
+     *
+     * @param context  Context.
+     * @param userId   ID of the attachment's owner.
+     * @param fileName Stored file name of the attachment.
+     * @param sizePx   Width and height of the thumbnail, in pixels.
+     * @param target   View to show it in.
+     * @return Request to cancel when the view is rebound, or null if the thumbnail was cached.
+     */
+    public Request load(Context context, final int userId, final String fileName, final int sizePx,
+                        final ImageView target) {
+        final String key = userId + "_" + fileName + "_" + sizePx;
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            PerfMetrics.record("thumbnails.memoryHit", 1);
+            target.setImageBitmap(cached);
+            return null;
+        }
+        target.setImageDrawable(null);
+        final Context appContext = context.getApplicationContext();
+        final Request request = new Request();
+        request.future = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = loadInBackground(appContext, key, userId, fileName, sizePx);
+                if (bitmap == null) {
+                    return;
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!request.cancelled) {
+                            target.setImageBitmap(bitmap);
+                        }
+                    }
+                });
+            }
+        });
+        return request;
+    }
+
+    private Bitmap loadInBackground(Context context, String key, int userId, String fileName, int sizePx) {
+        long start = PerfMetrics.begin("thumbnails.load");
+        try {
+            File cacheFile = new File(diskDirectory, key + ".jpg");
+            Bitmap bitmap = null;
+            if (cacheFile.exists()) {
+                bitmap = BitmapFactory.decodeFile(cacheFile.getPath());
+                if (bitmap != null) {
+                    // Marks the entry as recently used for disk eviction
+                    cacheFile.setLastModified(System.currentTimeMillis());
+                    PerfMetrics.record("thumbnails.diskHit", 1);
+                }
+            }
+            if (bitmap == null) {
+                bitmap = decodeThumbnail(AttachmentStore.getFile(context, userId, fileName), sizePx);
+                if (bitmap != null) {
+                    writeToDisk(cacheFile, bitmap);
+                }
+            }
+            if (bitmap != null) {
+                memoryCache.put(key, bitmap);
+            }
+            return bitmap;
+        } finally {
+            PerfMetrics.end("thumbnails.load", start);
+        }
+    }
+
+    /**
+     * Decodes an image sampled down by the largest power of two that keeps both sides at least
+     * the target size, then crops the center to a square.
+     *
+     * @return Thumbnail, or null if the file is missing or not an image.
+     */
+    private static Bitmap decodeThumbnail(File file, int sizePx) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= sizePx && options.outHeight / (sampleSize * 2) >= sizePx) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap sampled = BitmapFactory.decodeFile(file.getPath(), options);
+        if (sampled == null) {
+            return null;
+        }
+        PerfMetrics.record("thumbnails.decodeSample", sampleSize);
+        return ThumbnailUtils.extractThumbnail(sampled, sizePx, sizePx, ThumbnailUtils.OPTIONS_RECYCLE_INPUT);
+    }
+
+    /**
+     * Stores a thumbnail on disk, then evicts the least recently used files over the budget.
+     * Writes go to a temporary file first, so a reader never sees a partial thumbnail.
+     */
+    private void writeToDisk(File cacheFile, Bitmap bitmap) {
+        synchronized (diskDirectory) {
+            if (!diskDirectory.isDirectory() && !diskDirectory.mkdirs()) {
+                return;
+            }
+            File temporary = new File(diskDirectory, cacheFile.getName() + ".tmp");
+            try {
+                OutputStream output = new FileOutputStream(temporary);
+                try {
+                    bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, output);
+                } finally {
+                    output.close();
+                }
+            } catch (IOException e) {
+                temporary.delete();
+                return;
+            }
+            if (!temporary.renameTo(cacheFile)) {
+                temporary.delete();
+                return;
+            }
+            if (diskBytes < 0) {
+                diskBytes = 0;
+                File[] files = diskDirectory.listFiles();
+                for (File file : files != null ? files : new File[0]) {
+                    diskBytes += file.length();
+                }
+            } else {
+                diskBytes += cacheFile.length();
+            }
+            if (diskBytes > MAX_DISK_BYTES) {
+                trimDisk();
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the disk cache is at three quarters of its
+     * budget, so that eviction does not run on every write once the cache is full.
+     */
+    private void trimDisk() {
+        File[] files = diskDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        int evicted = 0;
+        for (File file : files) {
+            if (diskBytes <= MAX_DISK_BYTES * 3 / 4) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                diskBytes -= length;
+                evicted++;
+            }
+        }
+        PerfMetrics.record("thumbnails.diskEvicted", evicted);
+    }
+
+    /**
+     * Drops the cached thumbnails of a deleted attachment, in memory and on disk.
+     *
+     * @param context  Context.
+     * @param userId   ID of the attachment's owner.
+     * @param fileName Stored file name of the attachment.
+     */
+    public static void evict(Context context, int userId, String fileName) {
+        evictKeys(context, userId + "_" + fileName + "_");
+    }
+
+    /**
+     * Drops the cached thumbnails of all of a user's attachments, in memory and on disk.
+     *
+     * @param context Context.
+     * @param userId  ID of the user.
+     */
+    public static void evictAll(Context context, int userId) {
+        evictKeys(context, userId + "_");
+    }
+
+    /**
+     * Drops the thumbnails whose keys start with a prefix. Without a loader nothing is in
+     * memory or counted, so only the files are deleted.
+     */
+    private static void evictKeys(Context context, String prefix) {
+        ThumbnailLoader loader;
+        synchronized (ThumbnailLoader.class) {
+            loader = instance;
+        }
+        if (loader == null) {
+            deleteFiles(new File(context.getCacheDir(), DISK_DIRECTORY), prefix);
+            return;
+        }
+        for (String key : loader.memoryCache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                loader.memoryCache.remove(key);
+            }
+        }
+        synchronized (loader.diskDirectory) {
+            long freed = deleteFiles(loader.diskDirectory, prefix);
+            if (loader.diskBytes >= 0) {
+                loader.diskBytes -= freed;
+            }
+        }
+    }
+
+    /**
+     * @return Bytes freed.
+     */
+    private static long deleteFiles(File directory, String prefix) {
+        File[] files = directory.listFiles();
+        long freed = 0;
+        for (File file : files != null ? files : new File[0]) {
+            long length = file.length();
+            if (file.getName().startsWith(prefix) && file.delete()) {
+                freed += length;
+            }
+        }
+        return freed;
+    }
+
+    @Override
+    public String getName() {
+        return "thumbnails";
+    }
+
+    @Override
+    public void trimTo(float fraction) {
+        // The disk level is left alone, so trimmed thumbnails come back without a full decode
+        memoryCache.trimToSize((int) (maxMemoryBytes * fraction));
+    }
+
+    @Override
+    public long getFootprintBytes() {
+        return memoryCache.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.reminderapp.receivers;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.example.reminderapp.database.StatsRebuilder;
+
+/**
+ * TimeZoneChangedReceiver rebuilds every user's statistics when the device time zone changes,
+ * as the rollups are bucketed by local week and hour. ACTION_TIMEZONE_CHANGED is exempt from
+ * the implicit broadcast limits, so the receiver is declared in the manifest and runs even
+ * when the app is not.
+ */
+public class TimeZoneChangedReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!Intent.ACTION_TIMEZONE_CHANGED.equals(intent.getAction())) {
+            return;
+        }
+        final PendingResult pendingResult = goAsync();
+        StatsRebuilder.rebuildAllAsync(context, new Runnable() {
+            @Override
+            public void run() {
+                pendingResult.finish();
+            }
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.reminderapp.widgets;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.view.View;
+import android.widget.RemoteViews;
+
+import com.example.reminderapp.R;
+import com.example.reminderapp.activities.MainActivity;
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.database.ReminderChangeNotifier;
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.utils.PerfMetrics;
+import com.example.reminderapp.utils.SessionManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * UpcomingRemindersWidget shows the next few reminders of the logged-in user.
+ * There is no periodic update: the widget refreshes when DatabaseHelper reports a change,
+ * and once more when the head reminder becomes due, via a non-waking alarm. Logging in or
+ * out is reported as a change too; with no session the widget shows only a signed-out message.
+ */
+public class UpcomingRemindersWidget extends AppWidgetProvider {
+
+    public static final String ACTION_HEAD_DUE = "com.example.reminderapp.action.WIDGET_HEAD_DUE";
+
+    private static final int ROW_COUNT = 3;
+    private static final int[] ROW_IDS = {R.id.widgetRow1, R.id.widgetRow2, R.id.widgetRow3};
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        refreshAsync(context);
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (ReminderChangeNotifier.ACTION_REMINDERS_CHANGED.equals(action) || ACTION_HEAD_DUE.equals(action)) {
+            refreshAsync(context);
+        } else {
+            super.onReceive(context, intent);
+        }
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(createHeadDueIntent(context));
+        }
+    }
+
+    /**
+     * Runs the refresh off the main thread within the receiver's goAsync() budget.
+     */
+    private void refreshAsync(Context context) {
+        final Context appContext = context.getApplicationContext();
+        final PendingResult pendingResult = goAsync();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh(appContext);
+                } finally {
+                    pendingResult.finish();
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the next reminders with one small indexed query and pushes them to every widget instance.
+     */
+    private static void refresh(Context context) {
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        int[] appWidgetIds = appWidgetManager.getAppWidgetIds(new ComponentName(context, UpcomingRemindersWidget.class));
+        if (appWidgetIds.length == 0) {
+            return;
+        }
+
+        long start = PerfMetrics.begin("widget.refresh");
+        try {
+            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_upcoming_reminders);
+            Intent launchIntent = new Intent(context, MainActivity.class);
+            views.setOnClickPendingIntent(R.id.widgetRoot, PendingIntent.getActivity(context, 0, launchIntent,
+                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE));
+
+            SessionManager sessionManager = new SessionManager(context);
+            List<Reminder> upcoming = null;
+            if (sessionManager.isLoggedIn()) {
+                long now = System.currentTimeMillis();
+                upcoming = DatabaseHelper.forUser(context, sessionManager.getUserId()).getUpcomingReminders(sessionManager.getUserId(), now, ROW_COUNT);
+            }
+
+            for (int i = 0; i < ROW_COUNT; i++) {
+                if (upcoming != null && i < upcoming.size()) {
+                    Reminder reminder = upcoming.get(i);
+                    views.setTextViewText(ROW_IDS[i], reminder.getDate() + " " + reminder.getTime() + "  " + reminder.getTitle());
+                    views.setViewVisibility(ROW_IDS[i], View.VISIBLE);
+                } else {
+                    views.setViewVisibility(ROW_IDS[i], View.GONE);
+                }
+            }
+            boolean empty = upcoming == null || upcoming.isEmpty();
+            // Signed out: no rows and no head alarm, only the prompt to log in
+            views.setTextViewText(R.id.widgetEmpty, upcoming == null ? "Log in to see reminders" : "No upcoming reminders");
+            views.setViewVisibility(R.id.widgetEmpty, empty ? View.VISIBLE : View.GONE);
+            appWidgetManager.updateAppWidget(appWidgetIds, views);
+
+            scheduleHeadDue(context, empty ? -1 : upcoming.get(0).getDueAt());
+        } finally {
+            PerfMetrics.end("widget.refresh", start);
+        }
+    }
+
+    /**
+     * Schedules one refresh for when the head reminder becomes due. RTC (not RTC_WAKEUP)
+     * so a sleeping device is not woken just to redraw the widget.
+     */
+    private static void scheduleHeadDue(Context context, long dueAt) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        PendingIntent pendingIntent = createHeadDueIntent(context);
+        if (dueAt == -1) {
+            alarmManager.cancel(pendingIntent);
+        } else {
+            alarmManager.set(AlarmManager.RTC, dueAt + 1, pendingIntent);
+        }
+    }
+
+    private static PendingIntent createHeadDueIntent(Context context) {
+        Intent intent = new Intent(context, UpcomingRemindersWidget.class);
+        intent.setAction(ACTION_HEAD_DUE);
+        return PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
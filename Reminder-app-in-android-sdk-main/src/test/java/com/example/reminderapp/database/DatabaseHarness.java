@@ -0,0 +1,65 @@
+package com.example.reminderapp.database;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DatabaseHarness opens throwaway directory and user databases with the real schema, for
+ * tests running on the JVM under Robolectric. Every file it creates is deleted by close().
+ */
+public class DatabaseHarness {
+
+    private final Context context;
+    private final String directoryName;
+    private final DatabaseHelper directory;
+    private final List<DatabaseHelper> userDatabases = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param directoryName File name of the directory database; user databases are named after it.
+     */
+    public DatabaseHarness(String directoryName) {
+        this.context = ApplicationProvider.getApplicationContext();
+        this.directoryName = directoryName;
+        context.deleteDatabase(directoryName);
+        this.directory = new DatabaseHelper(context, directoryName);
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public DatabaseHelper getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Opens the database of one of the directory's users, creating it on first use.
+     *
+     * @param userId ID of the user.
+     * @return Helper for the user's database.
+     */
+    public DatabaseHelper openUser(int userId) {
+        DatabaseHelper helper = directory.getUserDatabase(userId);
+        userDatabases.add(helper);
+        return helper;
+    }
+
+    /**
+     * Closes every helper and deletes the files of the directory and its user databases.
+     */
+    public void close() {
+        for (DatabaseHelper helper : userDatabases) {
+            helper.close();
+            context.deleteDatabase(helper.getDatabaseName());
+        }
+        userDatabases.clear();
+        directory.close();
+        context.deleteDatabase(directoryName);
+    }
+}
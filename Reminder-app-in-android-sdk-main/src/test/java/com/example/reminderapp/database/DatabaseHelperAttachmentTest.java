@@ -0,0 +1,85 @@
+package com.example.reminderapp.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderAttachment;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Checks that attachment rows and files are brought back in line after a restore, which
+ * restores the rows but not the files.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class DatabaseHelperAttachmentTest {
+
+    private static final int USER_ID = 1;
+
+    private DatabaseHarness harness;
+    private Context context;
+    private DatabaseHelper db;
+    private int reminderId;
+
+    @Before
+    public void setUp() {
+        harness = new DatabaseHarness("attachment_test.db");
+        context = harness.getContext();
+        db = harness.openUser(USER_ID);
+        reminderId = (int) db.addReminder(Reminder.builder().setTitle("Passport").setUserId(USER_ID).build());
+    }
+
+    @After
+    public void tearDown() {
+        AttachmentStore.deleteAll(context, USER_ID);
+        harness.close();
+    }
+
+    @Test
+    public void reconcileDropsRowsWithoutFilesAndFilesWithoutRows() throws IOException {
+        File kept = createFile("kept");
+        File orphan = createFile("added-after-backup");
+        db.addAttachment(reminderId, new ReminderAttachment(0, 0, "kept", "image/png", "scan.png"));
+        db.addAttachment(reminderId, new ReminderAttachment(0, 0, "deleted-after-backup", "image/png", "old.png"));
+
+        assertEquals(1, db.reconcileAttachments());
+
+        List<ReminderAttachment> attachments = db.getAttachments(reminderId);
+        assertEquals(1, attachments.size());
+        assertEquals("kept", attachments.get(0).getFileName());
+        assertTrue(kept.exists());
+        assertFalse(orphan.exists());
+    }
+
+    @Test
+    public void reconcileKeepsMatchingRowsAndFiles() throws IOException {
+        File file = createFile("kept");
+        db.addAttachment(reminderId, new ReminderAttachment(0, 0, "kept", "application/pdf", "ticket.pdf"));
+
+        assertEquals(0, db.reconcileAttachments());
+
+        assertEquals(1, db.getAttachments(reminderId).size());
+        assertTrue(file.exists());
+    }
+
+    private File createFile(String fileName) throws IOException {
+        File file = AttachmentStore.getFile(context, USER_ID, fileName);
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        assertTrue(file.createNewFile());
+        return file;
+    }
+}
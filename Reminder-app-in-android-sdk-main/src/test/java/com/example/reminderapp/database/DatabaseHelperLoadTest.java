@@ -0,0 +1,221 @@
+package com.example.reminderapp.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderSection;
+import com.example.reminderapp.utils.ReminderDataGenerator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads a generated data set into a user database through the batch insert, and checks
+ * that the list queries return exactly what was generated, and that inserts, lists, updates
+ * and deletes stay within their time budgets. The budgets are per row and generous, so they
+ * catch regressions such as a lost transaction or index, not machine noise.
+ *
+ * <p>The row count defaults to {@value #DEFAULT_ROWS}; pass e.g. -Dreminderapp.loadTest.rows=100000
+ * to the test JVM for a large run.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class DatabaseHelperLoadTest {
+
+    private static final long SEED = 20261019L;
+    // 2026-09-21T14:13:20Z; fixed so every run generates the same rows
+    private static final long ORIGIN = 1_790_000_000_000L;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final int USER_ID = 1;
+    private static final int DEFAULT_ROWS = 5000;
+    private static final int ROWS = Integer.getInteger("reminderapp.loadTest.rows", DEFAULT_ROWS);
+    // Single-row updates and deletes each open and close the database, so a sample is timed
+    private static final int SAMPLED_OPS = Math.min(ROWS, 500);
+
+    // Budgets in microseconds
+    private static final long INSERT_BUDGET_PER_ROW = 200;
+    private static final long LIST_BUDGET_PER_ROW = 100;
+    private static final long UPDATE_BUDGET_MEAN = 5_000;
+    private static final long UPDATE_BUDGET_P95 = 20_000;
+    private static final long DELETE_BUDGET_MEAN = 5_000;
+    private static final long DELETE_BUDGET_P95 = 20_000;
+    private static final long BATCH_DELETE_BUDGET_PER_ROW = 100;
+
+    private DatabaseHarness harness;
+    private DatabaseHelper db;
+    private List<Reminder> generated;
+
+    @Before
+    public void setUp() {
+        harness = new DatabaseHarness("load_test.db");
+        db = harness.openUser(USER_ID);
+        generated = new ReminderDataGenerator(SEED, ORIGIN).generateForUser(USER_ID, ROWS);
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void batchInsertStoresEveryRow() {
+        long start = System.nanoTime();
+        int inserted = db.addReminders(generated);
+        long insertMicros = (System.nanoTime() - start) / 1000;
+
+        assertEquals(ROWS, inserted);
+        assertWithinBudget("addReminders", insertMicros, INSERT_BUDGET_PER_ROW * ROWS);
+    }
+
+    @Test
+    public void listReturnsEveryRowInOrder() {
+        db.addReminders(generated);
+
+        long start = System.nanoTime();
+        List<Reminder> all = db.getAllReminders(USER_ID);
+        long listMicros = (System.nanoTime() - start) / 1000;
+
+        assertEquals(ROWS, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getDueAt() <= all.get(i).getDueAt());
+        }
+        assertWithinBudget("getAllReminders", listMicros, LIST_BUDGET_PER_ROW * ROWS);
+    }
+
+    @Test
+    public void updatesStayWithinBudget() {
+        db.addReminders(generated);
+
+        long[] micros = new long[SAMPLED_OPS];
+        for (int i = 0; i < SAMPLED_OPS; i++) {
+            int id = spread(i);
+            Reminder updated = generated.get(id - 1).toBuilder().setId(id).setTitle("Updated " + i).build();
+            long start = System.nanoTime();
+            assertEquals(1, db.updateReminder(updated));
+            micros[i] = (System.nanoTime() - start) / 1000;
+        }
+
+        assertEquals("Updated 0", db.getReminder(spread(0)).getTitle());
+        assertLatencies("updateReminder", micros, UPDATE_BUDGET_MEAN, UPDATE_BUDGET_P95);
+    }
+
+    @Test
+    public void deletesStayWithinBudget() {
+        db.addReminders(generated);
+
+        long[] micros = new long[SAMPLED_OPS];
+        for (int i = 0; i < SAMPLED_OPS; i++) {
+            long start = System.nanoTime();
+            assertEquals(1, db.deleteReminder(spread(i)));
+            micros[i] = (System.nanoTime() - start) / 1000;
+        }
+        assertLatencies("deleteReminder", micros, DELETE_BUDGET_MEAN, DELETE_BUDGET_P95);
+
+        List<Integer> remaining = new ArrayList<>();
+        for (Reminder reminder : db.getAllReminders(USER_ID)) {
+            remaining.add(reminder.getId());
+        }
+        assertEquals(ROWS - SAMPLED_OPS, remaining.size());
+        long start = System.nanoTime();
+        assertEquals(remaining.size(), db.softDeleteReminders(USER_ID, remaining));
+        long batchMicros = (System.nanoTime() - start) / 1000;
+
+        assertTrue(db.getAllReminders(USER_ID).isEmpty());
+        assertWithinBudget("softDeleteReminders", batchMicros, BATCH_DELETE_BUDGET_PER_ROW * remaining.size());
+    }
+
+    @Test
+    public void storedRowsMatchGeneratedOnes() {
+        db.addReminders(generated);
+
+        // IDs follow insertion order in a new database
+        for (int i = 0; i < ROWS; i += 97) {
+            Reminder expected = generated.get(i);
+            Reminder stored = db.getReminder(i + 1);
+            assertNotNull(stored);
+            assertEquals(expected.getTitle(), stored.getTitle());
+            assertEquals(expected.getDescription(), stored.getDescription());
+            assertEquals(expected.getDueAt(), stored.getDueAt());
+            assertEquals(expected.getTags(), stored.getTags());
+            assertEquals(expected.getPriority(), stored.getPriority());
+            assertEquals(USER_ID, stored.getUserId());
+        }
+    }
+
+    @Test
+    public void sectionCountsMatchGeneratedDueTimes() {
+        db.addReminders(generated);
+        long startOfTomorrow = ORIGIN + DAY;
+
+        int[] expected = new int[ReminderSection.values().length];
+        for (Reminder reminder : generated) {
+            if (reminder.getDueAt() < ORIGIN) {
+                expected[ReminderSection.OVERDUE.ordinal()]++;
+            } else if (reminder.getDueAt() < startOfTomorrow) {
+                expected[ReminderSection.TODAY.ordinal()]++;
+            } else {
+                expected[ReminderSection.UPCOMING.ordinal()]++;
+            }
+        }
+
+        int[] counts = db.getSectionCounts(USER_ID, ORIGIN, startOfTomorrow);
+        for (ReminderSection section : ReminderSection.values()) {
+            assertEquals(section.name(), expected[section.ordinal()], counts[section.ordinal()]);
+        }
+        List<Reminder> today = db.getSectionReminders(USER_ID, ReminderSection.TODAY, ORIGIN, startOfTomorrow, 0, ROWS);
+        assertEquals(expected[ReminderSection.TODAY.ordinal()], today.size());
+    }
+
+    @Test
+    public void upcomingReturnsEarliestOpenReminders() {
+        db.addReminders(generated);
+
+        List<Reminder> upcoming = db.getUpcomingReminders(USER_ID, ORIGIN, 10);
+        assertEquals(10, upcoming.size());
+        long tenthDueAt = upcoming.get(9).getDueAt();
+        int earlier = 0;
+        for (Reminder reminder : generated) {
+            if (reminder.getDueAt() >= ORIGIN && reminder.getDueAt() < tenthDueAt) {
+                earlier++;
+            }
+        }
+        assertTrue(earlier < 10);
+        for (Reminder reminder : upcoming) {
+            assertTrue(reminder.getDueAt() >= ORIGIN);
+        }
+    }
+
+    /**
+     * Spreads the sampled operations over the whole table, so they do not all hit one page.
+     *
+     * @return Reminder ID, which follows insertion order in a new database.
+     */
+    private static int spread(int i) {
+        return (int) ((long) i * ROWS / SAMPLED_OPS) + 1;
+    }
+
+    private static void assertWithinBudget(String operation, long micros, long budgetMicros) {
+        assertTrue(operation + " took " + micros + " us, budget " + budgetMicros + " us", micros <= budgetMicros);
+    }
+
+    private static void assertLatencies(String operation, long[] micros, long meanBudget, long p95Budget) {
+        long total = 0;
+        for (long value : micros) {
+            total += value;
+        }
+        long[] sorted = micros.clone();
+        Arrays.sort(sorted);
+        assertWithinBudget(operation + " mean", total / micros.length, meanBudget);
+        assertWithinBudget(operation + " p95", sorted[(int) (sorted.length * 0.95)], p95Budget);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.reminderapp.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import com.example.reminderapp.models.Reminder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+/**
+ * Checks that snoozing from a notification only touches reminders that still exist.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class DatabaseHelperSnoozeTest {
+
+    private static final int USER_ID = 1;
+    private static final long DUE_AT = 1_790_000_000_000L;
+
+    private DatabaseHarness harness;
+    private DatabaseHelper db;
+    private int reminderId;
+
+    @Before
+    public void setUp() {
+        harness = new DatabaseHarness("snooze_test.db");
+        db = harness.openUser(USER_ID);
+        reminderId = (int) db.addReminder(Reminder.builder()
+                .setTitle("Take medicine")
+                .setDueAt(DUE_AT)
+                .setFlags(Reminder.FLAG_COMPLETED)
+                .setUserId(USER_ID)
+                .build());
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void snoozeMovesDueTimeAndReopens() {
+        assertEquals(1, db.snoozeReminder(reminderId, DUE_AT + 600_000));
+
+        Reminder snoozed = db.getReminder(reminderId);
+        assertEquals(DUE_AT + 600_000, snoozed.getDueAt());
+        assertFalse(snoozed.hasFlag(Reminder.FLAG_COMPLETED));
+    }
+
+    @Test
+    public void snoozeLeavesDeletedReminderAlone() {
+        db.softDeleteReminders(USER_ID, Collections.singletonList(reminderId));
+
+        assertEquals(0, db.snoozeReminder(reminderId, DUE_AT + 600_000));
+        assertNull(db.getReminder(reminderId));
+        db.restoreReminders(USER_ID, Collections.singletonList(reminderId));
+        assertEquals(DUE_AT, db.getReminder(reminderId).getDueAt());
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.reminderapp.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.reminderapp.models.Reminder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Upgrades a synthetic version 1 database to the current schema, holds the upgrade and each
+ * backfill chunk to a time budget, and checks that every reminder reaches its owner's
+ * database intact.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class DatabaseMigrationTest {
+
+    private static final String DIRECTORY_NAME = "migration_test.db";
+    private static final int USERS = 3;
+    // Several chunks per backfill
+    private static final int ROWS = 5000;
+    // Budgets in microseconds; loose, they only catch an upgrade or chunk gone quadratic
+    private static final long UPGRADE_BUDGET = 2_000_000;
+    private static final long CHUNK_BUDGET = 1_000_000;
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+    private DatabaseHarness harness;
+
+    @Before
+    public void setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        harness = new DatabaseHarness(DIRECTORY_NAME);
+        createVersion1Database();
+    }
+
+    @After
+    public void tearDown() {
+        // The upgrade created a database for every user; registering them gets them deleted
+        for (int userId = 1; userId <= USERS; userId++) {
+            harness.openUser(userId);
+        }
+        harness.close();
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void upgradeFromVersion1PreservesReminders() {
+        DatabaseHelper directory = harness.getDirectory();
+        long start = System.nanoTime();
+        directory.getWritableDatabase().close();
+        long upgradeMicros = (System.nanoTime() - start) / 1000;
+
+        long pending = directory.countPendingBackfillRows();
+        int chunks = 0;
+        long slowestChunkMicros = 0;
+        start = System.nanoTime();
+        while (true) {
+            long chunkStart = System.nanoTime();
+            if (directory.runBackfillChunk() < 0) {
+                break;
+            }
+            chunks++;
+            slowestChunkMicros = Math.max(slowestChunkMicros, (System.nanoTime() - chunkStart) / 1000);
+        }
+        long backfillMicros = (System.nanoTime() - start) / 1000;
+
+        assertTrue("upgrade 1->" + DatabaseHelper.DATABASE_VERSION + " took " + upgradeMicros + " us",
+                upgradeMicros <= UPGRADE_BUDGET);
+        assertTrue("slowest of " + chunks + " chunks took " + slowestChunkMicros + " us, backfill of " + pending
+                + " rows " + backfillMicros + " us", slowestChunkMicros <= CHUNK_BUDGET);
+        assertTrue(chunks > 1);
+        assertEquals(0, directory.countPendingBackfillRows());
+        assertEquals(USERS, directory.getUserIds().size());
+
+        int found = 0;
+        for (int userId = 1; userId <= USERS; userId++) {
+            DatabaseHelper userDb = harness.openUser(userId);
+            assertEquals(0, userDb.countPendingBackfillRows());
+            List<Reminder> reminders = userDb.getAllReminders(userId);
+            for (Reminder reminder : reminders) {
+                int i = reminder.getId() - 1;
+                assertEquals(ownerOf(i), reminder.getUserId());
+                assertEquals(titleOf(i), reminder.getTitle());
+                assertEquals(descriptionOf(i), reminder.getDescription());
+                assertEquals(expectedDueAt(i), reminder.getDueAt());
+            }
+            // Version 3 logged every reminder for the first sync; the log moved with them
+            assertEquals(reminders.size(), userDb.getPendingChanges(userId, 0, ROWS).size());
+            found += reminders.size();
+        }
+        assertEquals(ROWS, found);
+    }
+
+    @Test
+    public void remindersAddedAfterUpgradeDoNotCollide() {
+        DatabaseHelper directory = harness.getDirectory();
+        directory.getWritableDatabase().close();
+        DatabaseHelper userDb = harness.openUser(1);
+
+        // Added while the backfill has not moved the old rows yet
+        long id = userDb.addReminder(Reminder.builder().setTitle("New").setDueAt(1L).setUserId(1).build());
+        while (directory.runBackfillChunk() >= 0) {
+            // Drain
+        }
+
+        assertTrue(id > ROWS);
+        Reminder added = userDb.getReminder((int) id);
+        assertNotNull(added);
+        assertEquals("New", added.getTitle());
+        assertEquals(titleOf(0), userDb.getReminder(1).getTitle());
+    }
+
+    /**
+     * Writes a directory database the way version 1 of the app did: users, and reminders with
+     * their due time as date and time text.
+     */
+    private void createVersion1Database() {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(harness.getContext().getDatabasePath(DIRECTORY_NAME), null);
+        db.execSQL("CREATE TABLE users(id INTEGER PRIMARY KEY AUTOINCREMENT, email TEXT UNIQUE, password TEXT)");
+        db.execSQL("CREATE TABLE reminders(id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, description TEXT,"
+                + " date TEXT, time TEXT, user_id INTEGER, FOREIGN KEY(user_id) REFERENCES users(id))");
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            for (int userId = 1; userId <= USERS; userId++) {
+                values.clear();
+                values.put("email", "user" + userId + "@example.com");
+                values.put("password", "secret");
+                db.insert("users", null, values);
+            }
+            for (int i = 0; i < ROWS; i++) {
+                values.clear();
+                values.put("title", titleOf(i));
+                values.put("description", descriptionOf(i));
+                values.put("date", String.format(Locale.ROOT, "%d/%d/%d", dayOf(i), monthOf(i), 2026));
+                values.put("time", String.format(Locale.ROOT, "%02d:%02d", hourOf(i), minuteOf(i)));
+                values.put("user_id", ownerOf(i));
+                db.insert("reminders", null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.setVersion(1);
+        db.close();
+    }
+
+    private static int ownerOf(int i) {
+        return i % USERS + 1;
+    }
+
+    private static String titleOf(int i) {
+        return "Reminder " + i;
+    }
+
+    private static String descriptionOf(int i) {
+        return i % 4 == 0 ? "" : "Details of reminder " + i;
+    }
+
+    private static int dayOf(int i) {
+        return i % 28 + 1;
+    }
+
+    private static int monthOf(int i) {
+        return i % 12 + 1;
+    }
+
+    private static int hourOf(int i) {
+        return i % 24;
+    }
+
+    private static int minuteOf(int i) {
+        return i * 7 % 60;
+    }
+
+    private static long expectedDueAt(int i) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2026, monthOf(i) - 1, dayOf(i), hourOf(i), minuteOf(i));
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.reminderapp.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentCallbacks2;
+
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.models.ReminderFilter;
+import com.example.reminderapp.utils.CacheRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+/**
+ * Checks that filter results stay correct after the cache has been emptied by a trim.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ReminderFilterCacheTest {
+
+    // The cache reads the live databases
+    private static final String LIVE_DIRECTORY = "reminder_app.db";
+    private static final int USER_ID = 1;
+    private static final int LIMIT = 50;
+
+    private DatabaseHarness harness;
+    private DatabaseHelper db;
+
+    @Before
+    public void setUp() {
+        harness = new DatabaseHarness(LIVE_DIRECTORY);
+        db = harness.openUser(USER_ID);
+        for (int i = 0; i < 10; i++) {
+            db.addReminder(Reminder.builder().setTitle("Reminder " + i).setDescription("Details " + i)
+                    .setDueAt(1_790_000_000_000L + i * 60_000L).setUserId(USER_ID).build());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void resultsAreReloadedAfterCompleteTrim() {
+        ReminderFilterCache cache = ReminderFilterCache.getInstance(harness.getContext());
+        ReminderFilter filter = ReminderFilter.builder().build();
+
+        List<Reminder> loaded = cache.get(USER_ID, filter, LIMIT);
+        assertEquals(10, loaded.size());
+        assertSame(loaded, cache.get(USER_ID, filter, LIMIT));
+        assertTrue(cache.getFootprintBytes() > 0);
+
+        CacheRegistry.trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, cache.getFootprintBytes());
+
+        List<Reminder> reloaded = cache.get(USER_ID, filter, LIMIT);
+        assertNotSame(loaded, reloaded);
+        assertEquals(loaded.size(), reloaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals(loaded.get(i).getId(), reloaded.get(i).getId());
+            assertEquals(loaded.get(i).getTitle(), reloaded.get(i).getTitle());
+            assertEquals(loaded.get(i).getDescription(), reloaded.get(i).getDescription());
+        }
+
+        // Writes after the trim still invalidate the regrown cache
+        db.addReminder(Reminder.builder().setTitle("Late").setDueAt(1_790_000_000_000L).setUserId(USER_ID).build());
+        assertEquals(11, cache.get(USER_ID, filter, LIMIT).size());
+    }
+}
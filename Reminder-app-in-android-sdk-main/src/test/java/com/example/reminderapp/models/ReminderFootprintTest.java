@@ -0,0 +1,72 @@
+package com.example.reminderapp.models;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Measures the heap a reminder retains, before and after its date, time and description
+ * have been read the way a list row binds them. Counts are large enough that a few
+ * stray allocations between the two heap readings average out.
+ */
+public class ReminderFootprintTest {
+
+    private static final int COUNT = 20_000;
+    // Object header, ten fields and a 30-byte description array, with room for padding
+    private static final long BYTES_PER_REMINDER = 160;
+    // Binding may only touch the shared, bounded formatting caches
+    private static final long BYTES_PER_BIND = 8;
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Test
+    public void bindingDoesNotGrowReminders() {
+        long base = System.currentTimeMillis();
+        Reminder[] reminders = new Reminder[COUNT];
+        // Load the Calendar and time zone classes up front so they don't count as binding
+        bind(reminders, build(reminders, base, 1));
+
+        long before = usedHeap();
+        build(reminders, base, COUNT);
+        long built = usedHeap();
+        int length = bind(reminders, COUNT);
+        long bound = usedHeap();
+
+        long perReminder = (built - before) / COUNT;
+        long perBind = (bound - built) / COUNT;
+        assertTrue("reminder retains " + perReminder + " bytes", perReminder <= BYTES_PER_REMINDER);
+        assertTrue("binding retains " + perBind + " bytes per reminder", perBind <= BYTES_PER_BIND);
+        // Keep everything reachable until the last reading
+        assertTrue(length > 0 && reminders[COUNT - 1] != null);
+    }
+
+    private static int build(Reminder[] reminders, long base, int count) {
+        for (int i = 0; i < count; i++) {
+            reminders[i] = Reminder.builder()
+                    .setId(i)
+                    .setTitle("Renew passport")
+                    .setDescription("Bring the old one and a photo")
+                    .setDueAt(base + i * HOUR)
+                    .build();
+        }
+        return count;
+    }
+
+    private static int bind(Reminder[] reminders, int count) {
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            Reminder reminder = reminders[i];
+            length += reminder.getDescription().length() + reminder.getDate().length() + reminder.getTime().length();
+        }
+        return length;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.reminderapp.models;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+/**
+ * Checks the text a reminder derives from its stored fields, and that it survives toBuilder().
+ */
+public class ReminderTest {
+
+    @Test
+    public void descriptionRoundTripsThroughUtf8() {
+        Reminder reminder = Reminder.builder().setTitle("Pay rent").setDescription("Transfer to landlord €").build();
+
+        assertEquals("Transfer to landlord €", reminder.getDescription());
+        assertEquals(24, reminder.getDescriptionSize());
+    }
+
+    @Test
+    public void emptyDescriptionReadsAsEmptyString() {
+        Reminder reminder = Reminder.builder().setTitle("Gym").setDescription(null).build();
+
+        assertEquals("", reminder.getDescription());
+        assertEquals(0, reminder.getDescriptionSize());
+    }
+
+    @Test
+    public void dateAndTimeAreFormattedFromDueAt() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2026, Calendar.MARCH, 7, 9, 5);
+        Reminder reminder = Reminder.builder().setTitle("Dentist").setDueAt(calendar.getTimeInMillis()).build();
+
+        assertEquals("7/3/2026", reminder.getDate());
+        assertEquals("09:05", reminder.getTime());
+
+        calendar.set(2026, Calendar.MARCH, 8, 21, 30);
+        Reminder later = reminder.toBuilder().setDueAt(calendar.getTimeInMillis()).build();
+        assertEquals("8/3/2026", later.getDate());
+        assertEquals("21:30", later.getTime());
+    }
+
+    @Test
+    public void editedCopyKeepsDescription() {
+        Reminder reminder = Reminder.builder().setTitle("Call mom").setDescription("Sunday").build();
+        Reminder copy = reminder.toBuilder().setTitle("Call dad").build();
+
+        assertEquals("Sunday", copy.getDescription());
+        assertEquals("Call dad", copy.getTitle());
+    }
+}
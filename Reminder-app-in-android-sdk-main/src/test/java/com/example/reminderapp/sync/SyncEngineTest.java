@@ -0,0 +1,172 @@
+package com.example.reminderapp.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.AlarmManager;
+import android.content.Context;
+
+import com.example.reminderapp.database.DatabaseHarness;
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.models.Reminder;
+import com.example.reminderapp.utils.NotificationPolicy;
+import com.example.reminderapp.utils.ReminderScheduler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Syncs two devices of one account through {@link InMemorySyncBackend}: reminders made on
+ * one show up on the other, only deltas travel, large changes go in batches, deletes
+ * propagate as tombstones, and concurrent edits converge on one winner.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class SyncEngineTest {
+
+    private static final int USER_ID = 1;
+    // Matches SyncEngine's batch size
+    private static final int BATCH_SIZE = 200;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private InMemorySyncBackend backend;
+    private DatabaseHarness phoneHarness;
+    private DatabaseHarness tabletHarness;
+    private DatabaseHelper phone;
+    private DatabaseHelper tablet;
+    private SyncEngine phoneSync;
+    private SyncEngine tabletSync;
+    private long tomorrow;
+
+    @Before
+    public void setUp() {
+        tomorrow = (System.currentTimeMillis() / DAY + 1) * DAY + 12 * 60 * 60 * 1000L;
+        backend = new InMemorySyncBackend();
+        phoneHarness = new DatabaseHarness("sync_phone.db");
+        tabletHarness = new DatabaseHarness("sync_tablet.db");
+        phone = phoneHarness.openUser(USER_ID);
+        tablet = tabletHarness.openUser(USER_ID);
+        phoneSync = new SyncEngine(phoneHarness.getDirectory(), backend);
+        tabletSync = new SyncEngine(tabletHarness.getDirectory(), backend);
+    }
+
+    @After
+    public void tearDown() {
+        phoneHarness.close();
+        tabletHarness.close();
+    }
+
+    @Test
+    public void remindersRoundTripToOtherDevice() throws IOException {
+        phone.addReminder(reminder("Pay rent", "Transfer to landlord", tomorrow));
+        phone.addReminder(reminder("Dentist", "", tomorrow + DAY));
+
+        assertTrue(phoneSync.sync(USER_ID).isEmpty());
+        List<Integer> changed = tabletSync.sync(USER_ID);
+
+        List<Reminder> synced = tablet.getAllReminders(USER_ID);
+        assertEquals(2, synced.size());
+        assertEquals(2, changed.size());
+        assertEquals("Pay rent", synced.get(0).getTitle());
+        assertEquals("Transfer to landlord", tablet.getReminder(synced.get(0).getId()).getDescription());
+        assertEquals(tomorrow + DAY, synced.get(1).getDueAt());
+    }
+
+    @Test
+    public void syncSendsOnlyDeltas() throws IOException {
+        int id = (int) phone.addReminder(reminder("Pay rent", "", tomorrow));
+        phoneSync.sync(USER_ID);
+        tabletSync.sync(USER_ID);
+
+        int pushes = backend.getPushCount();
+        assertTrue(phoneSync.sync(USER_ID).isEmpty());
+        assertEquals(pushes, backend.getPushCount());
+
+        Reminder edited = phone.getReminder(id).toBuilder().setTitle("Pay rent today").build();
+        phone.updateReminder(edited);
+        phoneSync.sync(USER_ID);
+        assertEquals(pushes + 1, backend.getPushCount());
+
+        List<Integer> changed = tabletSync.sync(USER_ID);
+        assertEquals(1, changed.size());
+        assertEquals("Pay rent today", tablet.getReminder(changed.get(0)).getTitle());
+    }
+
+    @Test
+    public void largeChangesTravelInBatches() throws IOException {
+        int rows = 2 * BATCH_SIZE + 50;
+        List<Reminder> reminders = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            reminders.add(reminder("Reminder " + i, "", tomorrow + i * 60_000L));
+        }
+        phone.addReminders(reminders);
+
+        phoneSync.sync(USER_ID);
+        assertEquals(3, backend.getPushCount());
+        int pulls = backend.getPullCount();
+        assertEquals(rows, tabletSync.sync(USER_ID).size());
+        assertEquals(pulls + 3, backend.getPullCount());
+        assertEquals(rows, tablet.getAllReminders(USER_ID).size());
+    }
+
+    @Test
+    public void deleteTravelsAsTombstoneAndCancelsAlarm() throws IOException {
+        Context context = tabletHarness.getContext();
+        new NotificationPolicy(context).save(false, 0, 0, 0);
+        int id = (int) phone.addReminder(reminder("Gym", "", tomorrow));
+        phoneSync.sync(USER_ID);
+        List<Integer> added = tabletSync.sync(USER_ID);
+        int tabletId = added.get(0);
+        ReminderScheduler.schedule(context, tablet.getReminder(tabletId));
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        assertEquals(1, shadowOf(alarmManager).getScheduledAlarms().size());
+
+        phone.deleteReminder(id);
+        phoneSync.sync(USER_ID);
+        List<Integer> changed = tabletSync.sync(USER_ID);
+        ReminderScheduler.reschedule(context, USER_ID, changed);
+
+        assertEquals(1, changed.size());
+        assertEquals(tabletId, (int) changed.get(0));
+        assertNull(tablet.getReminder(tabletId));
+        assertTrue(shadowOf(alarmManager).getScheduledAlarms().isEmpty());
+    }
+
+    @Test
+    public void concurrentEditsConverge() throws IOException {
+        int phoneId = (int) phone.addReminder(reminder("Call mom", "", tomorrow));
+        phoneSync.sync(USER_ID);
+        int tabletId = tabletSync.sync(USER_ID).get(0);
+
+        // Both devices edit offline
+        phone.updateReminder(phone.getReminder(phoneId).toBuilder().setTitle("Call mom at noon").build());
+        tablet.updateReminder(tablet.getReminder(tabletId).toBuilder().setTitle("Call mom on Sunday").build());
+        phoneSync.sync(USER_ID);
+        tabletSync.sync(USER_ID);
+        phoneSync.sync(USER_ID);
+
+        Reminder onPhone = phone.getReminder(phoneId);
+        Reminder onTablet = tablet.getReminder(tabletId);
+        assertEquals(onPhone.getTitle(), onTablet.getTitle());
+        assertEquals(onPhone.getDueAt(), onTablet.getDueAt());
+        // Nothing is left to push, so further syncs change nothing
+        int pushes = backend.getPushCount();
+        assertTrue(phoneSync.sync(USER_ID).isEmpty());
+        assertTrue(tabletSync.sync(USER_ID).isEmpty());
+        assertEquals(pushes, backend.getPushCount());
+    }
+
+    private static Reminder reminder(String title, String description, long dueAt) {
+        return Reminder.builder().setTitle(title).setDescription(description).setDueAt(dueAt).setUserId(USER_ID).build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.reminderapp.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ComponentCallbacks2;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Checks how much of each cache survives every trim level, and that trim() applies it to
+ * the registered caches.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class CacheRegistryTest {
+
+    private static final float NOT_TRIMMED = -1f;
+
+    /**
+     * Records the last fraction it was trimmed to.
+     */
+    private static final class RecordingCache implements CacheRegistry.TrimmableCache {
+        float fraction = NOT_TRIMMED;
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        public void trimTo(float fraction) {
+            this.fraction = fraction;
+        }
+
+        @Override
+        public long getFootprintBytes() {
+            return fraction == NOT_TRIMMED ? 1000 : (long) (1000 * fraction);
+        }
+    }
+
+    @Test
+    public void retainedFractionPerLevel() {
+        assertEquals(0.5f, CacheRegistry.retainedFraction(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE), 0f);
+        assertEquals(0.25f, CacheRegistry.retainedFraction(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW), 0f);
+        assertEquals(0f, CacheRegistry.retainedFraction(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL), 0f);
+        assertEquals(0.25f, CacheRegistry.retainedFraction(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN), 0f);
+        assertEquals(0f, CacheRegistry.retainedFraction(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND), 0f);
+        assertEquals(0f, CacheRegistry.retainedFraction(ComponentCallbacks2.TRIM_MEMORY_MODERATE), 0f);
+        assertEquals(0f, CacheRegistry.retainedFraction(ComponentCallbacks2.TRIM_MEMORY_COMPLETE), 0f);
+        // Levels added by later platform versions
+        assertEquals(1f, CacheRegistry.retainedFraction(1), 0f);
+    }
+
+    @Test
+    public void trimAppliesFractionToRegisteredCaches() {
+        RecordingCache cache = new RecordingCache();
+        CacheRegistry.register(ApplicationProvider.getApplicationContext(), cache);
+
+        CacheRegistry.trim(1);
+        assertEquals(NOT_TRIMMED, cache.fraction, 0f);
+        CacheRegistry.trim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(0.5f, cache.fraction, 0f);
+        CacheRegistry.trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0f, cache.fraction, 0f);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.reminderapp.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks that whatever is typed into the budget field reads as a budget in range.
+ */
+public class NotificationPolicyTest {
+
+    @Test
+    public void budgetIsParsedAndClamped() {
+        assertEquals(0, NotificationPolicy.parseBudget(""));
+        assertEquals(0, NotificationPolicy.parseBudget("  "));
+        assertEquals(5, NotificationPolicy.parseBudget(" 5 "));
+        assertEquals(NotificationPolicy.MAX_BUDGET_PER_MINUTE, NotificationPolicy.parseBudget("5000"));
+        assertEquals(NotificationPolicy.MAX_BUDGET_PER_MINUTE, NotificationPolicy.parseBudget("99999999999"));
+        assertEquals(0, NotificationPolicy.parseBudget("-3"));
+        assertEquals(0, NotificationPolicy.parseBudget("abc"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.reminderapp.utils;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Micro-benchmark for the quick-add parser, which runs on every keystroke of the preview.
+ * The bound on the mean cost per parse only catches gross regressions, not noise.
+ */
+public class QuickAddParserBenchmarkTest {
+
+    private static final String[] LINES = {
+            "call Sam tomorrow 9am",
+            "pay rent every 1st at 10:00",
+            "team lunch on monday at 12:30",
+            "gift on 25/12",
+            "call 3 people",
+            "water plants every day 8pm",
+    };
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+    // 2026-10-19T10:00:00Z
+    private static final long NOW = 1_792_404_000_000L;
+
+    @Test
+    public void parseStaysCheap() {
+        QuickAddParser parser = new QuickAddParser();
+        QuickAddParser.Result result = new QuickAddParser.Result();
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            parser.parse(LINES[i % LINES.length], NOW, result);
+            sink += result.getDueAt();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parser.parse(LINES[i % LINES.length], NOW, result);
+            sink += result.getDueAt();
+        }
+        double meanMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+        assertTrue("parse took " + meanMicros + " us", meanMicros < 50);
+        // Uses the results so the parses cannot be optimised away
+        assertTrue(sink != 0);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.reminderapp.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Runs the quick-add grammar over a corpus of lines, all parsed at Monday 2026-10-19 10:00 UTC,
+ * and over every arrangement of titles containing ambiguous words with date and time phrases.
+ */
+public class QuickAddParserTest {
+
+    private static final int NO_DATE = -1;
+
+    /** Line, expected title, expected due time as {year, month, day, hour, minute} or null, recurrence. */
+    private static final Object[][] CORPUS = {
+            {"call Sam tomorrow 9am", "call Sam", due(2026, 10, 20, 9, 0), QuickAddParser.RECUR_NONE},
+            {"dentist at 3pm", "dentist", due(2026, 10, 19, 15, 0), QuickAddParser.RECUR_NONE},
+            {"standup at 9", "standup", due(2026, 10, 20, 9, 0), QuickAddParser.RECUR_NONE},
+            {"call 3 people", "call 3 people", null, QuickAddParser.RECUR_NONE},
+            {"sat exam", "sat exam", null, QuickAddParser.RECUR_NONE},
+            {"groceries on sat", "groceries", due(2026, 10, 24, 9, 0), QuickAddParser.RECUR_NONE},
+            {"team lunch on monday at 12:30", "team lunch", due(2026, 10, 19, 12, 30), QuickAddParser.RECUR_NONE},
+            {"team lunch on monday at 9:30", "team lunch", due(2026, 10, 26, 9, 30), QuickAddParser.RECUR_NONE},
+            {"gift on 25/12", "gift", due(2026, 12, 25, 9, 0), QuickAddParser.RECUR_NONE},
+            {"on 25/12 gift", "gift", due(2026, 12, 25, 9, 0), QuickAddParser.RECUR_NONE},
+            {"tax return 1/4/2027 10am", "tax return", due(2027, 4, 1, 10, 0), QuickAddParser.RECUR_NONE},
+            {"on 31/2 x", "on 31/2 x", null, QuickAddParser.RECUR_NONE},
+            {"x 31/4", "x 31/4", null, QuickAddParser.RECUR_NONE},
+            {"x 29/2/2027", "x 29/2/2027", null, QuickAddParser.RECUR_NONE},
+            {"leap day 29/2", "leap day", due(2028, 2, 29, 9, 0), QuickAddParser.RECUR_NONE},
+            {"old 1/1", "old", due(2027, 1, 1, 9, 0), QuickAddParser.RECUR_NONE},
+            {"today at 8am", "", due(2026, 10, 19, 8, 0), QuickAddParser.RECUR_NONE},
+            {"pay rent every 1st at 10:00", "pay rent", due(2026, 11, 1, 10, 0), QuickAddParser.RECUR_MONTHLY},
+            {"water plants every day 8pm", "water plants", due(2026, 10, 19, 20, 0), QuickAddParser.RECUR_DAILY},
+            {"", "", null, QuickAddParser.RECUR_NONE},
+    };
+
+    // Titles made of words that are dates or times elsewhere in the grammar
+    private static final String[] AMBIGUOUS_TITLES = {
+            "call 3 people", "sat exam", "1st prize", "in person meeting", "on call rota", "mon ami dinner",
+    };
+    /** Date phrase and the day it names as {year, month, day}; null for no date. */
+    private static final Object[][] DATE_PHRASES = {
+            {"", null},
+            {"tomorrow", new int[] {2026, 10, 20}},
+            {"on fri", new int[] {2026, 10, 23}},
+            {"next week", new int[] {2026, 10, 26}},
+            {"on the 1st", new int[] {2026, 11, 1}},
+            {"on 25/12", new int[] {2026, 12, 25}},
+            {"25/12/2027", new int[] {2027, 12, 25}},
+    };
+    /** Time phrase and its minute of the day; -1 for no time. */
+    private static final Object[][] TIME_PHRASES = {
+            {"", -1},
+            {"at 3pm", 15 * 60},
+            {"at 9", 9 * 60},
+            {"at 5", 17 * 60},
+            {"9:30 pm", 21 * 60 + 30},
+            {"@ noon", 12 * 60},
+    };
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+    private QuickAddParser parser;
+    private QuickAddParser.Result result;
+    private long now;
+
+    @Before
+    public void setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        parser = new QuickAddParser();
+        result = new QuickAddParser.Result();
+        now = millis(due(2026, 10, 19, 10, 0));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void corpusParsesAsExpected() {
+        for (Object[] entry : CORPUS) {
+            String line = (String) entry[0];
+            parser.parse(line, now, result);
+            assertEquals(line, entry[1], result.getTitle());
+            assertEquals(line, entry[2] == null ? NO_DATE : millis((int[]) entry[2]), result.getDueAt());
+            assertEquals(line, entry[3], result.getRecurrence());
+        }
+    }
+
+    @Test
+    public void ambiguousTitlesSurviveEveryArrangement() {
+        int checked = 0;
+        for (String title : AMBIGUOUS_TITLES) {
+            for (Object[] date : DATE_PHRASES) {
+                for (Object[] time : TIME_PHRASES) {
+                    long expected = expectedDueAt((int[]) date[1], (Integer) time[1]);
+                    String datePhrase = (String) date[0];
+                    String timePhrase = (String) time[0];
+                    String[] lines = {
+                            join(title, datePhrase, timePhrase),
+                            join(title, timePhrase, datePhrase),
+                            join(datePhrase, timePhrase, title),
+                            join(timePhrase, title, datePhrase),
+                    };
+                    for (String line : lines) {
+                        parser.parse(line, now, result);
+                        assertEquals(line, title, result.getTitle());
+                        assertEquals(line, expected, result.getDueAt());
+                        assertEquals(line, QuickAddParser.RECUR_NONE, result.getRecurrence());
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertEquals(AMBIGUOUS_TITLES.length * DATE_PHRASES.length * TIME_PHRASES.length * 4, checked);
+    }
+
+    @Test
+    public void passedTimeTodayIsKept() {
+        parser.parse("standup today at 2pm", millis(due(2026, 10, 19, 14, 30)), result);
+
+        assertEquals("standup", result.getTitle());
+        assertEquals(millis(due(2026, 10, 19, 14, 0)), result.getDueAt());
+    }
+
+    @Test
+    public void instanceIsReusable() {
+        parser.parse("gift on 25/12", now, result);
+        parser.parse("call 3 people", now, result);
+
+        assertEquals("call 3 people", result.getTitle());
+        assertEquals(NO_DATE, result.getDueAt());
+    }
+
+    /**
+     * A date without a time is due at 09:00; a time without a date is due today, or tomorrow
+     * if it has passed.
+     */
+    private long expectedDueAt(int[] day, int minuteOfDay) {
+        if (day == null && minuteOfDay < 0) {
+            return NO_DATE;
+        }
+        int minute = minuteOfDay < 0 ? 9 * 60 : minuteOfDay;
+        if (day != null) {
+            return millis(due(day[0], day[1], day[2], minute / 60, minute % 60));
+        }
+        long today = millis(due(2026, 10, 19, minute / 60, minute % 60));
+        return today > now ? today : millis(due(2026, 10, 20, minute / 60, minute % 60));
+    }
+
+    private static String join(String... parts) {
+        StringBuilder line = new StringBuilder();
+        for (String part : parts) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append(part);
+        }
+        return line.toString();
+    }
+
+    private static int[] due(int year, int month, int day, int hour, int minute) {
+        return new int[] {year, month, day, hour, minute};
+    }
+
+    private static long millis(int[] due) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(due[0], due[1] - 1, due[2], due[3], due[4]);
+        return calendar.getTimeInMillis();
+    }
+}
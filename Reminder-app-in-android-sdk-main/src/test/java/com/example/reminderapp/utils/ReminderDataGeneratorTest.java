@@ -0,0 +1,60 @@
+package com.example.reminderapp.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.reminderapp.models.Reminder;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Checks that a seed generates the same rows whatever the device's time zone.
+ */
+public class ReminderDataGeneratorTest {
+
+    private static final long SEED = 7L;
+    private static final long ORIGIN = 1_790_000_000_000L;
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @After
+    public void restoreZone() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void sameSeedGeneratesSameRowsInEveryTimeZone() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        List<Reminder> utc = new ReminderDataGenerator(SEED, ORIGIN).generateForUser(1, 500);
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+        List<Reminder> kolkata = new ReminderDataGenerator(SEED, ORIGIN).generateForUser(1, 500);
+        TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+        List<Reminder> losAngeles = new ReminderDataGenerator(SEED, ORIGIN).generateForUser(1, 500);
+
+        for (int i = 0; i < utc.size(); i++) {
+            assertSameReminder(utc.get(i), kolkata.get(i));
+            assertSameReminder(utc.get(i), losAngeles.get(i));
+        }
+    }
+
+    @Test
+    public void userIdsStayInRange() {
+        ReminderDataGenerator generator = new ReminderDataGenerator(SEED, ORIGIN);
+        for (int i = 0; i < 1000; i++) {
+            int userId = generator.nextUserId(50);
+            assertTrue(userId >= 1 && userId <= 50);
+        }
+    }
+
+    private static void assertSameReminder(Reminder expected, Reminder actual) {
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getDueAt(), actual.getDueAt());
+        assertEquals(expected.getTags(), actual.getTags());
+        assertEquals(expected.getPriority(), actual.getPriority());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.reminderapp.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.AlarmManager;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.reminderapp.database.DatabaseHelper;
+import com.example.reminderapp.models.Reminder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Checks that reminders due in quiet hours are queued for the wakeup at the end of quiet
+ * hours, and that other reminders get a wakeup at their due time.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ReminderSchedulerTest {
+
+    private static final int USER_ID = 1;
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+    private Context context;
+    private AlarmManager alarmManager;
+    private DatabaseHelper db;
+
+    @Before
+    public void setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        context = ApplicationProvider.getApplicationContext();
+        alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        new NotificationPolicy(context).save(true, 22 * 60, 7 * 60, 0);
+        db = DatabaseHelper.forUser(context, USER_ID);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void quietHourReminderIsQueuedForEndOfQuietHours() {
+        long dueAt = tomorrowAt(23, 30);
+        int id = addReminder(dueAt);
+
+        ReminderScheduler.schedule(context, USER_ID, id, "Water plants", "", dueAt);
+
+        long quietEnd = dueAt + (7 * 60 + 30) * 60_000L;
+        List<ShadowAlarmManager.ScheduledAlarm> alarms = shadowOf(alarmManager).getScheduledAlarms();
+        assertEquals(1, alarms.size());
+        assertEquals(AlarmManager.RTC_WAKEUP, alarms.get(0).getType());
+        assertEquals(quietEnd, alarms.get(0).getTriggerAtMs());
+        assertTrue(db.getDeferredNotifications(dueAt - 1).isEmpty());
+        assertEquals(id, db.getDeferredNotifications(quietEnd).get(0).getId());
+    }
+
+    @Test
+    public void remindersOfTwoNightsKeepTheirOwnFlush() {
+        long firstDueAt = tomorrowAt(23, 30);
+        long secondDueAt = firstDueAt + 24 * 60 * 60_000L;
+
+        ReminderScheduler.schedule(context, USER_ID, addReminder(firstDueAt), "Pay rent", "", firstDueAt);
+        ReminderScheduler.schedule(context, USER_ID, addReminder(secondDueAt), "Gym", "", secondDueAt);
+
+        assertEquals(2, shadowOf(alarmManager).getScheduledAlarms().size());
+    }
+
+    @Test
+    public void daytimeReminderWakesAtDueTime() {
+        long dueAt = tomorrowAt(12, 0);
+        int id = addReminder(dueAt);
+
+        ReminderScheduler.schedule(context, USER_ID, id, "Team meeting", "", dueAt);
+
+        List<ShadowAlarmManager.ScheduledAlarm> alarms = shadowOf(alarmManager).getScheduledAlarms();
+        assertEquals(1, alarms.size());
+        assertEquals(AlarmManager.RTC_WAKEUP, alarms.get(0).getType());
+        assertEquals(dueAt, alarms.get(0).getTriggerAtMs());
+        assertTrue(db.getDeferredNotifications(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void queuedReminderMovedPastFlushIsNotFlushed() {
+        long dueAt = tomorrowAt(23, 30);
+        int id = addReminder(dueAt);
+        ReminderScheduler.schedule(context, USER_ID, id, "Water plants", "", dueAt);
+
+        // Edited to two hours after the end of quiet hours
+        long movedDueAt = dueAt + (9 * 60 + 30) * 60_000L;
+        ReminderScheduler.schedule(context, USER_ID, id, "Water plants", "", movedDueAt);
+
+        assertTrue(db.getDeferredNotifications(Long.MAX_VALUE).isEmpty());
+        boolean armed = false;
+        for (ShadowAlarmManager.ScheduledAlarm alarm : shadowOf(alarmManager).getScheduledAlarms()) {
+            armed |= alarm.getTriggerAtMs() == movedDueAt;
+        }
+        assertTrue(armed);
+    }
+
+    @Test
+    public void cancelTakesReminderOutOfQueue() {
+        long dueAt = tomorrowAt(23, 30);
+        int id = addReminder(dueAt);
+        ReminderScheduler.schedule(context, USER_ID, id, "Water plants", "", dueAt);
+
+        ReminderScheduler.cancel(context, USER_ID, id);
+
+        assertTrue(db.getDeferredNotifications(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void reloadedListRowNotifiesWithFullDescription() {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 300) {
+            description.append("Bring passport, tickets and the charger. ");
+        }
+        long dueAt = tomorrowAt(12, 0);
+        db.addReminder(Reminder.builder().setTitle("Flight").setDescription(description.toString())
+                .setDueAt(dueAt).setUserId(USER_ID).build());
+
+        Reminder row = db.getAllReminders(USER_ID).get(0);
+        assertTrue(row.getDescription().length() < description.length());
+        ReminderScheduler.schedule(context, db.getReminder(row.getId()));
+
+        ShadowAlarmManager.ScheduledAlarm alarm = shadowOf(alarmManager).getScheduledAlarms().get(0);
+        assertEquals(description.toString(),
+                shadowOf(alarm.getOperation()).getSavedIntent().getStringExtra(ReminderScheduler.EXTRA_DESCRIPTION));
+    }
+
+    private int addReminder(long dueAt) {
+        return (int) db.addReminder(Reminder.builder().setTitle("Reminder").setDueAt(dueAt).setUserId(USER_ID).build());
+    }
+
+    private static long tomorrowAt(int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, hour);
+        calendar.set(Calendar.MINUTE, minute);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.reminderapp.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Looper;
+import android.widget.ImageView;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.reminderapp.database.AttachmentStore;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Checks that a thumbnail dropped from memory by a trim is shown again, from the disk cache.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class ThumbnailLoaderTest {
+
+    private static final int USER_ID = 1;
+    private static final String FILE_NAME = "photo.png";
+    private static final int SIZE_PX = 64;
+    private static final long TIMEOUT_MS = 5000;
+
+    private Context context;
+
+    @Before
+    public void setUp() throws IOException {
+        context = ApplicationProvider.getApplicationContext();
+        File file = AttachmentStore.getFile(context, USER_ID, FILE_NAME);
+        file.getParentFile().mkdirs();
+        Bitmap image = Bitmap.createBitmap(400, 300, Bitmap.Config.ARGB_8888);
+        OutputStream output = new FileOutputStream(file);
+        try {
+            image.compress(Bitmap.CompressFormat.PNG, 100, output);
+        } finally {
+            output.close();
+        }
+    }
+
+    @Test
+    public void thumbnailIsShownAgainAfterCompleteTrim() throws InterruptedException {
+        ThumbnailLoader loader = ThumbnailLoader.getInstance(context);
+        ImageView view = new ImageView(context);
+
+        assertNotNull(loader.load(context, USER_ID, FILE_NAME, SIZE_PX, view));
+        awaitThumbnail(view);
+        assertTrue(loader.getFootprintBytes() > 0);
+        assertNull(loader.load(context, USER_ID, FILE_NAME, SIZE_PX, view));
+
+        CacheRegistry.trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, loader.getFootprintBytes());
+
+        ImageView rebound = new ImageView(context);
+        assertNotNull(loader.load(context, USER_ID, FILE_NAME, SIZE_PX, rebound));
+        Bitmap thumbnail = awaitThumbnail(rebound);
+        assertEquals(SIZE_PX, thumbnail.getWidth());
+        assertEquals(SIZE_PX, thumbnail.getHeight());
+        assertTrue(loader.getFootprintBytes() > 0);
+    }
+
+    /**
+     * Runs main looper tasks until the background decode has set the view's bitmap.
+     */
+    private static Bitmap awaitThumbnail(ImageView view) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (view.getDrawable() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        assertNotNull(view.getDrawable());
+        return ((BitmapDrawable) view.getDrawable()).getBitmap();
+    }
+}